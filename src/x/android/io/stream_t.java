@@ -694,6 +694,41 @@ public class stream_t implements DataInput, DataOutput
         arrays.shortAsBigEnd(buffer, 0, (short)(index - 2));
         write(buffer, 0, index);
     }
+
+    /**
+     * Writes a number as decimal text.
+     * The digits are written as ASCII characters, directly in the internal
+     * buffer. No string is created.
+     * \param value The value to write.
+     * \note The write position is updated by the number of characters.
+     * \see writeStatus()
+     * \since jguime 2.5
+     **/
+    public void writeDecimal(long value) {
+        if (!_internal_checkRoom(m_write + 20)) {
+            m_lastWrite = ERROR.NOMEM;
+            return;
+        }
+        m_write = numbers.formatDecimal(m_data, m_write, value);
+    }
+
+    /**
+     * Writes a number as hexadecimal text.
+     * The digits are written as upper case ASCII characters, directly in the
+     * internal buffer. No string is created.
+     * \param value The value to write. It is treated as unsigned.
+     * \param digits Minimum number of digits. Leading zeros are added.
+     * \note The write position is updated by the number of characters.
+     * \see writeStatus()
+     * \since jguime 2.5
+     **/
+    public void writeHex(long value, int digits) {
+        if (!_internal_checkRoom(m_write + Math.max(16, digits))) {
+            m_lastWrite = ERROR.NOMEM;
+            return;
+        }
+        m_write = numbers.formatHex(m_data, m_write, value, digits);
+    }
     //@}
 
     /** \name READ OPERATIONS */ //@{
@@ -1474,37 +1509,20 @@ public class stream_t implements DataInput, DataOutput
     /**
      * Writes the content of this stream in the standard ouput.
      * The writing starts at the current position and goes until the
-     * #available() bytes are reached. The output is done in chuncks of 16
-     * bytes formated as hexadecimal values:
+     * #available() bytes are reached. The output is done in lines of 16
+     * bytes, with the position of the first byte in the stream, the values
+     * in hexadecimal and the ASCII characters:
      * <pre>
-     * [00 01 0A 0C BE BE CA FE FF EF CD 1A 98 33 22 11]
+     * 00000010  00 01 0A 0C BE BE CA FE  48 65 6C 6C 6F 22 11 00  |........Hello"..|
      * </pre>
-     * Each value is space separated. The space is not part of the stream.
+     * The lines are built by x::android::utils::SFHex#dumpLine().
      **/
     public final void dump() {
         if (!debug.enabled) return;
         debug.w("Dumping stream_t content:\n");
         debug.w("read position.: %d\n", m_read);
         debug.w("write position: %d\n", m_write);
-        debug.w("stream in chuncks of 16 bytes\n");
-        debug.timestamp = false;
-
-        final int limit = m_write;
-        int chunck, i = m_read;
-        StringBuilder sb = new StringBuilder(48);
-
-        while (i < limit)
-        {
-            chunck = i + 16;
-            while (i < chunck && i < limit)
-            {
-                sb.append(strings.format(" %02X", m_data[i]));
-                i++;
-            }
-            debug.w("%d-%d [%s ]\n", (i - 16), i, sb.toString());
-            sb.setLength(0);
-        }
-        debug.timestamp = true;
+        debug.dump(m_data, m_read, (m_write - m_read), m_read);
     }
     //@}
 
@@ -211,6 +211,7 @@ public class CAndroidApp extends android.app.Application
      **/
     public void onCreate() {
         super.onCreate();
+        SFErrors.preload();
 
         debug.w("\nAndroid Version:\n");
         debug.w("@@ CODENAME:'%s' INCREMENTAL:'%s' RELEASE:'%s'\n",
@@ -252,6 +253,18 @@ public class CAndroidApp extends android.app.Application
 //        }
 
     }
+
+    /**
+     * Called when the device configuration changes.
+     * The locale used to find resources is resolved again. When it changes,
+     * cached string resources are discarded so they are reloaded in the new
+     * locale.
+     **/
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        res.refreshLocale();
+        SFAsset.refreshLocale();
+    }
     //@}
 
     /** \name ALERTS */ //@{
@@ -409,10 +422,9 @@ public class CAndroidApp extends android.app.Application
      * generic message.
      **/
     public static String getMessage(int errCode) {
-        CStringTable table = CStringTable.LoadAsset("errors.xml");
-        String     message = table.get(errCode);
-        if (message == null) {
-            message = table.get(ERROR.FAILED);
+        String message = SFErrors.get(errCode);
+        if (message.length() == 0) {
+            message = SFErrors.get(ERROR.FAILED);
         }
         return message;
     }
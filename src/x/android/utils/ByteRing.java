@@ -0,0 +1,301 @@
+/**
+ * \file
+ * Defines the ByteRing class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.io.InputStream;
+import x.android.defs.ERROR;
+
+/**
+ * \ingroup x_android_utils
+ * Lock-free ring of bytes, with one producer and one consumer.
+ * Hands a stream of bytes from one thread to another, like the data read
+ * from a socket_t by a reader thread. Bytes are copied in blocks with \c
+ * System.arraycopy() and no object is created. #write(InputStream, int)
+ * reads from a stream directly into the ring, avoiding a second copy.
+ *
+ * Only one thread can write and only one thread can read at the same time.
+ * A stream has a single writer, otherwise the blocks of different threads
+ * would be mixed. To hand messages from several threads use ObjectRing.
+ *
+ * Operations follow the convention of socket_t: a number of bytes, zero
+ * included, or a negative error code.
+ * @code
+ * // Reader thread.
+ * while (!aborted() && (ring.write(input, 4096) >= 0)) ;
+ * ring.close();
+ *
+ * // Processing thread.
+ * while ((count = ring.read(buffer, 0, buffer.length, thread_t.INFINITE)) > 0)
+ *     parse(buffer, count);
+ * @endcode
+ *//* --------------------------------------------------------------------- */
+public class ByteRing extends RingBuffer
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public ByteRing(int capacity);/*{{{*/
+    /**
+     * Builds a ring that parks waiting threads.
+     * \param capacity Number of bytes. Rounded up to a power of two.
+     **/
+    public ByteRing(int capacity) {
+        this(capacity, WAIT_BLOCK);
+    }/*}}}*/
+    // public ByteRing(int capacity, int wait);/*{{{*/
+    /**
+     * Builds a ring.
+     * \param capacity Number of bytes. Rounded up to a power of two.
+     * \param wait #WAIT_SPIN, #WAIT_YIELD or #WAIT_BLOCK.
+     **/
+    public ByteRing(int capacity, int wait) {
+        super(capacity, wait, false);
+        m_buffer = new byte[m_capacity];
+    }/*}}}*/
+    //@}
+
+    /** \name WRITING */ //@{
+    // public final int write(byte[] data, int offset, int count);/*{{{*/
+    /**
+     * Writes the bytes that fit in the ring, without waiting.
+     * \param data Bytes to write.
+     * \param offset Index of the first byte in \a data.
+     * \param count Number of bytes to write.
+     * \return The number of bytes written, zero when the ring is full. \c
+     * ERROR.PARM when the arguments are invalid. \c ERROR.CLOSED when the
+     * ring was closed.
+     **/
+    public final int write(byte[] data, int offset, int count) {
+        if ((data == null) || (offset < 0) || (count < 0) || (count > data.length - offset))
+            return ERROR.PARM;
+        if (m_closed)
+            return ERROR.CLOSED;
+
+        final long tail  = m_tail.get();
+        final int  index = (int)tail & m_mask;
+        int amount = Math.min(count, _internal_room(tail, count));
+
+        if (amount == 0) return 0;
+
+        int first = Math.min(amount, m_capacity - index);
+        System.arraycopy(data, offset, m_buffer, index, first);
+        if (first < amount)
+            System.arraycopy(data, offset + first, m_buffer, 0, amount - first);
+
+        _internal_publish(m_tail, tail + amount);
+        _internal_wake(true);
+        return amount;
+    }/*}}}*/
+    // public final int write(byte[] data, int offset, int count, long interval);/*{{{*/
+    /**
+     * Writes all bytes, waiting for room when needed.
+     * \param data Bytes to write.
+     * \param offset Index of the first byte in \a data.
+     * \param count Number of bytes to write.
+     * \param interval Maximum interval to wait, in milliseconds.
+     * thread_t#INFINITE waits until all bytes are written.
+     * \return The number of bytes written. It is less than \a count when
+     * the interval elapses, the thread is interrupted or the ring is closed
+     * after part of the data was written. When nothing was written the
+     * result is \c ERROR.EXPIRED, \c ERROR.ABORTED or \c ERROR.CLOSED. \c
+     * ERROR.PARM when the arguments are invalid.
+     **/
+    public final int write(byte[] data, int offset, int count, long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        final long deadline = _internal_deadline(interval);
+        int written = 0, result;
+
+        while (true)
+        {
+            result = write(data, offset + written, count - written);
+            if (result < 0) break;
+
+            written += result;
+            if (written == count) return written;
+
+            result = _internal_await(false, interval, deadline);
+            if (result != ERROR.SUCCESS) break;
+        }
+        return ((written > 0) ? written : result);
+    }/*}}}*/
+    // public final int write(InputStream input, int count);/*{{{*/
+    /**
+     * Reads from a stream directly into the ring.
+     * Calls \c InputStream.read() once, with the largest contiguous free
+     * block up to \a count bytes. The call blocks as the stream does. When
+     * the ring is full nothing is read.
+     * \param input The stream.
+     * \param count Maximum number of bytes to read.
+     * \return The number of bytes read, zero when the ring is full. \c
+     * ERROR.EOF at the end of the stream. \c ERROR.IO when the stream fails.
+     * \c ERROR.PARM when the arguments are invalid. \c ERROR.CLOSED when the
+     * ring was closed.
+     **/
+    public final int write(InputStream input, int count) {
+        if ((input == null) || (count < 0))
+            return ERROR.PARM;
+        if (m_closed)
+            return ERROR.CLOSED;
+
+        final long tail  = m_tail.get();
+        final int  index = (int)tail & m_mask;
+        int amount = Math.min(count, _internal_room(tail, count));
+
+        amount = Math.min(amount, m_capacity - index);
+        if (amount == 0) return 0;
+
+        int result;
+        try { result = input.read(m_buffer, index, amount); }
+        catch (Exception ex) {
+            debug.w("Exception at ByteRing::write(InputStream::read()): '%s'\n", ex.getMessage());
+            return ERROR.IO;
+        }
+
+        if (result < 0) return ERROR.EOF;
+        if (result > 0) {
+            _internal_publish(m_tail, tail + result);
+            _internal_wake(true);
+        }
+        return result;
+    }/*}}}*/
+    //@}
+
+    /** \name READING */ //@{
+    // public final int read(byte[] buffer, int offset, int count);/*{{{*/
+    /**
+     * Reads the available bytes, without waiting.
+     * \param buffer Array to store the bytes.
+     * \param offset Index of the first byte in \a buffer.
+     * \param count Maximum number of bytes to read.
+     * \return The number of bytes read, zero when the ring is empty. \c
+     * ERROR.EOF when the ring is empty and closed. \c ERROR.PARM when the
+     * arguments are invalid.
+     **/
+    public final int read(byte[] buffer, int offset, int count) {
+        if ((buffer == null) || (offset < 0) || (count < 0) || (count > buffer.length - offset))
+            return ERROR.PARM;
+
+        final long head  = m_head.get();
+        final int  index = (int)head & m_mask;
+        long tail = m_head.cache;
+
+        if ((tail - head) < count)
+        {
+            /* The flag is read before the tail: when it is set, all data
+             * written before closing is seen. */
+            final boolean closed = m_closed;
+
+            m_head.cache = tail = m_tail.get();
+            if (tail == head)
+                return ((closed && (count > 0)) ? ERROR.EOF : 0);
+        }
+
+        int amount = (int)Math.min((long)count, tail - head);
+        int first  = Math.min(amount, m_capacity - index);
+
+        System.arraycopy(m_buffer, index, buffer, offset, first);
+        if (first < amount)
+            System.arraycopy(m_buffer, 0, buffer, offset + first, amount - first);
+
+        _internal_publish(m_head, head + amount);
+        _internal_wake(false);
+        return amount;
+    }/*}}}*/
+    // public final int read(byte[] buffer, int offset, int count, long interval);/*{{{*/
+    /**
+     * Reads the available bytes, waiting when the ring is empty.
+     * Returns as soon as some bytes are read. Doesn't wait for \a count
+     * bytes.
+     * \param buffer Array to store the bytes.
+     * \param offset Index of the first byte in \a buffer.
+     * \param count Maximum number of bytes to read.
+     * \param interval Maximum interval to wait, in milliseconds.
+     * thread_t#INFINITE waits until there is data.
+     * \return The number of bytes read. \c ERROR.EXPIRED when the interval
+     * elapses. \c ERROR.ABORTED when the thread is interrupted. \c ERROR.EOF
+     * when the ring is empty and closed. \c ERROR.PARM when the arguments
+     * are invalid.
+     **/
+    public final int read(byte[] buffer, int offset, int count, long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        final long deadline = _internal_deadline(interval);
+        int result;
+
+        while (true)
+        {
+            result = read(buffer, offset, count);
+            if ((result != 0) || (count == 0)) return result;
+
+            result = _internal_await(true, interval, deadline);
+            if (result != ERROR.SUCCESS) return result;
+        }
+    }/*}}}*/
+    // public final int skip(int count);/*{{{*/
+    /**
+     * Discards bytes without copying them.
+     * \param count Maximum number of bytes to discard.
+     * \return The number of bytes discarded. \c ERROR.PARM when \a count is
+     * negative.
+     **/
+    public final int skip(int count) {
+        if (count < 0) return ERROR.PARM;
+
+        final long head = m_head.get();
+        final long tail = (m_head.cache = m_tail.get());
+        int amount = (int)Math.min((long)count, tail - head);
+
+        if (amount > 0) {
+            _internal_publish(m_head, head + amount);
+            _internal_wake(false);
+        }
+        return amount;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // boolean _internal_ready(boolean reader);/*{{{*/
+    /**
+     * Checks for data or room.
+     **/
+    boolean _internal_ready(boolean reader) {
+        if (m_closed) return true;
+
+        final long used = m_tail.get() - m_head.get();
+        return (reader ? (used > 0L) : (used < m_capacity));
+    }/*}}}*/
+    // private int _internal_room(long tail, int needed);/*{{{*/
+    /**
+     * Free space for the producer.
+     * The head is read again only when the last value read doesn't leave
+     * room for \a needed bytes.
+     **/
+    private int _internal_room(long tail, int needed) {
+        int room = m_capacity - (int)(tail - m_tail.cache);
+
+        if (room < needed)
+            room = m_capacity - (int)(tail - (m_tail.cache = m_head.get()));
+
+        return room;
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private final byte[] m_buffer;          /**< The bytes.                     */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,625 @@
+/**
+ * \file
+ * Defines the CLogQueue class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import android.util.Log;
+
+import x.android.defs.ERROR;
+
+/**
+ * \ingroup x_android_utils
+ * Asynchronous logging output.
+ * Messages are posted in a lock-free ring buffer and written by a background
+ * thread. The calling thread only copies the format string and its
+ * arguments: the formatting, the timestamp and the output are done by the
+ * writer thread. The debug class uses a queue when #debug.startAsync() is
+ * called:
+ * @code
+ * debug.startAsync(1024);
+ * debug.queue().setLevel("X__X", CLogQueue.LEVEL_INFO);
+ * debug.queue().setFile("/sdcard/app/app.log", 512 * 1024, 4);
+ * ...
+ * debug.stopAsync(500);
+ * @endcode
+ * When the ring buffer is full the new messages are dropped, not blocking
+ * the caller. The number of dropped messages is available with #dropped()
+ * and is also written in the log output when the writer catches up.
+ *
+ * Notice that the arguments of a message are formatted later. Mutable
+ * objects passed as arguments can change before they are written.
+ *//* --------------------------------------------------------------------- */
+public final class CLogQueue
+{
+    /** \name CONSTRUCTOR */ //@{
+    // public CLogQueue(int capacity);/*{{{*/
+    /**
+     * Builds the queue.
+     * The writer thread is not started. Call #start().
+     * \param capacity Maximum number of pending messages. Rounded up to a
+     * power of two. Values less than 16 are changed to 16.
+     **/
+    public CLogQueue(int capacity) {
+        int size = 16;
+        while ((size < capacity) && (size < (1 << 20)))
+            size <<= 1;
+
+        m_records   = new Record[size];
+        m_seq       = new AtomicLongArray(size);
+        m_mask      = size - 1;
+        m_tail      = new AtomicLong();
+        m_dropped   = new AtomicLong();
+        m_overflows = new AtomicLong();
+        m_levels    = new ConcurrentHashMap<String, Integer>();
+        m_level     = LEVEL_VERBOSE;
+        m_logcat    = true;
+
+        for (int i = 0; i < size; i++) {
+            m_records[i] = new Record();
+            m_seq.set(i, i);
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int  capacity();/*{{{*/
+    /**
+     * Maximum number of pending messages.
+     **/
+    public final int capacity() {
+        return m_records.length;
+    }/*}}}*/
+    // public final int  pending();/*{{{*/
+    /**
+     * Number of messages waiting to be written.
+     **/
+    public final int pending() {
+        return (int)Math.max(0L, m_tail.get() - m_head);
+    }/*}}}*/
+    // public final long dropped();/*{{{*/
+    /**
+     * Number of messages discarded because the queue was full.
+     **/
+    public final long dropped() {
+        return m_dropped.get();
+    }/*}}}*/
+    // public final long overflows();/*{{{*/
+    /**
+     * Number of times the queue became full.
+     * Each overflow can drop many messages.
+     **/
+    public final long overflows() {
+        return m_overflows.get();
+    }/*}}}*/
+    // public final long written();/*{{{*/
+    /**
+     * Number of messages written by the writer thread.
+     **/
+    public final long written() {
+        return m_written;
+    }/*}}}*/
+    //@}
+
+    /** \name FILTERING */ //@{
+    // public final void    setLevel(int level);/*{{{*/
+    /**
+     * Sets the minimum level of the tags without a specific level.
+     * \param level One of the level constants: #LEVEL_VERBOSE,
+     * #LEVEL_DEBUG, #LEVEL_INFO, #LEVEL_WARN, #LEVEL_ERROR or #LEVEL_SILENT.
+     **/
+    public final void setLevel(int level) {
+        m_level = level;
+    }/*}}}*/
+    // public final void    setLevel(String tag, int level);/*{{{*/
+    /**
+     * Sets the minimum level of a tag.
+     * \param tag The tag.
+     * \param level One of the level constants. A negative value removes the
+     * tag level, so the default level is used.
+     **/
+    public final void setLevel(String tag, int level) {
+        if (tag == null) return;
+
+        if (level < 0)
+            m_levels.remove(tag);
+        else
+            m_levels.put(tag, Integer.valueOf(level));
+    }/*}}}*/
+    // public final int     getLevel(String tag);/*{{{*/
+    /**
+     * Gets the minimum level of a tag.
+     * \param tag The tag.
+     * \return The level of the tag or the default level.
+     **/
+    public final int getLevel(String tag) {
+        Integer level = ((tag == null) || m_levels.isEmpty()) ? null : m_levels.get(tag);
+        return ((level == null) ? m_level : level.intValue());
+    }/*}}}*/
+    // public final boolean isLoggable(String tag, int level);/*{{{*/
+    /**
+     * Checks whether messages of a level are written for a tag.
+     * \param tag The tag.
+     * \param level The message level.
+     **/
+    public final boolean isLoggable(String tag, int level) {
+        return (level >= getLevel(tag));
+    }/*}}}*/
+    //@}
+
+    /** \name OUTPUT */ //@{
+    // public final void setLogcat(boolean enabled);/*{{{*/
+    /**
+     * Enables or disables the output to the \c Log object.
+     * Enabled by default.
+     **/
+    public final void setLogcat(boolean enabled) {
+        m_logcat = enabled;
+    }/*}}}*/
+    // public final void setFile(String path, long maxSize, int maxFiles);/*{{{*/
+    /**
+     * Sets a file where the messages are also written.
+     * When the file reaches \a maxSize bytes it is renamed with the suffix
+     * ".1", the previous ".1" file becomes ".2" and so on, until
+     * \a maxFiles. The oldest file is deleted.
+     * \param path Path of the file. \b null stops writing in the file.
+     * \param maxSize Maximum size of each file, in bytes. Zero or negative
+     * means no limit.
+     * \param maxFiles Number of old files to keep.
+     **/
+    public final void setFile(String path, long maxSize, int maxFiles) {
+        FileSink sink = null;
+
+        if (path != null) {
+            sink = new FileSink();
+            sink.file     = new File(path);
+            sink.maxSize  = maxSize;
+            sink.maxFiles = Math.max(0, maxFiles);
+        }
+        m_sink = sink;
+        _internal_wake();
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final int     start();/*{{{*/
+    /**
+     * Starts the writer thread.
+     * \return \c ERROR.SUCCESS or an error from thread_t#start().
+     **/
+    public final int start() {
+        if ((m_writer != null) && m_writer.isActive())
+            return ERROR.RUNNING;
+
+        m_writer = new LogWriter(this);
+        m_writer.setPriority(thread_t.PRIORITY_IDLE);
+        return m_writer.start();
+    }/*}}}*/
+    // public final int     stop(long timeout);/*{{{*/
+    /**
+     * Stops the writer thread.
+     * The pending messages are written before the thread stops.
+     * \param timeout Maximum time to wait, in milliseconds. The same as
+     * thread_t#join().
+     * \return The result of thread_t#join().
+     **/
+    public final int stop(long timeout) {
+        LogWriter writer = m_writer;
+        if (writer == null) return ERROR.SUCCESS;
+
+        writer.abort();
+        _internal_wake();
+        return writer.join(timeout);
+    }/*}}}*/
+    // public final boolean flush(long timeout);/*{{{*/
+    /**
+     * Waits until the pending messages are written.
+     * \param timeout Maximum time to wait, in milliseconds.
+     * \return \b true if all messages posted before the call were written.
+     * \b false when the timeout elapses or the writer is not running.
+     **/
+    public final boolean flush(long timeout) {
+        final long target = m_tail.get();
+        final long limit  = System.currentTimeMillis() + timeout;
+
+        while (m_head < target)
+        {
+            if ((m_writer == null) || !m_writer.isActive() || (System.currentTimeMillis() >= limit))
+                return false;
+
+            _internal_wake();
+            thread_t.sleep(2L);
+        }
+        return true;
+    }/*}}}*/
+    //@}
+
+    /** \name POSTING */ //@{
+    // public final boolean post(int level, String tag, String text);/*{{{*/
+    /**
+     * Posts a message.
+     * \param level Level of the message.
+     * \param tag Tag of the message.
+     * \param text Text of the message.
+     * \return \b true when the message is queued. \b false when it is
+     * filtered or the queue is full.
+     **/
+    public final boolean post(int level, String tag, String text) {
+        if (level < getLevel(tag)) return false;
+        return _internal_post(KIND_TEXT, level, tag, text, null, null);
+    }/*}}}*/
+    // public final boolean post(int level, String tag, String fmt, Object... args);/*{{{*/
+    /**
+     * Posts a message to be formatted by the writer thread.
+     * \param level Level of the message.
+     * \param tag Tag of the message.
+     * \param fmt Format string, as in \c String.format().
+     * \param args Arguments of the format.
+     * \return \b true when the message is queued. \b false when it is
+     * filtered or the queue is full.
+     **/
+    public final boolean post(int level, String tag, String fmt, Object... args) {
+        if (level < getLevel(tag)) return false;
+        return _internal_post(KIND_FORMAT, level, tag, fmt, args, null);
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // final boolean _internal_post(int kind, int level, String tag, String text, Object[] args, Exception ex);/*{{{*/
+    /**
+     * Puts a record in the ring buffer.
+     * Many threads can post at the same time. A slot is reserved by moving
+     * the tail sequence. The slot is published to the writer by updating
+     * its sequence number after the record is filled.
+     * \return \b true when the record is queued. \b false when the queue is
+     * full.
+     **/
+    final boolean _internal_post(int kind, int level, String tag, String text, Object[] args, Exception ex) {
+        long pos = m_tail.get();
+        int  index;
+
+        while (true)
+        {
+            index = (int)(pos & m_mask);
+            long diff = m_seq.get(index) - pos;
+
+            if (diff == 0L) {
+                if (m_tail.compareAndSet(pos, pos + 1)) break;
+                pos = m_tail.get();
+            }
+            else if (diff < 0L) {
+                /* The slot was not released by the writer. Full. */
+                if (!m_full) {
+                    m_full = true;
+                    m_overflows.incrementAndGet();
+                }
+                m_dropped.incrementAndGet();
+                return false;
+            }
+            else {
+                pos = m_tail.get();
+            }
+        }
+
+        Record record = m_records[index];
+        record.kind  = kind;
+        record.level = level;
+        record.tag   = tag;
+        record.text  = text;
+        record.args  = args;
+        record.ex    = ex;
+        record.time  = System.currentTimeMillis();
+        record.stamp = debug.timestamp;
+
+        m_seq.lazySet(index, pos + 1);
+
+        if (m_sleeping) _internal_wake();
+        return true;
+    }/*}}}*/
+    // final int  _internal_drain(StringBuilder sb, time_t tm);/*{{{*/
+    /**
+     * Writes all the pending records.
+     * Called only by the writer thread.
+     * \return Number of records written.
+     **/
+    final int _internal_drain(StringBuilder sb, time_t tm) {
+        final int size = m_records.length;
+        int count = 0;
+
+        while (true)
+        {
+            int  index = (int)(m_head & m_mask);
+            if (m_seq.get(index) != (m_head + 1)) break;
+
+            Record record = m_records[index];
+            int    level  = record.level;
+            String tag    = record.tag;
+
+            sb.setLength(0);
+            _internal_format(sb, record, tm);
+            record.clear();
+
+            m_seq.lazySet(index, m_head + size);
+            m_head++;
+
+            _internal_write(level, tag, sb);
+            m_written++;
+            count++;
+        }
+
+        if (count > 0) m_full = false;
+
+        /* Tell about the dropped messages after the queue has room. */
+        long dropped = m_dropped.get();
+        if (dropped != m_reported) {
+            sb.setLength(0);
+            sb.append("CLogQueue: ").append(dropped - m_reported).append(" messages dropped");
+            m_reported = dropped;
+            _internal_write(LEVEL_WARN, debug.TAG, sb);
+        }
+
+        if (m_stream != null) {
+            try { m_stream.flush(); }
+            catch (IOException ex) { _internal_closeFile(); }
+        }
+        return count;
+    }/*}}}*/
+    // private void _internal_format(StringBuilder sb, Record record, time_t tm);/*{{{*/
+    /**
+     * Formats a record.
+     **/
+    private void _internal_format(StringBuilder sb, Record record, time_t tm) {
+        if (record.stamp) {
+            tm._internal_setLocal(record.time);
+            debug._internal_stamp(sb, tm);
+        }
+
+        try
+        {
+            switch (record.kind)
+            {
+            case KIND_TEXT:
+                sb.append(record.text);
+                break;
+            case KIND_FORMAT:
+                sb.append(String.format(record.text, record.args));
+                break;
+            case KIND_EXCEPTION:
+                if (record.args == null)
+                    sb.append(debug._internal_formatE(record.ex, record.text));
+                else
+                    sb.append(String.format(debug._internal_formatE(record.ex, record.text), record.args));
+                break;
+            case KIND_TRACE:
+                sb.append(String.format(record.text, record.ex.getMessage()));
+                sb.append('\n').append(Log.getStackTraceString(record.ex));
+                break;
+            }
+        }
+        catch (Exception ex) {
+            /* A bad format string must not stop the writer. */
+            sb.append(record.text).append(" [").append(ex.getClass().getSimpleName()).append(']');
+        }
+    }/*}}}*/
+    // final void _internal_write(int level, String tag, StringBuilder sb);/*{{{*/
+    /**
+     * Sends a formatted message to the outputs.
+     **/
+    final void _internal_write(int level, String tag, StringBuilder sb) {
+        if (m_logcat)
+        {
+            String text = sb.toString();
+            switch (level)
+            {
+            case LEVEL_VERBOSE: Log.v(tag, text); break;
+            case LEVEL_DEBUG:   Log.d(tag, text); break;
+            case LEVEL_INFO:    Log.i(tag, text); break;
+            case LEVEL_WARN:    Log.w(tag, text); break;
+            default:      Log.e(tag, text); break;
+            }
+        }
+
+        FileSink sink = m_sink;
+        if (sink != m_openSink) {
+            _internal_closeFile();
+            m_openSink = sink;
+        }
+        if (sink == null) return;
+
+        try
+        {
+            if (m_stream == null) {
+                m_stream   = new OutputStreamWriter(new FileOutputStream(sink.file, true), "UTF-8");
+                m_fileSize = sink.file.length();
+            }
+
+            m_stream.append(sb).append('\n');
+            m_fileSize += sb.length() + 1;      /* Close enough for ASCII. */
+
+            if ((sink.maxSize > 0L) && (m_fileSize >= sink.maxSize))
+                _internal_rotate(sink);
+        }
+        catch (IOException ex) {
+            _internal_closeFile();
+            m_openSink = null;
+            m_sink     = null;              /* Don't try again. */
+            Log.e(debug.TAG, "CLogQueue: file output disabled: " + ex.getMessage());
+        }
+    }/*}}}*/
+    // private void _internal_rotate(FileSink sink);/*{{{*/
+    /**
+     * Renames the log files and starts a new one.
+     **/
+    private void _internal_rotate(FileSink sink) {
+        _internal_closeFile();
+
+        String path = sink.file.getPath();
+        if (sink.maxFiles == 0) {
+            sink.file.delete();
+            return;
+        }
+
+        new File(path + '.' + sink.maxFiles).delete();
+        for (int i = sink.maxFiles - 1; i > 0; i--)
+            new File(path + '.' + i).renameTo(new File(path + '.' + (i + 1)));
+
+        sink.file.renameTo(new File(path + ".1"));
+    }/*}}}*/
+    // final void _internal_closeFile();/*{{{*/
+    /**
+     * Closes the current log file.
+     **/
+    final void _internal_closeFile() {
+        if (m_stream == null) return;
+
+        try { m_stream.close(); }
+        catch (IOException ex) { /* Nothing to do. */ }
+
+        m_stream   = null;
+        m_fileSize = 0L;
+    }/*}}}*/
+    // final void _internal_wake();/*{{{*/
+    /**
+     * Wakes the writer thread.
+     **/
+    final void _internal_wake() {
+        Thread thread = m_thread;
+        if (thread != null) LockSupport.unpark(thread);
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * A message in the ring buffer.
+     **/
+    private static final class Record
+    {
+        int       kind;     /**< How the message is formatted.       */
+        int       level;    /**< Level of the message.               */
+        String    tag;      /**< Tag of the message.                 */
+        String    text;     /**< Text or format string.              */
+        Object[]  args;     /**< Format arguments.                   */
+        Exception ex;       /**< Exception of the message.           */
+        long      time;     /**< Time the message was posted.        */
+        boolean   stamp;    /**< Write the timestamp.                */
+
+        void clear() {
+            tag  = null;
+            text = null;
+            args = null;
+            ex   = null;
+        }
+    }
+
+    /**
+     * Configuration of the file output.
+     **/
+    private static final class FileSink
+    {
+        File file;          /**< The current log file.               */
+        long maxSize;       /**< Size limit of each file.            */
+        int  maxFiles;      /**< Number of old files kept.           */
+    }
+
+    /**
+     * The writer thread.
+     **/
+    private static final class LogWriter extends thread_t
+    {
+        LogWriter(CLogQueue queue) {
+            m_queue = queue;
+        }
+
+        protected int execute() {
+            StringBuilder sb = new StringBuilder(256);
+            time_t        tm = new time_t();
+
+            m_queue.m_thread = Thread.currentThread();
+            try
+            {
+                while (!aborted())
+                {
+                    if (m_queue._internal_drain(sb, tm) > 0)
+                        continue;
+
+                    m_queue.m_sleeping = true;
+                    if (m_queue.pending() == 0)
+                        LockSupport.parkNanos(this, IDLE_WAIT);
+                    m_queue.m_sleeping = false;
+                }
+                m_queue._internal_drain(sb, tm);
+            }
+            finally {
+                m_queue.m_thread = null;
+                m_queue._internal_closeFile();
+                m_queue.m_openSink = null;
+            }
+            return ERROR.SUCCESS;
+        }
+
+        private CLogQueue m_queue;
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private final Record[]        m_records;    /**< Ring of records.            */
+    private final AtomicLongArray m_seq;        /**< Sequence of each slot.      */
+    private final AtomicLong      m_tail;       /**< Next sequence to post.      */
+    private final AtomicLong      m_dropped;    /**< Dropped messages.           */
+    private final AtomicLong      m_overflows;  /**< Number of overflows.        */
+    private final int             m_mask;       /**< Index mask of the ring.     */
+    private final ConcurrentHashMap<String, Integer> m_levels; /**< Tag levels.  */
+    private volatile long     m_head;           /**< Next sequence to write.     */
+    private volatile long     m_written;        /**< Written messages.           */
+    private volatile int      m_level;          /**< Default level.              */
+    private volatile boolean  m_logcat;         /**< Write to \c Log.            */
+    private volatile boolean  m_full;           /**< In overflow.                */
+    private volatile boolean  m_sleeping;       /**< Writer is parked.           */
+    private volatile Thread   m_thread;         /**< Writer thread.              */
+    private volatile FileSink m_sink;           /**< File configuration.         */
+    private LogWriter         m_writer;         /**< Writer object.              */
+    private FileSink          m_openSink;       /**< Sink of the open file.      */
+    private Writer            m_stream;         /**< Open log file.              */
+    private long              m_fileSize;       /**< Size of the open file.      */
+    private long              m_reported;       /**< Dropped count reported.     */
+    //@}
+
+    /** \name LEVELS */ //@{
+    public static final int LEVEL_VERBOSE = 2;  /**< Same as \c Log.VERBOSE.     */
+    public static final int LEVEL_DEBUG   = 3;  /**< Same as \c Log.DEBUG.       */
+    public static final int LEVEL_INFO    = 4;  /**< Same as \c Log.INFO.        */
+    public static final int LEVEL_WARN    = 5;  /**< Same as \c Log.WARN.        */
+    public static final int LEVEL_ERROR   = 6;  /**< Same as \c Log.ERROR.       */
+    public static final int LEVEL_SILENT  = 8;  /**< Nothing is written.         */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    static final int KIND_TEXT      = 0;        /**< Plain text.                 */
+    static final int KIND_FORMAT    = 1;        /**< String.format().            */
+    static final int KIND_EXCEPTION = 2;        /**< debug#e() format.           */
+    static final int KIND_TRACE     = 3;        /**< debug#p() format.           */
+    static final long IDLE_WAIT     = 100000000L;   /**< Writer park, in ns.     */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,325 @@
+/**
+ * \file
+ * Defines the CStringReplacer class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.Arrays;
+
+/**
+ * \ingroup x_android_utils
+ * Replaces several strings at once.
+ * The list of strings to find is compiled, in the constructor, into an
+ * Aho-Corasick automaton. The text is then scanned only once, no matter how
+ * many strings are in the list. This is useful for template substitution
+ * and to decode entities:
+ * @code
+ * CStringReplacer entities = new CStringReplacer(
+ *     new String[] { "&amp;", "&lt;", "&gt;", "&quot;", "&apos;" },
+ *     new String[] { "&",     "<",    ">",    "\"",     "'" }, true);
+ *
+ * String text = entities.replace("a &lt; b &amp;&amp; c &GT; d");
+ * @endcode
+ * When more than one string can be replaced in the same place, the one that
+ * starts first wins. If they start at the same position, the longest wins.
+ * Replaced text is never searched again.
+ *
+ * Objects of this class are immutable and can be shared between threads.
+ *//* --------------------------------------------------------------------- */
+public final class CStringReplacer
+{
+    /** \name CONSTRUCTOR */ //@{
+    // public CStringReplacer(String[] patterns, String[] values, boolean ignoreCase);/*{{{*/
+    /**
+     * Compiles the list of strings to replace.
+     * \param patterns Strings to find. \b null and empty strings are
+     * ignored. When a string is repeated, the first one is used.
+     * \param values Replacement for each string in \a patterns, in the same
+     * order. A \b null value removes the string found.
+     * \param ignoreCase \b true to find the strings without regard of the
+     * character case.
+     **/
+    public CStringReplacer(String[] patterns, String[] values, boolean ignoreCase) {
+        int count = arrays.length(patterns);
+        int chars = 1;
+
+        for (int i = 0; i < count; i++)
+            chars += strings.length(patterns[i]);
+
+        m_ignoreCase = ignoreCase;
+        m_values     = new String[count];
+        m_depth      = new int[chars];
+        m_match      = new int[chars];
+        m_fail       = new int[chars];
+        m_keys       = new char[chars][];
+        m_next       = new int[chars][];
+        m_root       = new int[128];
+        m_count      = 1;
+
+        Arrays.fill(m_match, -1);
+
+        for (int i = 0; i < count; i++) {
+            if (strings.length(patterns[i]) > 0)
+                _internal_add(patterns[i], i);
+            m_values[i] = ((values == null) || (i >= values.length) || (values[i] == null)) ? strings.EMPTY : values[i];
+        }
+
+        _internal_link();
+    }/*}}}*/
+    // public CStringReplacer(String[] patterns, String[] values);/*{{{*/
+    /**
+     * Compiles the list of strings to replace.
+     * The strings are found with case sensitivity.
+     * \param patterns Strings to find.
+     * \param values Replacement for each string in \a patterns.
+     **/
+    public CStringReplacer(String[] patterns, String[] values) {
+        this(patterns, values, false);
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public String        replace(String text);/*{{{*/
+    /**
+     * Replaces all the strings found in a text.
+     * \param text The text to process.
+     * \return The text with the replacements. When nothing is found the
+     * same \a text object is returned. \b null if \a text is \b null.
+     **/
+    public String replace(String text) {
+        if (text == null) return null;
+
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        if (_internal_replace(text, sb) == 0)
+            return text;
+
+        return sb.toString();
+    }/*}}}*/
+    // public StringBuilder replace(CharSequence text, StringBuilder sb);/*{{{*/
+    /**
+     * Replaces all the strings found in a text.
+     * \param text The text to process.
+     * \param sb Builder where the result is appended. Callers can reuse the
+     * same builder for many calls.
+     * \return The \a sb argument.
+     **/
+    public StringBuilder replace(CharSequence text, StringBuilder sb) {
+        if (text == null) return sb;
+
+        if (_internal_replace(text, sb) == 0)
+            sb.append(text);
+
+        return sb;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL OPERATIONS */ //@{
+    // private int  _internal_replace(CharSequence text, StringBuilder sb);/*{{{*/
+    /**
+     * Scans the text doing the replacements.
+     * \param text The text to process.
+     * \param sb Where the result is appended.
+     * \return Number of replacements. When zero nothing is appended.
+     **/
+    private int _internal_replace(CharSequence text, StringBuilder sb) {
+        final int limit = text.length();
+        int replaced = 0, last = 0, i = 0, state = 0;
+        int start = -1, end = 0, value = 0;
+
+        while (true)
+        {
+            if (i < limit)
+            {
+                state = _internal_step(state, _internal_fold(text.charAt(i++)));
+
+                int match = m_match[state];
+                if (match >= 0)
+                {
+                    int from = i - m_depth[_internal_node(match)];
+                    if ((start < 0) || (from <= start)) {
+                        start = from;
+                        end   = i;
+                        value = match;
+                    }
+                }
+
+                /* No match found later can start before the current one. */
+                if ((start < 0) || ((i - m_depth[state]) <= start))
+                    continue;
+            }
+            else if (start < 0)
+                break;
+
+            if (replaced++ == 0) sb.ensureCapacity(sb.length() + limit);
+
+            sb.append(text, last, start).append(m_values[value]);
+            last  = i = end;
+            state = 0;
+            start = -1;
+        }
+
+        if (replaced > 0) sb.append(text, last, limit);
+        return replaced;
+    }/*}}}*/
+    // private int  _internal_step(int state, char c);/*{{{*/
+    /**
+     * Moves the automaton with a character.
+     **/
+    private int _internal_step(int state, char c) {
+        int next;
+
+        while (state != 0) {
+            if ((next = _internal_goto(state, c)) > 0)
+                return next;
+            state = m_fail[state];
+        }
+        return ((c < 128) ? m_root[c] : Math.max(0, _internal_goto(0, c)));
+    }/*}}}*/
+    // private int  _internal_goto(int state, char c);/*{{{*/
+    /**
+     * Finds the transition of a node.
+     * \return The next node or -1 when there is no transition.
+     **/
+    private int _internal_goto(int state, char c) {
+        char[] keys = m_keys[state];
+        if (keys == null) return -1;
+
+        int index = Arrays.binarySearch(keys, c);
+        return ((index < 0) ? -1 : m_next[state][index]);
+    }/*}}}*/
+    // private int  _internal_node(int pattern);/*{{{*/
+    /**
+     * Gets the node where a pattern ends.
+     **/
+    private int _internal_node(int pattern) {
+        return m_ends[pattern];
+    }/*}}}*/
+    // private char _internal_fold(char c);/*{{{*/
+    /**
+     * Folds the case of a character when needed.
+     **/
+    private char _internal_fold(char c) {
+        return (m_ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c);
+    }/*}}}*/
+    // private void _internal_add(String pattern, int index);/*{{{*/
+    /**
+     * Adds a pattern to the trie.
+     **/
+    private void _internal_add(String pattern, int index) {
+        int state = 0, next;
+        char c;
+
+        if (m_ends == null) {
+            m_ends = new int[m_values.length];
+        }
+
+        for (int i = 0; i < pattern.length(); i++)
+        {
+            c = _internal_fold(pattern.charAt(i));
+            if ((next = _internal_goto(state, c)) < 0)
+            {
+                next = m_count++;
+                m_depth[next] = m_depth[state] + 1;
+                _internal_link(state, c, next);
+            }
+            state = next;
+        }
+
+        /* The first of repeated patterns is kept. */
+        if (m_match[state] < 0) {
+            m_match[state] = index;
+            m_ends[index]  = state;
+        }
+    }/*}}}*/
+    // private void _internal_link(int state, char c, int next);/*{{{*/
+    /**
+     * Adds a transition to a node, keeping the keys sorted.
+     **/
+    private void _internal_link(int state, char c, int next) {
+        char[] keys  = m_keys[state];
+        int[]  nodes = m_next[state];
+        int    count = ((keys == null) ? 0 : keys.length);
+        int    index = ((keys == null) ? 0 : -(Arrays.binarySearch(keys, c) + 1));
+
+        char[] newKeys  = new char[count + 1];
+        int[]  newNodes = new int[count + 1];
+
+        if (count > 0) {
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(nodes, 0, newNodes, 0, index);
+            System.arraycopy(keys, index, newKeys, index + 1, count - index);
+            System.arraycopy(nodes, index, newNodes, index + 1, count - index);
+        }
+        newKeys[index]  = c;
+        newNodes[index] = next;
+
+        m_keys[state] = newKeys;
+        m_next[state] = newNodes;
+
+        if ((state == 0) && (c < 128))
+            m_root[c] = next;
+    }/*}}}*/
+    // private void _internal_link();/*{{{*/
+    /**
+     * Builds the failure links, in breadth first order.
+     * Each node also receives the longest pattern that ends on it, so the
+     * scan doesn't need to follow the failure links to find matches.
+     **/
+    private void _internal_link() {
+        int[] queue = new int[m_count];
+        int   head = 0, tail = 0;
+
+        for (int i = 0; (m_next[0] != null) && (i < m_next[0].length); i++)
+            queue[tail++] = m_next[0][i];
+
+        while (head < tail)
+        {
+            int state = queue[head++];
+            char[] keys = m_keys[state];
+
+            /* A longer pattern ending here takes precedence. */
+            if (m_match[state] < 0)
+                m_match[state] = m_match[m_fail[state]];
+
+            if (keys == null) continue;
+
+            for (int i = 0; i < keys.length; i++)
+            {
+                int child = m_next[state][i];
+                int fail  = m_fail[state], next;
+
+                while (((next = _internal_goto(fail, keys[i])) < 0) && (fail != 0))
+                    fail = m_fail[fail];
+
+                m_fail[child] = ((next < 0) ? 0 : next);
+                queue[tail++] = child;
+            }
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private boolean  m_ignoreCase;  /**< Case insensitive search.           */
+    private String[] m_values;      /**< Replacement by pattern.            */
+    private int[]    m_ends;        /**< Node where each pattern ends.      */
+    private int[]    m_depth;       /**< Length of the text of each node.   */
+    private int[]    m_match;       /**< Longest pattern ending in a node.  */
+    private int[]    m_fail;        /**< Failure link of each node.         */
+    private char[][] m_keys;        /**< Sorted transition characters.      */
+    private int[][]  m_next;        /**< Transition targets.                */
+    private int[]    m_root;        /**< ASCII transitions of the root.     */
+    private int      m_count;       /**< Number of nodes.                   */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -35,6 +35,11 @@ import x.android.xml.*;
  * octal notaion. Each entry must have a unique ID. The class doesn't throw
  * any exception or error if it finds a duplicated ID but it will always
  * return the first found occurrency.
+ *
+ * Strings are kept in a hash table indexed by the ID, so a lookup has
+ * constant cost even in tables with thousands of entries. Tables can be
+ * layered with #merge(CStringTable), which is useful to put a localized
+ * table over a default one.
  *//* --------------------------------------------------------------------- */
 public class CStringTable
 {
@@ -47,6 +52,7 @@ public class CStringTable
         m_ids    = null;
         m_values = null;
         m_count  = 0;
+        m_mask   = 0;
     }/*}}}*/
     // public CStringTable(CXmlNode[] nodes);/*{{{*/
     /**
@@ -74,7 +80,7 @@ public class CStringTable
         if (!"stringtable".equals(file.root.nodeName))
             return stringTable;
 
-        stringTable._internal_parse(file.root.children);
+        stringTable._internal_parse(file.root.getChildren());
         return stringTable;
     }/*}}}*/
     // public static CStringTable LoadAsset(String assetPath);/*{{{*/
@@ -101,6 +107,24 @@ public class CStringTable
     public boolean isEmpty() {
         return (m_count == 0);
     }/*}}}*/
+    // public int     size();/*{{{*/
+    /**
+     * Gets the number of strings in this table.
+     * \since jguime 2.5
+     **/
+    public int size() {
+        return m_count;
+    }/*}}}*/
+    // public boolean contains(int stringID);/*{{{*/
+    /**
+     * Checks whether the table has a string.
+     * \param stringID Identifier of the string.
+     * \returns \b true if the string is in the table. \b false otherwise.
+     * \since jguime 2.5
+     **/
+    public boolean contains(int stringID) {
+        return (_internal_find(stringID) != null);
+    }/*}}}*/
     // public String  get(int stringID);/*{{{*/
     /**
      * Search for a string in the table.
@@ -109,15 +133,112 @@ public class CStringTable
      * found.
      **/
     public String get(int stringID) {
-        for (int i = 0; i < m_count; i++) {
-            if (m_ids[i] == stringID)
-                return m_values[i];
+        String value = _internal_find(stringID);
+        return ((value == null) ? strings.EMPTY : value);
+    }/*}}}*/
+    // public CStringTable merge(CStringTable other);/*{{{*/
+    /**
+     * Merges the strings of another table into this one.
+     * \param other The table to merge. Its strings replace those in this
+     * table with the same ID. Can be \b null.
+     * \returns This object, so calls can be chained.
+     * \remarks Use this to layer a localized table over a default one:
+     * @code
+     * CStringTable table = CStringTable.LoadAsset("/strings/messages.xml")
+     *     .merge(CStringTable.LoadAsset("/strings/[...]/messages.xml"));
+     * @endcode
+     * \since jguime 2.5
+     **/
+    public CStringTable merge(CStringTable other) {
+        if ((other == null) || (other == this) || (other.m_count == 0))
+            return this;
+
+        _internal_grow(m_count + other.m_count);
+
+        int[]    ids    = other.m_ids;
+        String[] values = other.m_values;
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null)
+                _internal_put(ids[i], values[i], true);
         }
-        return strings.EMPTY;
+        return this;
     }/*}}}*/
     //@}
 
     /** \name Internal Operations */ //@{
+    // final String _internal_find(int stringID);/*{{{*/
+    /**
+     * Search for a string in the table.
+     * \param stringID Identifier of the string to find.
+     * \return The string or \b null if not found.
+     **/
+    final String _internal_find(int stringID) {
+        if (m_count == 0) return null;
+
+        int slot = _internal_hash(stringID) & m_mask;
+        String value;
+
+        while ((value = m_values[slot]) != null) {
+            if (m_ids[slot] == stringID)
+                return value;
+            slot = (slot + 1) & m_mask;
+        }
+        return null;
+    }/*}}}*/
+    // final void _internal_put(int stringID, String value, boolean replace);/*{{{*/
+    /**
+     * Puts a string in the table.
+     * The table must have room for it. See #_internal_grow(int).
+     * \param stringID Identifier of the string.
+     * \param value The string. Cannot be \b null.
+     * \param replace \b true to replace a string with the same ID. \b false
+     * to keep the existing one.
+     **/
+    final void _internal_put(int stringID, String value, boolean replace) {
+        int slot = _internal_hash(stringID) & m_mask;
+
+        while (m_values[slot] != null) {
+            if (m_ids[slot] == stringID) {
+                if (replace) m_values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & m_mask;
+        }
+
+        m_ids[slot]    = stringID;
+        m_values[slot] = value;
+        m_count++;
+    }/*}}}*/
+    // final void _internal_grow(int count);/*{{{*/
+    /**
+     * Makes room for a number of strings.
+     * The table is kept at most half full.
+     * \param count Total number of strings the table must hold.
+     **/
+    final void _internal_grow(int count) {
+        int capacity = 8;
+
+        while (capacity < (count * 2)) capacity <<= 1;
+
+        if ((m_values != null) && (m_values.length >= capacity))
+            return;
+
+        int[]    ids    = m_ids;
+        String[] values = m_values;
+
+        m_ids    = new int[capacity];
+        m_values = new String[capacity];
+        m_mask   = capacity - 1;
+        m_count  = 0;
+
+        if (values == null) return;
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null)
+                _internal_put(ids[i], values[i], false);
+        }
+    }/*}}}*/
     // final void _internal_parse(CXmlNode[] nodes);/*{{{*/
     /**
      * Parses the nodes of a stringtable file.
@@ -134,9 +255,10 @@ public class CStringTable
         CXmlAttr attrVal;
 
         /* Previously alloca memory for speed. */
-        m_ids    = new int[count];
-        m_values = new String[count];
+        m_ids    = null;
+        m_values = null;
         m_count  = 0;
+        _internal_grow(count);
 
         for (int i = 0; i < count; i++) {
             node = nodes[i];
@@ -152,17 +274,26 @@ public class CStringTable
             if (attrVal == null)
                 continue;           /* Without a value, doesn't matter too. */
 
-            m_ids[i]    = attrID.intValue();
-            m_values[i] = attrVal.value;
-            m_count++;
+            /* The first occurrence of an ID is kept. */
+            _internal_put(attrID.intValue(), attrVal.value, false);
         }
     }/*}}}*/
+    // static int _internal_hash(int stringID);/*{{{*/
+    /**
+     * Spreads the bits of an ID.
+     * IDs are usually sequential. Mixing them avoids long probe sequences.
+     **/
+    static int _internal_hash(int stringID) {
+        int h = stringID * 0x9E3779B9;
+        return (h ^ (h >>> 16));
+    }/*}}}*/
     //@}
 
     /** \name DATA MEMBERS */ //@{
-    int[]    m_ids;         /**< String ID array.   */
-    String[] m_values;      /**< String values.     */
-    int      m_count;       /**< Number of entries. */
+    int[]    m_ids;         /**< String ID by slot.         */
+    String[] m_values;      /**< String by slot. \b null in free slots. */
+    int      m_count;       /**< Number of entries.         */
+    int      m_mask;        /**< Number of slots minus one. */
     //@}
 }
 // vim:syntax=java.doxygen
@@ -0,0 +1,394 @@
+/**
+ * \file
+ * Defines the CTask class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import x.android.defs.ERROR;
+import x.android.nms.INHandler;
+import x.android.nms.issuer;
+
+/**
+ * \ingroup x_android_utils
+ * A unit of work executed by a CTaskPool.
+ * This class works like thread_t, but doesn't own a thread. The work is done
+ * in #execute(), which returns the exit code, and is started by
+ * CTaskPool#submit(). The task can be aborted with #abort() and checks the
+ * signal with #aborted(). The exit code is read with #getExitCode(), which
+ * returns \c ERROR.ACTIVE while the task is waiting or running.
+ *
+ * The task is also a future: the implementation can store a result with
+ * #setResult(), and other threads can wait for it with #waitFor(). When a
+ * target is set with #setTarget(), the end of the task is posted to the
+ * main thread through \c issuer. The message has the exit code as its \c
+ * int parameter and the task itself as the extra object:
+ * @code
+ * CTask<Bitmap> task = new CTask<Bitmap>() {
+ *     protected int execute() {
+ *         setResult(decode(path));
+ *         return ERROR.SUCCESS;
+ *     }
+ * };
+ * task.setTarget(this, MSG_DECODED);
+ * CTaskPool.getDefault().submit(task);
+ * @endcode
+ * A task can be submitted again after it ends.
+ * @tparam V Type of the result.
+ *//* --------------------------------------------------------------------- */
+public class CTask<V> implements Runnable
+{
+    /** \name CONSTRUCTORS */ //@{
+    // protected CTask();/*{{{*/
+    /**
+     * Default constructor.
+     * Protected because #execute() must be overridden.
+     **/
+    protected CTask() {
+        this(null);
+    }/*}}}*/
+    // public CTask(Runnable runnable);/*{{{*/
+    /**
+     * Builds a task that runs a \c Runnable.
+     * \param runnable Object whose \c run() method is called by #execute().
+     **/
+    public CTask(Runnable runnable) {
+        m_runnable = runnable;
+        m_priority = thread_t.PRIORITY_NORMAL;
+        m_state    = STATE_NEW;
+        m_exitCode = ERROR.SUCCESS;
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final boolean isActive();/*{{{*/
+    /**
+     * Checks whether this task is waiting or running.
+     **/
+    public final boolean isActive() {
+        final int state = m_state;
+        return ((state == STATE_QUEUED) || (state == STATE_RUNNING));
+    }/*}}}*/
+    // public final boolean isDone();/*{{{*/
+    /**
+     * Checks whether this task has ended.
+     * A task aborted before running is also done.
+     **/
+    public final boolean isDone() {
+        return (m_state == STATE_DONE);
+    }/*}}}*/
+    // public final int     getPriority();/*{{{*/
+    /**
+     * Returns the priority of this task.
+     * \returns One of thread_t#PRIORITY_CRITICAL, thread_t#PRIORITY_NORMAL
+     * or thread_t#PRIORITY_IDLE.
+     **/
+    public final int getPriority() {
+        return m_priority;
+    }/*}}}*/
+    // public final int     getExitCode();/*{{{*/
+    /**
+     * Gets the code of the task finalization.
+     * \returns \c ERROR.ACTIVE while the task is waiting or running. The
+     * value returned by #execute() after it ends. \c ERROR.EXCEPTION if
+     * #execute() threw an exception. \c ERROR.ABORTED if the task was
+     * aborted before running.
+     **/
+    public final int getExitCode() {
+        return (isActive() ? ERROR.ACTIVE : m_exitCode);
+    }/*}}}*/
+    // public final V       getResult();/*{{{*/
+    /**
+     * Gets the result of the task.
+     * \returns The value set by #setResult(). \b null while the task is not
+     * done.
+     **/
+    public final V getResult() {
+        return ((m_state == STATE_DONE) ? m_result : null);
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final int  setPriority(int priority);/*{{{*/
+    /**
+     * Sets the priority of this task.
+     * The priority selects the order the waiting tasks are executed:
+     * critical tasks first, idle tasks when nothing else is waiting. It
+     * must be set before the task is submitted.
+     * \param priority One of thread_t#PRIORITY_CRITICAL,
+     * thread_t#PRIORITY_NORMAL or thread_t#PRIORITY_IDLE.
+     * \return \c ERROR.SUCCESS. \c ERROR.PARM when \a priority is not a
+     * valid thread priority. \c ERROR.RUNNING if the task was already
+     * submitted.
+     **/
+    public final int setPriority(int priority) {
+        if ((priority < Thread.MIN_PRIORITY) || (priority > Thread.MAX_PRIORITY))
+            return ERROR.PARM;
+
+        if (isActive()) return ERROR.RUNNING;
+
+        m_priority = priority;
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // public final void setTarget(INHandler target, int msgID);/*{{{*/
+    /**
+     * Sets the handler notified when the task ends.
+     * \param target Handler that receives the message in the main thread.
+     * \b null stops the notification.
+     * \param msgID Identifier of the message. The message \c int parameter
+     * is the exit code and its extra object is this task.
+     **/
+    public final void setTarget(INHandler target, int msgID) {
+        m_target = target;
+        m_msgID  = msgID;
+    }/*}}}*/
+    // public final int  abort();/*{{{*/
+    /**
+     * Signals this task to end its operations.
+     * A task that is waiting to run is removed from the execution and ends
+     * with \c ERROR.ABORTED. A running task must check #aborted() and
+     * return from #execute() as soon as possible.
+     * \return \c ERROR.SUCCESS. \c ERROR.FAILED if the task is not waiting
+     * nor running.
+     **/
+    public final int abort() {
+        final CTaskPool pool;
+
+        synchronized (this) {
+            if (m_state == STATE_RUNNING) {
+                m_abort = true;
+                return ERROR.SUCCESS;
+            }
+            if (m_state != STATE_QUEUED)
+                return ERROR.FAILED;
+
+            pool = m_pool;
+        }
+
+        /* Removed before it ends, so it can't be submitted again while the
+         * old entry is still in the lane. */
+        if (pool != null) pool._internal_remove(this);
+        _internal_finish(STATE_QUEUED, ERROR.ABORTED);
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // public final int  join(long interval);/*{{{*/
+    /**
+     * Signals the task to abort and waits for it to end.
+     * Works like thread_t#join().
+     * \param interval Maximum interval to wait, in milliseconds. Zero only
+     * signals the task. thread_t#INFINITE waits until the task ends.
+     * \return \c ERROR.SUCCESS when the task ends in the interval or was not
+     * active. \c ERROR.EXPIRED when the interval elapses. \c ERROR.PARM when
+     * \a interval is invalid.
+     **/
+    public final int join(long interval) {
+        if ((abort() == ERROR.FAILED) || (interval == 0L))
+            return ERROR.SUCCESS;
+
+        return waitFor(interval);
+    }/*}}}*/
+    // public final int  waitFor(long interval);/*{{{*/
+    /**
+     * Waits for the task to end, without aborting it.
+     * \param interval Maximum interval to wait, in milliseconds.
+     * thread_t#INFINITE waits until the task ends. Zero only checks it.
+     * \return \c ERROR.SUCCESS when the task is not active. \c
+     * ERROR.EXPIRED when the interval elapses. \c ERROR.PARM when \a
+     * interval is invalid. \c ERROR.ABORTED when the calling thread is
+     * interrupted.
+     **/
+    public final int waitFor(long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        final long deadline = System.nanoTime() + interval * 1000000L;
+
+        synchronized (this) {
+            try {
+                while (isActive())
+                {
+                    if (interval == thread_t.INFINITE)
+                        wait();
+                    else {
+                        long remaining = (deadline - System.nanoTime()) / 1000000L;
+                        if (remaining <= 0L) return ERROR.EXPIRED;
+                        wait(remaining);
+                    }
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return ERROR.ABORTED;
+            }
+        }
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    //@}
+
+    /** \name OVERRIDABLE */ //@{
+    // public    void run();/*{{{*/
+    /**
+     * Runs the task in the calling thread.
+     * The task is executed as if it was taken from a pool. Does nothing if
+     * the task is active.
+     **/
+    public void run() {
+        synchronized (this) {
+            if (isActive()) return;
+
+            m_state    = STATE_QUEUED;
+            m_abort    = false;
+            m_exitCode = ERROR.SUCCESS;
+            m_pool     = null;
+        }
+        _internal_execute();
+    }/*}}}*/
+    // protected int  execute();/*{{{*/
+    /**
+     * The task execution function.
+     * Derived classes override this function to do their jobs, as in
+     * thread_t#execute().
+     * \return The exit code. This implementation runs the \c Runnable
+     * passed in the constructor and returns \c ERROR.SUCCESS.
+     **/
+    protected int execute() {
+        if (m_runnable != null)
+            m_runnable.run();
+
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    //@}
+
+    /** \name IMPLEMENTATION */ //@{
+    // protected final boolean aborted();/*{{{*/
+    /**
+     * Checks if this task was signaled to abort.
+     **/
+    protected final boolean aborted() {
+        return m_abort;
+    }/*}}}*/
+    // protected final void    setResult(V result);/*{{{*/
+    /**
+     * Sets the result of this task.
+     * Called from #execute(). The value is available through #getResult()
+     * after the task ends.
+     **/
+    protected final void setResult(V result) {
+        m_result = result;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // final boolean _internal_queue(CTaskPool pool);/*{{{*/
+    /**
+     * Marks this task as waiting in a pool.
+     * \param pool The pool where the task will wait.
+     * \returns \b false when the task is already active.
+     **/
+    final synchronized boolean _internal_queue(CTaskPool pool) {
+        if (isActive()) return false;
+
+        m_state    = STATE_QUEUED;
+        m_abort    = false;
+        m_exitCode = ERROR.SUCCESS;
+        m_pool     = pool;
+        return true;
+    }/*}}}*/
+    // final boolean _internal_execute();/*{{{*/
+    /**
+     * Executes a waiting task.
+     * The execution is protected against exceptions, as in thread_t#run().
+     * \returns \b false when the task was aborted while waiting.
+     **/
+    final boolean _internal_execute() {
+        synchronized (this) {
+            if (m_state != STATE_QUEUED) return false;
+
+            m_state  = STATE_RUNNING;
+            m_result = null;
+        }
+
+        int exitCode;
+        try {
+            exitCode = execute();
+        }
+        catch (Exception ex) {
+            debug.p("CTask::run(): Exception:\n%s", ex);
+            exitCode = ERROR.EXCEPTION;
+        }
+        _internal_finish(STATE_RUNNING, exitCode);
+        return true;
+    }/*}}}*/
+    // final boolean _internal_cancel();/*{{{*/
+    /**
+     * Ends a waiting task that will not run.
+     * \returns \b true when the task was waiting.
+     **/
+    final boolean _internal_cancel() {
+        return _internal_finish(STATE_QUEUED, ERROR.ABORTED);
+    }/*}}}*/
+    // final void    _internal_signal();/*{{{*/
+    /**
+     * Signals a running task to abort.
+     **/
+    final void _internal_signal() {
+        m_abort = true;
+    }/*}}}*/
+    // private boolean _internal_finish(int expected, int exitCode);/*{{{*/
+    /**
+     * Ends the task and notifies the waiting threads and the target.
+     * \param expected State the task must be in.
+     * \param exitCode Exit code of the task.
+     * \returns \b false when the task was not in the \a expected state.
+     **/
+    private boolean _internal_finish(int expected, int exitCode) {
+        final INHandler target;
+        final int       msgID;
+
+        synchronized (this) {
+            if (m_state != expected) return false;
+
+            m_exitCode = exitCode;
+            m_state    = STATE_DONE;
+            target     = m_target;
+            msgID      = m_msgID;
+            notifyAll();
+        }
+
+        if (target != null)
+            issuer.post(target, msgID, exitCode, 0L, this);
+
+        return true;
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private final Runnable    m_runnable;   /**< Work of a plain task.      */
+    private volatile int      m_priority;   /**< Execution priority.        */
+    private volatile int      m_state;      /**< Execution state.           */
+    private volatile boolean  m_abort;      /**< The abort signal.          */
+    private int               m_exitCode;   /**< The finalization code.     */
+    private volatile V        m_result;     /**< Result of the task.        */
+    private INHandler         m_target;     /**< Notified at the end.       */
+    private int               m_msgID;      /**< Message sent to target.    */
+    private CTaskPool         m_pool;       /**< Pool where it waits.       */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    static final int STATE_NEW     = 0;     /**< Never submitted.           */
+    static final int STATE_QUEUED  = 1;     /**< Waiting in a pool.         */
+    static final int STATE_RUNNING = 2;     /**< Running.                   */
+    static final int STATE_DONE    = 3;     /**< Ended or aborted.          */
+    //@}
+}
+// vim:syntax=java.doxygen
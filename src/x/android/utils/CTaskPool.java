@@ -0,0 +1,554 @@
+/**
+ * \file
+ * Defines the CTaskPool class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import x.android.defs.ERROR;
+
+/**
+ * \ingroup x_android_utils
+ * Executes CTask objects in a bounded set of worker threads.
+ * Instead of starting one thread_t for each short job, the job is written as
+ * a CTask and submitted to a pool. The workers are thread_t objects started
+ * when needed, up to the number given in the constructor, and kept running
+ * until the pool is shut down.
+ *
+ * Waiting tasks are kept in three lanes, one for each priority:
+ * thread_t#PRIORITY_CRITICAL, thread_t#PRIORITY_NORMAL and
+ * thread_t#PRIORITY_IDLE. A task of a lane runs only when no task of a
+ * higher lane is waiting. Tasks submitted by other threads go to a shared
+ * queue. Tasks submitted from inside a worker go to the worker's own queue,
+ * where the newest task runs first. A worker without work takes the oldest
+ * task from the queue of another worker.
+ *
+ * The number of waiting tasks is limited. When the limit is reached
+ * #submit() fails with \c ERROR.FULL.
+ *//* --------------------------------------------------------------------- */
+public class CTaskPool
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public CTaskPool(int workers, int capacity);/*{{{*/
+    /**
+     * Builds a pool.
+     * No thread is started until a task is submitted.
+     * \param workers Maximum number of worker threads. At least 1.
+     * \param capacity Maximum number of waiting tasks. At least 1.
+     **/
+    public CTaskPool(int workers, int capacity) {
+        m_workers  = new Worker[Math.max(workers, 1)];
+        m_view     = new Worker[0];
+        m_capacity = Math.max(capacity, 1);
+        m_shared   = _internal_lanes();
+        m_idle     = new ConcurrentLinkedQueue<Worker>();
+        m_pending  = new AtomicInteger();
+    }/*}}}*/
+    //@}
+
+    /** \name STATIC FUNCTIONS */ //@{
+    // public static CTaskPool getDefault();/*{{{*/
+    /**
+     * Gets the pool shared by the application.
+     * It has one worker for each processor and room for #DEFAULT_CAPACITY
+     * waiting tasks. It is built in the first call.
+     **/
+    public static CTaskPool getDefault() {
+        CTaskPool pool = s_default;
+        if (pool != null) return pool;
+
+        synchronized (CTaskPool.class) {
+            if (s_default == null)
+                s_default = new CTaskPool(Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY);
+
+            return s_default;
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int     pending();/*{{{*/
+    /**
+     * Number of tasks waiting to run.
+     **/
+    public final int pending() {
+        return m_pending.get();
+    }/*}}}*/
+    // public final int     workers();/*{{{*/
+    /**
+     * Number of worker threads running.
+     **/
+    public final synchronized int workers() {
+        return m_alive;
+    }/*}}}*/
+    // public final boolean isClosed();/*{{{*/
+    /**
+     * Checks whether the pool was shut down.
+     **/
+    public final boolean isClosed() {
+        return m_closed;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final int submit(CTask<?> task);/*{{{*/
+    /**
+     * Schedules a task to run.
+     * \param task The task. Its priority selects the lane it waits in.
+     * \return \c ERROR.SUCCESS when the task is scheduled. \c ERROR.PARM
+     * when \a task is \b null. \c ERROR.RUNNING when the task is already
+     * waiting or running. \c ERROR.FULL when the pool has #capacity tasks
+     * waiting. \c ERROR.CLOSED when the pool was shut down.
+     **/
+    public final int submit(CTask<?> task) {
+        if (task == null) return ERROR.PARM;
+
+        /* The counter is incremented before checking m_closed, so a worker
+         * that sees the pool closed also sees this task pending. */
+        final int pending = m_pending.incrementAndGet();
+
+        if (m_closed) {
+            m_pending.decrementAndGet();
+            return ERROR.CLOSED;
+        }
+
+        if (pending > m_capacity) {
+            m_pending.decrementAndGet();
+            return ERROR.FULL;
+        }
+
+        if (!task._internal_queue(this)) {
+            m_pending.decrementAndGet();
+            return ERROR.RUNNING;
+        }
+
+        final int lane = _internal_lane(task.getPriority());
+        final Worker self = s_worker.get();
+
+        if ((self != null) && (self.m_pool == this))
+        {
+            synchronized (self.m_local) {
+                self.m_local[lane].addLast(task);
+            }
+        }
+        else
+        {
+            synchronized (m_shared) {
+                m_shared[lane].addLast(task);
+            }
+        }
+
+        if (m_stopped)
+        {
+            /* shutdownNow() ran meanwhile. Nobody will run the task. */
+            _internal_cancel(m_shared);
+            if ((self != null) && (self.m_pool == this))
+                _internal_cancel(self.m_local);
+        }
+        else
+            _internal_wake();
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // public final int execute(Runnable runnable);/*{{{*/
+    /**
+     * Schedules a \c Runnable to run with normal priority.
+     * \param runnable The object to run.
+     * \return The same codes of #submit().
+     **/
+    public final int execute(Runnable runnable) {
+        if (runnable == null) return ERROR.PARM;
+        return submit(new CTask<Object>(runnable));
+    }/*}}}*/
+    // public final int shutdown(long interval);/*{{{*/
+    /**
+     * Stops accepting tasks and waits for the workers to end.
+     * The tasks already waiting are executed before the workers end.
+     * \param interval Maximum interval to wait, in milliseconds. Zero
+     * doesn't wait. thread_t#INFINITE waits until the workers end.
+     * \return \c ERROR.SUCCESS when all workers ended. \c ERROR.EXPIRED when
+     * the interval elapses. \c ERROR.PARM when \a interval is invalid.
+     **/
+    public final int shutdown(long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        m_closed = true;
+        _internal_wakeAll();
+
+        return _internal_await(interval);
+    }/*}}}*/
+    // public final int shutdownNow(long interval);/*{{{*/
+    /**
+     * Stops the pool, aborting its tasks.
+     * Waiting tasks are not executed and end with \c ERROR.ABORTED. Running
+     * tasks are signaled to abort and the workers end after them.
+     * \param interval Maximum interval to wait, in milliseconds. Zero
+     * doesn't wait. thread_t#INFINITE waits until the workers end.
+     * \return The same codes of #shutdown().
+     **/
+    public final int shutdownNow(long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        m_closed  = true;
+        m_stopped = true;
+
+        for (Worker worker : m_view)
+        {
+            if (worker == null) continue;
+
+            worker.abort();
+            CTask<?> task = worker.m_task;
+            if (task != null) task._internal_signal();
+
+            _internal_cancel(worker.m_local);
+        }
+        _internal_cancel(m_shared);
+        _internal_wakeAll();
+
+        return _internal_await(interval);
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // private CTask<?> _internal_take(Worker worker);/*{{{*/
+    /**
+     * Finds the next task for a worker.
+     * For each lane, from the critical to the idle one, the worker looks in
+     * its own queue (newest first), in the shared queue and in the queues of
+     * the other workers (oldest first).
+     * \returns The task or \b null when nothing is waiting.
+     **/
+    private CTask<?> _internal_take(Worker worker) {
+        if (m_pending.get() <= 0) return null;
+
+        final Worker[] workers = m_view;
+
+        CTask<?> task = null;
+        for (int lane = 0; lane < LANES; lane++)
+        {
+            synchronized (worker.m_local) {
+                task = worker.m_local[lane].pollLast();
+            }
+            if (task != null) break;
+
+            synchronized (m_shared) {
+                task = m_shared[lane].pollFirst();
+            }
+            if (task != null) break;
+
+            for (int i = 0; (task == null) && (i < workers.length); i++)
+            {
+                Worker other = workers[i];
+                if ((other == null) || (other == worker)) continue;
+
+                synchronized (other.m_local) {
+                    task = other.m_local[lane].pollFirst();
+                }
+            }
+            if (task != null) break;
+        }
+
+        if (task != null)
+            m_pending.decrementAndGet();
+
+        return task;
+    }/*}}}*/
+    // private void     _internal_wake();/*{{{*/
+    /**
+     * Wakes an idle worker or starts a new one.
+     **/
+    private void _internal_wake() {
+        Worker worker = m_idle.poll();
+
+        if (worker != null) {
+            worker.wake();
+            return;
+        }
+
+        synchronized (this) {
+            if (m_closed || (m_started >= m_workers.length))
+                return;
+
+            worker = new Worker(this);
+            m_workers[m_started++] = worker;
+            m_view = m_workers.clone();
+            m_alive++;
+        }
+
+        if (worker.start() != ERROR.SUCCESS) {
+            debug.w("CTaskPool::_internal_wake(): worker not started!\n");
+            _internal_exited(worker);
+        }
+    }/*}}}*/
+    // private void     _internal_wakeAll();/*{{{*/
+    /**
+     * Wakes all workers.
+     **/
+    private void _internal_wakeAll() {
+        Worker worker;
+
+        while ((worker = m_idle.poll()) != null)
+            worker.wake();
+    }/*}}}*/
+    // private int      _internal_await(long interval);/*{{{*/
+    /**
+     * Waits for all workers to end.
+     **/
+    private synchronized int _internal_await(long interval) {
+        final long deadline = System.nanoTime() + interval * 1000000L;
+
+        try {
+            while (m_alive > 0)
+            {
+                if (interval == thread_t.INFINITE)
+                    wait();
+                else {
+                    long remaining = (deadline - System.nanoTime()) / 1000000L;
+                    if (remaining <= 0L) return ERROR.EXPIRED;
+                    wait(remaining);
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ERROR.ABORTED;
+        }
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // private void     _internal_exited(Worker worker);/*{{{*/
+    /**
+     * Called when a worker ends.
+     **/
+    private synchronized void _internal_exited(Worker worker) {
+        for (int i = 0; i < m_started; i++) {
+            if (m_workers[i] == worker) {
+                m_workers[i] = m_workers[--m_started];
+                m_workers[m_started] = null;
+                m_view = m_workers.clone();
+                break;
+            }
+        }
+        m_alive--;
+        notifyAll();
+    }/*}}}*/
+    // private void     _internal_cancel(ArrayDeque<CTask<?>>[] lanes);/*{{{*/
+    /**
+     * Aborts all tasks waiting in a set of lanes.
+     **/
+    private void _internal_cancel(ArrayDeque<CTask<?>>[] lanes) {
+        CTask<?> task = null;
+
+        for (int lane = 0; lane < LANES; lane++)
+        {
+            while (true)
+            {
+                synchronized (lanes) {
+                    task = lanes[lane].pollFirst();
+                }
+                if (task == null) break;
+
+                m_pending.decrementAndGet();
+                task._internal_cancel();
+            }
+        }
+    }/*}}}*/
+    // final boolean    _internal_remove(CTask<?> task);/*{{{*/
+    /**
+     * Removes an aborted task from the lane where it waits.
+     * Otherwise the entry would stay in the lane and, if the task is
+     * submitted again, run it before its time.
+     * \returns \b true when the task was found. \b false when a worker has
+     * already taken it.
+     **/
+    final boolean _internal_remove(CTask<?> task) {
+        final int lane = _internal_lane(task.getPriority());
+        boolean removed;
+
+        synchronized (m_shared) {
+            removed = _internal_remove(m_shared[lane], task);
+        }
+
+        for (Worker worker : m_view)
+        {
+            if (removed) break;
+            if (worker == null) continue;
+
+            synchronized (worker.m_local) {
+                removed = _internal_remove(worker.m_local[lane], task);
+            }
+        }
+
+        if (removed) m_pending.decrementAndGet();
+        return removed;
+    }/*}}}*/
+    // static boolean   _internal_remove(ArrayDeque<CTask<?>> queue, CTask<?> task);/*{{{*/
+    /**
+     * Removes a task from a queue.
+     * Compares by identity, since a task class can override \c equals().
+     **/
+    static boolean _internal_remove(ArrayDeque<CTask<?>> queue, CTask<?> task) {
+        final Iterator<CTask<?>> it = queue.iterator();
+
+        while (it.hasNext()) {
+            if (it.next() == task) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }/*}}}*/
+    // static int       _internal_lane(int priority);/*{{{*/
+    /**
+     * Lane of a task priority.
+     **/
+    static int _internal_lane(int priority) {
+        if (priority > thread_t.PRIORITY_NORMAL) return LANE_CRITICAL;
+        if (priority < thread_t.PRIORITY_NORMAL) return LANE_IDLE;
+        return LANE_NORMAL;
+    }/*}}}*/
+    // static ArrayDeque<CTask<?>>[] _internal_lanes();/*{{{*/
+    /**
+     * Builds an empty set of lanes.
+     **/
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ArrayDeque<CTask<?>>[] _internal_lanes() {
+        ArrayDeque<CTask<?>>[] lanes = new ArrayDeque[LANES];
+
+        for (int i = 0; i < LANES; i++)
+            lanes[i] = new ArrayDeque<CTask<?>>();
+
+        return lanes;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * A worker thread of the pool.
+     **/
+    static final class Worker extends thread_t
+    {
+        // Worker(CTaskPool pool);/*{{{*/
+        /**
+         * Builds the worker.
+         **/
+        Worker(CTaskPool pool) {
+            m_pool  = pool;
+            m_local = _internal_lanes();
+        }/*}}}*/
+        // void wake();/*{{{*/
+        /**
+         * Wakes the worker when it is waiting for tasks.
+         **/
+        final void wake() {
+            Thread thread = m_self;
+            if (thread != null) LockSupport.unpark(thread);
+        }/*}}}*/
+        // protected int execute();/*{{{*/
+        /**
+         * Runs tasks until the pool is shut down.
+         **/
+        protected int execute() {
+            final CTaskPool pool = m_pool;
+
+            m_self = Thread.currentThread();
+            s_worker.set(this);
+
+            try {
+                while (!aborted())
+                {
+                    CTask<?> task = pool._internal_take(this);
+
+                    if (task == null)
+                    {
+                        if (pool.m_closed)
+                        {
+                            if (pool.m_pending.get() <= 0) break;
+
+                            Thread.yield();     /* A task being submitted. */
+                            continue;
+                        }
+
+                        /* Checks again after becoming idle, so a task
+                         * submitted in between is not missed. */
+                        pool.m_idle.add(this);
+                        task = pool._internal_take(this);
+
+                        if (task == null) {
+                            if (!pool.m_closed)
+                                LockSupport.parkNanos(this, IDLE_WAIT);
+
+                            pool.m_idle.remove(this);
+                            continue;
+                        }
+                        pool.m_idle.remove(this);
+                    }
+
+                    m_task = task;
+                    task._internal_execute();
+                    m_task = null;
+                }
+            }
+            finally {
+                s_worker.remove();
+                m_self = null;
+                pool.m_idle.remove(this);
+                pool._internal_exited(this);
+            }
+            return ERROR.SUCCESS;
+        }/*}}}*/
+
+        final CTaskPool              m_pool;    /**< Owner of the worker.   */
+        final ArrayDeque<CTask<?>>[] m_local;   /**< Own task queues.       */
+        volatile Thread              m_self;    /**< The running thread.    */
+        volatile CTask<?>            m_task;    /**< Task running.          */
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private final Worker[]               m_workers;     /**< Started workers.       */
+    private volatile Worker[]            m_view;        /**< Copy read by workers.  */
+    private final int                    m_capacity;    /**< Maximum waiting tasks. */
+    private final ArrayDeque<CTask<?>>[] m_shared;      /**< Shared task queues.    */
+    private final ConcurrentLinkedQueue<Worker> m_idle; /**< Workers waiting tasks. */
+    private final AtomicInteger          m_pending;     /**< Tasks waiting.         */
+    private volatile boolean             m_closed;      /**< Pool was shut down.    */
+    private volatile boolean             m_stopped;     /**< Tasks were aborted.    */
+    private int                          m_started;     /**< Workers in m_workers.  */
+    private int                          m_alive;       /**< Workers running.       */
+    //@}
+
+    /** \name STATIC DATA */ //@{
+    private static volatile CTaskPool s_default;        /**< Application pool.      */
+
+    /** Worker running in the current thread. */
+    private static final ThreadLocal<Worker> s_worker = new ThreadLocal<Worker>();
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    public static final int DEFAULT_CAPACITY = 1024;    /**< Waiting tasks in the default pool. */
+
+    static final int  LANE_CRITICAL = 0;                /**< Lane of critical tasks.    */
+    static final int  LANE_NORMAL   = 1;                /**< Lane of normal tasks.      */
+    static final int  LANE_IDLE     = 2;                /**< Lane of idle tasks.        */
+    static final int  LANES         = 3;                /**< Number of lanes.           */
+    static final long IDLE_WAIT     = 1000000000L;      /**< Idle worker wait, in ns.   */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,1075 @@
+/**
+ * \file
+ * Defines the ConcurrentSFList class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * \ingroup x_android_utils
+ * Thread safe list with the same operations of SFListT.
+ * Like SFListT, \b null elements are not allowed and invalid indexes don't
+ * throw exceptions. The list works in one of two modes, selected in the
+ * constructor:
+ * - #MODE_COPY_ON_WRITE: every change builds a new array, under a single
+ *   lock. Reads and iterations use the current array without locking and
+ *   without copying. Fits lists read much more often than changed, like
+ *   lists of listeners.
+ * - #MODE_STRIPED: the elements are kept in several stripes, each one with
+ *   its own lock. Each thread adds to its own stripe, so threads adding at
+ *   the same time seldom wait for each other. Additions write in place;
+ *   only removals build new arrays. Reads don't lock. Fits buffers filled
+ *   by several threads and drained by another, see #drain().
+ * .
+ * Reads never lock and never throw \c ConcurrentModificationException.
+ * In the copy-on-write mode each read sees the list as it was at some
+ * moment. In the striped mode each stripe is seen as it was at some
+ * moment, but the stripes are read one after the other. Also in the
+ * striped mode the elements added by one thread keep their order, but the
+ * order between threads is not defined.
+ *
+ * Operations that use indexes to change the list (#set(), #insert(),
+ * #remove(int), #fastRemove()) and #sort() hold the locks of all stripes,
+ * so they are slower in the striped mode.
+ * @tparam T The type of the elements.
+ *//* --------------------------------------------------------------------- */
+public class ConcurrentSFList<T> implements Collection<T>, Iterable<T>,
+       RandomAccess
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public ConcurrentSFList();/*{{{*/
+    /**
+     * Builds an empty list in the copy-on-write mode.
+     **/
+    public ConcurrentSFList() {
+        this(MODE_COPY_ON_WRITE, 1);
+    }/*}}}*/
+    // public ConcurrentSFList(int mode);/*{{{*/
+    /**
+     * Builds an empty list.
+     * In the striped mode the number of stripes is twice the number of
+     * processors.
+     * \param mode #MODE_COPY_ON_WRITE or #MODE_STRIPED.
+     **/
+    public ConcurrentSFList(int mode) {
+        this(mode, Runtime.getRuntime().availableProcessors() * 2);
+    }/*}}}*/
+    // public ConcurrentSFList(int mode, int stripes);/*{{{*/
+    /**
+     * Builds an empty list.
+     * \param mode #MODE_COPY_ON_WRITE or #MODE_STRIPED.
+     * \param stripes Number of stripes in the striped mode. Rounded up to
+     * a power of two and limited to #MAX_STRIPES. Not used in the
+     * copy-on-write mode.
+     **/
+    public ConcurrentSFList(int mode, int stripes) {
+        int count = 1;
+
+        if (mode == MODE_STRIPED) {
+            while ((count < stripes) && (count < MAX_STRIPES))
+                count <<= 1;
+        }
+
+        m_mode    = mode;
+        m_mask    = count - 1;
+        m_stripes = new Stripe[count];
+
+        for (int i = 0; i < count; i++)
+            m_stripes[i] = new Stripe(mode == MODE_COPY_ON_WRITE);
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int mode();/*{{{*/
+    /**
+     * Mode of this list.
+     * \return #MODE_COPY_ON_WRITE or #MODE_STRIPED.
+     **/
+    public final int mode() {
+        return m_mode;
+    }/*}}}*/
+    // public final int stripes();/*{{{*/
+    /**
+     * Number of stripes.
+     * Always 1 in the copy-on-write mode.
+     **/
+    public final int stripes() {
+        return m_stripes.length;
+    }/*}}}*/
+    //@}
+
+    /** \name Iterable Implementation */ //@{
+    // public Iterator<T> iterator();/*{{{*/
+    /**
+     * Builds an Iterator for the elements in this list.
+     * The iterator works on a snapshot of the list. The list can be changed
+     * while the iterator is in use, without exceptions. The changes are not
+     * seen by the iterator.
+     * \returns An \c Iterator object. Its \c remove() operation is not
+     * supported.
+     **/
+    public Iterator<T> iterator() {
+        final Object[] items = _internal_snapshot();
+        final int      count = items.length;
+
+        return new Iterator<T>() {
+            public boolean hasNext() {
+                return (m_position < count);
+            }
+
+            public T next() throws NoSuchElementException {
+                if (m_position >= count)
+                    throw new NoSuchElementException("There are no more elements to iterate!");
+
+                return (T)items[m_position++];
+            }
+
+            public void remove() throws UnsupportedOperationException {
+                throw new UnsupportedOperationException("ConcurrentSFList::Iterator::remove() is not supported!");
+            }
+
+            private int m_position;
+        };
+    }/*}}}*/
+    //@}
+
+    /** \name Collection Implementation */ //@{
+    // public int size();/*{{{*/
+    /**
+     * Gets the size of the list.
+     * \returns The number of elements. In the striped mode the value can
+     * be old when other threads are changing the list.
+     **/
+    public int size() {
+        int result = 0;
+
+        for (Stripe stripe : m_stripes)
+            result += stripe.size();
+
+        return result;
+    }/*}}}*/
+    // public boolean isEmpty();/*{{{*/
+    /**
+     * Checks whether this list is empty.
+     **/
+    public boolean isEmpty() {
+        for (Stripe stripe : m_stripes) {
+            if (stripe.size() > 0)
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    // public boolean add(T element);/*{{{*/
+    /**
+     * Adds an element to this list.
+     * In the striped mode the element is added to the stripe of the
+     * calling thread.
+     * \param element The element to be added.
+     * \returns \b true if the function succeeds. \b false when \a element
+     * is \b null.
+     **/
+    public boolean add(T element) {
+        if (element == null) return false;
+
+        Stripe stripe = _internal_stripe();
+        stripe.lock();
+        try {
+            stripe.append(element);
+        } finally {
+            stripe.unlock();
+        }
+        return true;
+    }/*}}}*/
+    // public boolean addAll(Collection<? extends T> coll);/*{{{*/
+    /**
+     * Adds all elements in the specified collection to this list.
+     * The elements are added together, in a single change. \b null elements
+     * are skipped.
+     * \param coll Collection of elements. Can be \b null or empty.
+     * \returns Always \b true, as in SFListT#addAll().
+     **/
+    public boolean addAll(Collection<? extends T> coll) {
+        if ((coll == null) || coll.isEmpty()) return true;
+
+        final Object[] items = coll.toArray();
+        int count = 0;
+
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null)
+                items[count++] = items[i];
+        }
+
+        Stripe stripe = _internal_stripe();
+        stripe.lock();
+        try {
+            stripe.append(items, count);
+        } finally {
+            stripe.unlock();
+        }
+        return true;
+    }/*}}}*/
+    // public boolean remove(Object element);/*{{{*/
+    /**
+     * Removes an element of this list.
+     * The element is compared by reference, as in SFListT#remove(Object).
+     * \param element Element to be removed.
+     * \returns \b true if the element was removed.
+     **/
+    public boolean remove(Object element) {
+        if (element == null) return false;
+
+        for (Stripe stripe : m_stripes)
+        {
+            if (stripe.indexOf(element, false) < 0)
+                continue;
+
+            stripe.lock();
+            try {
+                int index = stripe.indexOf(element, false);
+                if (index >= 0) {
+                    stripe.remove(index);
+                    return true;
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+        return false;
+    }/*}}}*/
+    // public boolean removeAll(Collection<?> coll);/*{{{*/
+    /**
+     * Removes all elements that are also in the specified collection.
+     * Elements are compared by reference.
+     * \param coll Collection of elements to be removed. Can be \b null or
+     * empty.
+     * \returns \b true if at least one element was removed.
+     **/
+    public boolean removeAll(Collection<?> coll) {
+        if ((coll == null) || coll.isEmpty()) return false;
+
+        return (_internal_filter(coll.toArray(), true) > 0);
+    }/*}}}*/
+    // public boolean retainAll(Collection<?> coll);/*{{{*/
+    /**
+     * Retains only the elements that are also in the specified collection.
+     * Elements are compared by reference.
+     * \param coll Collection of elements to keep.
+     * \returns \b false only when \a coll is \b null or empty, as in
+     * SFListT#retainAll().
+     **/
+    public boolean retainAll(Collection<?> coll) {
+        if ((coll == null) || coll.isEmpty()) return false;
+
+        _internal_filter(coll.toArray(), false);
+        return true;
+    }/*}}}*/
+    // public boolean contains(Object element);/*{{{*/
+    /**
+     * Checks if this list has a reference to the specified element.
+     * The element is compared by reference, as in SFListT#contains().
+     **/
+    public boolean contains(Object element) {
+        if (element == null) return false;
+
+        for (Stripe stripe : m_stripes) {
+            if (stripe.indexOf(element, false) >= 0)
+                return true;
+        }
+        return false;
+    }/*}}}*/
+    // public boolean containsAll(Collection<?> coll);/*{{{*/
+    /**
+     * Checks if all elements of a collection are in this list.
+     * \returns \b false when at least one element is not in this list or
+     * when \a coll is empty or \b null.
+     **/
+    public boolean containsAll(Collection<?> coll) {
+        if ((coll == null) || coll.isEmpty())
+            return false;
+
+        for (Object element : coll) {
+            if (!contains(element))
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    // public void clear();/*{{{*/
+    /**
+     * Removes all elements.
+     **/
+    public void clear() {
+        for (Stripe stripe : m_stripes)
+        {
+            stripe.lock();
+            try {
+                stripe.take();
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }/*}}}*/
+    // public <E> E[] toArray(E[] array);/*{{{*/
+    /**
+     * Returns an array with elements from this list.
+     * Works like SFListT#toArray(T[]).
+     * \param array Array used when it has room for the elements. Otherwise
+     * a new array of the same type is returned.
+     * \return The array with the elements.
+     * \throw ClassCastException When the type of \a array is not the same
+     * as the elements of this list.
+     **/
+    public <E> E[] toArray(E[] array) throws ClassCastException {
+        final Object[] items = _internal_snapshot();
+        final int      count = items.length;
+
+        if (array.length < count)
+            array = (E[])java.lang.reflect.Array.newInstance(array.getClass().getComponentType(), count);
+
+        System.arraycopy(items, 0, array, 0, count);
+
+        if (count < array.length)
+            Arrays.fill(array, count, array.length, null);
+
+        return array;
+    }/*}}}*/
+    // public Object[] toArray();/*{{{*/
+    /**
+     * Builds an array with the elements of this list.
+     * \returns A new array. Empty when the list is empty.
+     **/
+    public Object[] toArray() {
+        return _internal_copy();
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public boolean has(Object element);/*{{{*/
+    /**
+     * Checks if this list has an element equal to the specified one.
+     * The comparison uses \c equals(), as in SFListT#has().
+     **/
+    public boolean has(Object element) {
+        if (element == null) return false;
+
+        for (Stripe stripe : m_stripes) {
+            if (stripe.indexOf(element, true) >= 0)
+                return true;
+        }
+        return false;
+    }/*}}}*/
+    // public int  indexOf(Object element);/*{{{*/
+    /**
+     * Returns the index of an element, compared by reference.
+     * \returns The index in a snapshot of the list or -1 when the element
+     * is not in the list.
+     **/
+    public int indexOf(Object element) {
+        return _internal_indexOf(element, false);
+    }/*}}}*/
+    // public int  indexOfObject(Object element);/*{{{*/
+    /**
+     * Returns the index of an element, compared with \c equals().
+     * \returns The index in a snapshot of the list or -1 when the element
+     * is not in the list.
+     **/
+    public int indexOfObject(Object element) {
+        return _internal_indexOf(element, true);
+    }/*}}}*/
+    // public T    get(int index);/*{{{*/
+    /**
+     * Obtains the element at the specified index position.
+     * \param index Position of the element. Negative values count from the
+     * end of the list.
+     * \returns The element or \b null when \a index is invalid.
+     **/
+    public T get(int index) {
+        if (index < 0) index = (size() + index);
+        if (index < 0) return null;
+
+        for (Stripe stripe : m_stripes)
+        {
+            final Object[] items = stripe.items();
+            final int      count = Math.min(stripe.size(), items.length);
+
+            if (index < count)
+                return (T)items[index];
+
+            index -= count;
+        }
+        return null;
+    }/*}}}*/
+    // public T    set(int index, T element);/*{{{*/
+    /**
+     * Replaces the element at the specified position.
+     * \param index Position of the element. Negative values count from the
+     * end of the list.
+     * \param element The new element. \b null is not allowed.
+     * \returns The element replaced. \b null when \a index is invalid or
+     * \a element is \b null.
+     **/
+    public T set(int index, T element) {
+        if (element == null) return null;
+
+        _internal_lockAll();
+        try {
+            long position = _internal_locate(index, false);
+            if (position < 0) return null;
+
+            return (T)m_stripes[(int)(position >>> 32)].set((int)position, element);
+        } finally {
+            _internal_unlockAll();
+        }
+    }/*}}}*/
+    // public boolean insert(int index, T element);/*{{{*/
+    /**
+     * Inserts an element in the specified position.
+     * Works like SFListT#insert(). An index equal to the list size appends
+     * the element.
+     * \param index Position of the new element. Negative values count from
+     * the end of the list.
+     * \param element Element to be inserted. Cannot be \b null.
+     * \returns \b true when the element is inserted.
+     **/
+    public boolean insert(int index, T element) {
+        if (element == null) return false;
+
+        _internal_lockAll();
+        try {
+            long position = _internal_locate(index, true);
+            if (position < 0) return false;
+
+            m_stripes[(int)(position >>> 32)].insert((int)position, element);
+            return true;
+        } finally {
+            _internal_unlockAll();
+        }
+    }/*}}}*/
+    // public T    remove(int index);/*{{{*/
+    /**
+     * Removes one element from the list.
+     * \param index Position of the element. Negative values count from the
+     * end of the list.
+     * \returns The element removed or \b null when \a index is invalid.
+     **/
+    public T remove(int index) {
+        _internal_lockAll();
+        try {
+            long position = _internal_locate(index, false);
+            if (position < 0) return null;
+
+            return (T)m_stripes[(int)(position >>> 32)].remove((int)position);
+        } finally {
+            _internal_unlockAll();
+        }
+    }/*}}}*/
+    // public T    fastRemove(int index);/*{{{*/
+    /**
+     * Removes one element without keeping the order of the list.
+     * The last element of the same stripe takes the place of the removed
+     * one.
+     * \param index Position of the element. Negative values count from the
+     * end of the list.
+     * \returns The element removed or \b null when \a index is invalid.
+     **/
+    public T fastRemove(int index) {
+        _internal_lockAll();
+        try {
+            long position = _internal_locate(index, false);
+            if (position < 0) return null;
+
+            return (T)m_stripes[(int)(position >>> 32)].fastRemove((int)position);
+        } finally {
+            _internal_unlockAll();
+        }
+    }/*}}}*/
+    // public int  removeMatching(SFListT.IFilter<? super T> filter);/*{{{*/
+    /**
+     * Removes all elements accepted by a filter.
+     * Each stripe is filtered under its own lock, keeping the order of the
+     * remaining elements.
+     * \param filter Object that selects the elements to remove. \b null
+     * removes nothing.
+     * \returns The number of elements removed.
+     * @remarks Named as SFListT#removeMatching(), to not be ambiguous with
+     * \c Collection.removeIf(Predicate).
+     **/
+    public int removeMatching(SFListT.IFilter<? super T> filter) {
+        if (filter == null) return 0;
+
+        /* The stripes hold the elements as Object. */
+        @SuppressWarnings("unchecked")
+        final SFListT.IFilter<Object> any = (SFListT.IFilter<Object>)filter;
+        int result = 0;
+        for (Stripe stripe : m_stripes)
+        {
+            stripe.lock();
+            try {
+                result += stripe.removeMatching(any);
+            } finally {
+                stripe.unlock();
+            }
+        }
+        return result;
+    }/*}}}*/
+    // public void sort(Comparator<? super T> comparator);/*{{{*/
+    /**
+     * Sorts the elements of this list.
+     * In the striped mode the sorted elements are spread in the stripes in
+     * order, so the list, read from the first stripe to the last, is
+     * sorted.
+     * \param comparator Object that compares the elements. \b null sorts
+     * them in their natural order.
+     * \throw ClassCastException When \a comparator is \b null and the
+     * elements are not \c Comparable.
+     **/
+    public void sort(Comparator<? super T> comparator) {
+        _internal_lockAll();
+        try {
+            Object[] items = _internal_copy();
+            int      count = items.length;
+
+            if (comparator == null)
+                Arrays.sort(items, 0, count);
+            else
+                Arrays.sort((T[])items, 0, count, comparator);
+
+            final int stripes = m_stripes.length;
+            int start = 0;
+
+            for (int i = 0; i < stripes; i++)
+            {
+                int length = (count - start) / (stripes - i);
+                m_stripes[i].replace(Arrays.copyOfRange(items, start, start + length), length);
+                start += length;
+            }
+        } finally {
+            _internal_unlockAll();
+        }
+    }/*}}}*/
+    // public boolean forEach(SFListT.IVisitor<? super T> visitor);/*{{{*/
+    /**
+     * Visits all elements of this list.
+     * The elements are read from a snapshot. In the copy-on-write mode the
+     * snapshot is the current array and nothing is allocated. The visitor
+     * can change the list; the changes are not seen in this iteration.
+     * \param visitor Object called for each element. The index passed is
+     * the position in the snapshot.
+     * \returns \b true when all elements are visited. \b false when the
+     * visitor stops the iteration.
+     **/
+    public boolean forEach(SFListT.IVisitor<? super T> visitor) {
+        final Object[] items = _internal_snapshot();
+        final int      count = items.length;
+
+        for (int i = 0; i < count; i++) {
+            if (!visitor.visit(i, (T)items[i]))
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    // public SFListT<T> snapshot();/*{{{*/
+    /**
+     * Copies the elements to a SFListT.
+     * \returns A new list with the elements of this list.
+     **/
+    public SFListT<T> snapshot() {
+        SFListT<T> result = new SFListT<T>();
+
+        result.m_array = _internal_copy();
+        result.m_count = result.m_array.length;
+        return result;
+    }/*}}}*/
+    // public SFListT<T> drain();/*{{{*/
+    /**
+     * Removes all elements and returns them.
+     * Each stripe is emptied under its own lock. Elements added while the
+     * list is drained are either returned or kept in the list; none is
+     * lost.
+     * \returns A new list with the elements removed, in stripe order.
+     **/
+    public SFListT<T> drain() {
+        SFListT<T> result = new SFListT<T>();
+
+        for (Stripe stripe : m_stripes)
+        {
+            Object[] items;
+            int      count;
+
+            stripe.lock();
+            try {
+                count = stripe.size();
+                items = stripe.take();
+            } finally {
+                stripe.unlock();
+            }
+
+            if (count == 0) continue;
+
+            /* Readers can still hold the array, so it is copied. */
+            result.ensureCapacity(result.m_count + count);
+            System.arraycopy(items, 0, result.m_array, result.m_count, count);
+            result.m_count += count;
+        }
+        return result;
+    }/*}}}*/
+    //@}
+
+    /** \name Object Overrides */ //@{
+    // public String toString();/*{{{*/
+    /**
+     * Lists the elements of a snapshot, as in \c AbstractCollection.
+     **/
+    public String toString() {
+        final Object[] items = _internal_snapshot();
+        final int      count = items.length;
+        StringBuilder  sb    = new StringBuilder(count * 8 + 2);
+
+        sb.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(items[i]);
+        }
+        return sb.append(']').toString();
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // private Stripe   _internal_stripe();/*{{{*/
+    /**
+     * Selects the stripe of the calling thread.
+     **/
+    private Stripe _internal_stripe() {
+        if (m_mask == 0) return m_stripes[0];
+
+        long id = Thread.currentThread().getId();
+        return m_stripes[CStringTable._internal_hash((int)(id ^ (id >>> 32))) & m_mask];
+    }/*}}}*/
+    // private Object[] _internal_snapshot();/*{{{*/
+    /**
+     * Reads the elements without locking.
+     * In the copy-on-write mode the result is the current array, which is
+     * never changed and must not be changed by the caller. In the striped
+     * mode a new array is built.
+     * \returns The array, with the exact number of elements.
+     **/
+    private Object[] _internal_snapshot() {
+        if (m_mode == MODE_COPY_ON_WRITE)
+            return m_stripes[0].items();
+
+        final int stripes = m_stripes.length;
+        Object[][] parts  = new Object[stripes][];
+        Object[]   last   = EMPTY;
+        int count = 0, used = 0;
+
+        for (int i = 0; i < stripes; i++)
+        {
+            parts[i] = m_stripes[i].copy();
+            if (parts[i].length > 0) {
+                last   = parts[i];
+                count += last.length;
+                used++;
+            }
+        }
+
+        if (used < 2) return last;
+
+        Object[] result = new Object[count];
+        int      start  = 0;
+
+        for (int i = 0; i < stripes; i++) {
+            System.arraycopy(parts[i], 0, result, start, parts[i].length);
+            start += parts[i].length;
+        }
+        return result;
+    }/*}}}*/
+    // private Object[] _internal_copy();/*{{{*/
+    /**
+     * Reads the elements in an array that the caller can change.
+     **/
+    private Object[] _internal_copy() {
+        Object[] result = _internal_snapshot();
+        return ((m_mode == MODE_COPY_ON_WRITE) ? result.clone() : result);
+    }/*}}}*/
+    // private int      _internal_indexOf(Object element, boolean equality);/*{{{*/
+    /**
+     * Finds an element in a snapshot.
+     **/
+    private int _internal_indexOf(Object element, boolean equality) {
+        if (element == null) return -1;
+
+        final Object[] items = _internal_snapshot();
+        final int      count = items.length;
+
+        for (int i = 0; i < count; i++) {
+            if ((items[i] == element) || (equality && element.equals(items[i])))
+                return i;
+        }
+        return -1;
+    }/*}}}*/
+    // private int      _internal_filter(Object[] items, boolean remove);/*{{{*/
+    /**
+     * Removes the elements found, or not found, in an array.
+     * \param items Elements compared by reference.
+     * \param remove \b true removes the elements found in \a items. \b false
+     * removes the elements not found.
+     * \returns Number of elements removed.
+     **/
+    private int _internal_filter(final Object[] items, final boolean remove) {
+        return removeMatching(new SFListT.IFilter<Object>() {
+            public boolean accept(Object element) {
+                for (int i = 0; i < items.length; i++) {
+                    if (items[i] == element)
+                        return remove;
+                }
+                return !remove;
+            }
+        });
+    }/*}}}*/
+    // private long     _internal_locate(int index, boolean append);/*{{{*/
+    /**
+     * Finds the stripe and the position of an index.
+     * All stripes must be locked.
+     * \param index Index in the list. Negative values count from the end.
+     * \param append Accepts an index equal to the list size.
+     * \returns The stripe in the high 32 bits and the position in the low
+     * 32 bits. -1 when \a index is invalid.
+     **/
+    private long _internal_locate(int index, boolean append) {
+        final int total = size();
+
+        if (index < 0) index = (total + index);
+        if ((index < 0) || (index > total) || ((index == total) && !append))
+            return -1L;
+
+        final int last = m_stripes.length - 1;
+        for (int i = 0; i <= last; i++)
+        {
+            int count = m_stripes[i].size();
+
+            if ((index < count) || ((index == count) && (i == last)))
+                return (((long)i << 32) | index);
+
+            index -= count;
+        }
+        return -1L;
+    }/*}}}*/
+    // private void     _internal_lockAll();/*{{{*/
+    /**
+     * Locks all stripes, always in the same order.
+     **/
+    private void _internal_lockAll() {
+        for (Stripe stripe : m_stripes)
+            stripe.lock();
+    }/*}}}*/
+    // private void     _internal_unlockAll();/*{{{*/
+    /**
+     * Unlocks all stripes.
+     **/
+    private void _internal_unlockAll() {
+        for (int i = m_stripes.length - 1; i >= 0; i--)
+            m_stripes[i].unlock();
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * One stripe of the list, with its own lock.
+     * Changes are made with the lock held. The array and the count are
+     * volatile, so they can be read without the lock. In the striped mode
+     * an array is only changed in place by additions after its count, and
+     * by #set(); other changes publish a new array before the new count. A
+     * reader that reads the count and then the array, stopping at the first
+     * \b null, sees the stripe as it was at some moment. In the
+     * copy-on-write mode every change publishes a new array of exact size.
+     **/
+    static final class Stripe
+    {
+        /** \name CONSTRUCTOR */ //@{
+        // Stripe(boolean exact);/*{{{*/
+        /**
+         * Builds an empty stripe.
+         * \param exact \b true for the copy-on-write mode.
+         **/
+        Stripe(boolean exact) {
+            m_lock  = new ReentrantLock();
+            m_exact = exact;
+            m_items = EMPTY;
+        }/*}}}*/
+        //@}
+
+        /** \name LOCKING */ //@{
+        // void     lock();/*{{{*/
+        /**
+         * Acquires the lock of the stripe.
+         **/
+        final void lock() {
+            m_lock.lock();
+        }/*}}}*/
+        // void     unlock();/*{{{*/
+        /**
+         * Releases the lock of the stripe.
+         **/
+        final void unlock() {
+            m_lock.unlock();
+        }/*}}}*/
+        //@}
+
+        /** \name READING */ //@{
+        // int      size();/*{{{*/
+        /**
+         * Number of elements.
+         **/
+        final int size() {
+            return m_count;
+        }/*}}}*/
+        // Object[] items();/*{{{*/
+        /**
+         * The current array. Must not be changed.
+         **/
+        final Object[] items() {
+            return m_items;
+        }/*}}}*/
+        // Object[] copy();/*{{{*/
+        /**
+         * Copies the elements without locking.
+         * \returns A new array with the exact number of elements.
+         **/
+        final Object[] copy() {
+            final int      count = m_count;
+            final Object[] items = m_items;
+
+            if (m_exact) return items.clone();
+
+            final int limit = Math.min(count, items.length);
+            int length = 0;
+
+            while ((length < limit) && (items[length] != null))
+                length++;
+
+            return ((length == 0) ? EMPTY : Arrays.copyOf(items, length));
+        }/*}}}*/
+        // int      indexOf(Object element, boolean equality);/*{{{*/
+        /**
+         * Finds an element without locking.
+         **/
+        final int indexOf(Object element, boolean equality) {
+            final int      count = m_count;
+            final Object[] items = m_items;
+            final int      limit = Math.min(count, items.length);
+            Object item;
+
+            for (int i = 0; i < limit; i++)
+            {
+                if ((item = items[i]) == null) break;
+                if ((item == element) || (equality && element.equals(item)))
+                    return i;
+            }
+            return -1;
+        }/*}}}*/
+        //@}
+
+        /** \name CHANGING */ //@{
+        // void   append(Object element);/*{{{*/
+        /**
+         * Adds an element at the end.
+         **/
+        final void append(Object element) {
+            final int count = m_count;
+            Object[] items  = m_items;
+
+            if (m_exact || (count == items.length))
+                items = Arrays.copyOf(items, _internal_capacity(count + 1));
+
+            items[count] = element;
+            m_items = items;
+            m_count = count + 1;
+        }/*}}}*/
+        // void   append(Object[] elements, int length);/*{{{*/
+        /**
+         * Adds several elements at the end.
+         **/
+        final void append(Object[] elements, int length) {
+            if (length == 0) return;
+
+            final int count = m_count;
+            Object[] items  = m_items;
+
+            if (m_exact || ((count + length) > items.length))
+                items = Arrays.copyOf(items, _internal_capacity(count + length));
+
+            System.arraycopy(elements, 0, items, count, length);
+            m_items = items;
+            m_count = count + length;
+        }/*}}}*/
+        // Object set(int index, Object element);/*{{{*/
+        /**
+         * Replaces an element.
+         **/
+        final Object set(int index, Object element) {
+            Object[] items  = m_items;
+            Object   result = items[index];
+
+            if (m_exact) {
+                items = items.clone();
+                items[index] = element;
+                m_items = items;
+            }
+            else
+                items[index] = element;
+
+            return result;
+        }/*}}}*/
+        // void   insert(int index, Object element);/*{{{*/
+        /**
+         * Inserts an element, building a new array.
+         **/
+        final void insert(int index, Object element) {
+            final int      count = m_count;
+            final Object[] items = m_items;
+            Object[] result = new Object[_internal_capacity(count + 1)];
+
+            System.arraycopy(items, 0, result, 0, index);
+            System.arraycopy(items, index, result, index + 1, count - index);
+            result[index] = element;
+
+            m_items = result;
+            m_count = count + 1;
+        }/*}}}*/
+        // Object remove(int index);/*{{{*/
+        /**
+         * Removes an element, building a new array.
+         **/
+        final Object remove(int index) {
+            final int      count = m_count;
+            final Object[] items = m_items;
+            Object[] result = new Object[m_exact ? (count - 1) : items.length];
+
+            System.arraycopy(items, 0, result, 0, index);
+            System.arraycopy(items, index + 1, result, index, count - index - 1);
+
+            m_items = result;
+            m_count = count - 1;
+            return items[index];
+        }/*}}}*/
+        // Object fastRemove(int index);/*{{{*/
+        /**
+         * Removes an element moving the last one to its place.
+         **/
+        final Object fastRemove(int index) {
+            final int      count = m_count;
+            final Object[] items = m_items;
+            Object[] result = Arrays.copyOf(items, m_exact ? (count - 1) : items.length);
+
+            if (index < (count - 1))
+                result[index] = items[count - 1];
+
+            if (!m_exact)
+                result[count - 1] = null;
+
+            m_items = result;
+            m_count = count - 1;
+            return items[index];
+        }/*}}}*/
+        // int    removeMatching(SFListT.IFilter<Object> filter);/*{{{*/
+        /**
+         * Removes the elements accepted by a filter.
+         * A new array is built only when something is removed.
+         **/
+        final int removeMatching(SFListT.IFilter<Object> filter) {
+            final int      count = m_count;
+            final Object[] items = m_items;
+            Object[] result = null;
+            int      kept   = 0;
+
+            for (int i = 0; i < count; i++)
+            {
+                if (filter.accept(items[i])) {
+                    if (result == null) {
+                        result = new Object[m_exact ? (count - 1) : items.length];
+                        System.arraycopy(items, 0, result, 0, i);
+                    }
+                }
+                else {
+                    if (result != null) result[kept] = items[i];
+                    kept++;
+                }
+            }
+
+            if (result == null) return 0;
+
+            replace(m_exact ? Arrays.copyOf(result, kept) : result, kept);
+            return (count - kept);
+        }/*}}}*/
+        // void   replace(Object[] items, int count);/*{{{*/
+        /**
+         * Publishes a new array.
+         **/
+        final void replace(Object[] items, int count) {
+            m_items = items;
+            m_count = count;
+        }/*}}}*/
+        // Object[] take();/*{{{*/
+        /**
+         * Empties the stripe.
+         * \returns The array with the elements. Not used by the stripe any
+         * more.
+         **/
+        final Object[] take() {
+            Object[] result = m_items;
+
+            m_items = EMPTY;
+            m_count = 0;
+            return result;
+        }/*}}}*/
+        // int    _internal_capacity(int needed);/*{{{*/
+        /**
+         * Size of a new array with room for a number of elements.
+         **/
+        private int _internal_capacity(int needed) {
+            final int length = m_items.length;
+
+            if (m_exact) return needed;
+            if (needed <= length) return length;
+
+            return Math.max(needed, Math.max(8, length + (length >> 1)));
+        }/*}}}*/
+        //@}
+
+        /** \name DATA MEMBERS */ //@{
+        private final ReentrantLock m_lock; /**< Lock of the stripe.        */
+        private final boolean     m_exact;  /**< Copy-on-write mode.        */
+        private volatile Object[] m_items;  /**< Elements of the stripe.    */
+        private volatile int      m_count;  /**< Number of elements.        */
+        //@}
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private final Stripe[] m_stripes;       /**< Stripes of the list.       */
+    private final int      m_mask;          /**< Number of stripes minus 1. */
+    private final int      m_mode;          /**< Mode of the list.          */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    public static final int MODE_COPY_ON_WRITE = 0;     /**< Copy-on-write mode. */
+    public static final int MODE_STRIPED       = 1;     /**< Striped locks mode. */
+    public static final int MAX_STRIPES        = 64;    /**< Most stripes used.  */
+
+    /** Empty array shared by empty stripes. */
+    static final Object[] EMPTY = new Object[0];
+    //@}
+}
+// vim:syntax=java.doxygen
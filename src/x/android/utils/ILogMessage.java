@@ -0,0 +1,42 @@
+/**
+ * \file
+ * Defines the ILogMessage interface.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+/**
+ * \ingroup x_android_utils
+ * Builds a logging message only when it will be written.
+ * Used with debug#w(int,ILogMessage) when building the message is
+ * expensive:
+ * @code
+ * debug.w(CLogQueue.LEVEL_DEBUG, new ILogMessage() {
+ *     public String message() {
+ *         return arrays.toString(frame, " ", 16);
+ *     }
+ * });
+ * @endcode
+ * The object can be created once and kept in a field, so a disabled
+ * message costs only the level check.
+ *//* --------------------------------------------------------------------- */
+public interface ILogMessage
+{
+    /**
+     * Builds the message.
+     * Called only when the message level is enabled.
+     * \return The text to write. \b null writes nothing.
+     **/
+    public String message();
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,373 @@
+/**
+ * \file
+ * Defines the IntIntMap class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.Arrays;
+
+/**
+ * \ingroup x_android_utils
+ * Map of \b int keys to \b int values.
+ * Keys and values are kept in two arrays, with open addressing and linear
+ * probing, as in CStringTable. Nothing is boxed and no entry object is
+ * created. The table is kept at most three quarters full.
+ *
+ * A missing key is returned as the \e missing value given in the
+ * constructor, zero by default. Use #containsKey() when the missing value
+ * is also a valid value. The entries can be visited without an iterator
+ * with #forEach().
+ *//* --------------------------------------------------------------------- */
+public class IntIntMap
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public IntIntMap();/*{{{*/
+    /**
+     * Builds an empty map.
+     **/
+    public IntIntMap() {
+        this(0, 0);
+    }/*}}}*/
+    // public IntIntMap(int expected);/*{{{*/
+    /**
+     * Builds an empty map with room for a number of entries.
+     * \param expected Number of entries the map holds without growing.
+     **/
+    public IntIntMap(int expected) {
+        this(expected, 0);
+    }/*}}}*/
+    // public IntIntMap(int expected, int missing);/*{{{*/
+    /**
+     * Builds an empty map with room for a number of entries.
+     * \param expected Number of entries the map holds without growing.
+     * \param missing Value returned by #get(int) for keys not in the map.
+     **/
+    public IntIntMap(int expected, int missing) {
+        m_missing = missing;
+        _internal_grow(Math.max(expected, 4));
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int     size();/*{{{*/
+    /**
+     * Number of entries in the map.
+     **/
+    public final int size() {
+        return (m_count + (m_hasFree ? 1 : 0));
+    }/*}}}*/
+    // public final boolean isEmpty();/*{{{*/
+    /**
+     * Checks whether the map is empty.
+     **/
+    public final boolean isEmpty() {
+        return (size() == 0);
+    }/*}}}*/
+    // public final int     missing();/*{{{*/
+    /**
+     * Value returned for keys not in the map.
+     **/
+    public final int missing() {
+        return m_missing;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final int     get(int key);/*{{{*/
+    /**
+     * Gets the value of a key.
+     * \param key The key.
+     * \return The value or the \e missing value when the key is not in the
+     * map.
+     **/
+    public final int get(int key) {
+        return get(key, m_missing);
+    }/*}}}*/
+    // public final int     get(int key, int defValue);/*{{{*/
+    /**
+     * Gets the value of a key.
+     * \param key The key.
+     * \param defValue Value returned when the key is not in the map.
+     * \return The value or \a defValue.
+     **/
+    public final int get(int key, int defValue) {
+        if (key == FREE)
+            return (m_hasFree ? m_freeValue : defValue);
+
+        int slot = _internal_find(key);
+        return ((slot < 0) ? defValue : m_values[slot]);
+    }/*}}}*/
+    // public final boolean containsKey(int key);/*{{{*/
+    /**
+     * Checks whether a key is in the map.
+     **/
+    public final boolean containsKey(int key) {
+        return ((key == FREE) ? m_hasFree : (_internal_find(key) >= 0));
+    }/*}}}*/
+    // public final int     put(int key, int value);/*{{{*/
+    /**
+     * Sets the value of a key.
+     * \param key The key.
+     * \param value The value.
+     * \return The previous value of the key or the \e missing value when the
+     * key was not in the map.
+     **/
+    public final int put(int key, int value) {
+        if (key == FREE)
+        {
+            int previous = (m_hasFree ? m_freeValue : m_missing);
+            m_hasFree   = true;
+            m_freeValue = value;
+            return previous;
+        }
+
+        int slot = _internal_slot(key);
+        if (m_keys[slot] == key) {
+            int previous = m_values[slot];
+            m_values[slot] = value;
+            return previous;
+        }
+
+        _internal_insert(slot, key, value);
+        return m_missing;
+    }/*}}}*/
+    // public final int     add(int key, int delta);/*{{{*/
+    /**
+     * Adds a value to the value of a key.
+     * When the key is not in the map it is added with the \e missing value
+     * plus \a delta. Useful for counters.
+     * \param key The key.
+     * \param delta Value to add.
+     * \return The new value of the key.
+     **/
+    public final int add(int key, int delta) {
+        if (key == FREE)
+        {
+            m_freeValue = (m_hasFree ? m_freeValue : m_missing) + delta;
+            m_hasFree   = true;
+            return m_freeValue;
+        }
+
+        int slot = _internal_slot(key);
+        if (m_keys[slot] == key)
+            return (m_values[slot] += delta);
+
+        _internal_insert(slot, key, m_missing + delta);
+        return (m_missing + delta);
+    }/*}}}*/
+    // public final boolean remove(int key);/*{{{*/
+    /**
+     * Removes a key.
+     * \param key The key.
+     * \return \b true when the key was in the map.
+     **/
+    public final boolean remove(int key) {
+        if (key == FREE)
+        {
+            boolean found = m_hasFree;
+            m_hasFree   = false;
+            m_freeValue = 0;
+            return found;
+        }
+
+        int slot = _internal_find(key);
+        if (slot < 0) return false;
+
+        _internal_shift(slot);
+        return true;
+    }/*}}}*/
+    // public final void    clear();/*{{{*/
+    /**
+     * Removes all entries.
+     * The capacity is kept.
+     **/
+    public final void clear() {
+        Arrays.fill(m_keys, FREE);
+        m_count     = 0;
+        m_hasFree   = false;
+        m_freeValue = 0;
+    }/*}}}*/
+    // public final int[]   keys();/*{{{*/
+    /**
+     * Copies the keys to an array.
+     * The order is not defined.
+     **/
+    public final int[] keys() {
+        int[] result = new int[size()];
+        int   index  = 0;
+
+        if (m_hasFree) result[index++] = FREE;
+
+        for (int i = 0; i < m_keys.length; i++) {
+            if (m_keys[i] != FREE)
+                result[index++] = m_keys[i];
+        }
+        return result;
+    }/*}}}*/
+    // public final boolean forEach(IVisitor visitor);/*{{{*/
+    /**
+     * Visits the entries.
+     * The order is not defined. No iterator is created. The map must not be
+     * changed by the visitor.
+     * \param visitor Object called for each entry.
+     * \return \b true when all entries are visited. \b false when the
+     * visitor stops the iteration.
+     **/
+    public final boolean forEach(IVisitor visitor) {
+        if (m_hasFree && !visitor.visit(FREE, m_freeValue))
+            return false;
+
+        final int[] keys   = m_keys;
+        final int[] values = m_values;
+
+        for (int i = 0; i < keys.length; i++) {
+            if ((keys[i] != FREE) && !visitor.visit(keys[i], values[i]))
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // private int  _internal_find(int key);/*{{{*/
+    /**
+     * Finds the slot of a key.
+     * \return The slot or -1 when the key is not in the map.
+     **/
+    private int _internal_find(int key) {
+        int slot = _internal_slot(key);
+        return ((m_keys[slot] == key) ? slot : -1);
+    }/*}}}*/
+    // private int  _internal_slot(int key);/*{{{*/
+    /**
+     * Finds the slot of a key or the free slot where it would be put.
+     **/
+    private int _internal_slot(int key) {
+        final int[] keys = m_keys;
+        final int   mask = m_mask;
+        int slot = CStringTable._internal_hash(key) & mask;
+        int current;
+
+        while (((current = keys[slot]) != FREE) && (current != key))
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }/*}}}*/
+    // private void _internal_insert(int slot, int key, int value);/*{{{*/
+    /**
+     * Puts a new entry in a free slot found by #_internal_slot().
+     **/
+    private void _internal_insert(int slot, int key, int value) {
+        m_keys[slot]   = key;
+        m_values[slot] = value;
+
+        if (++m_count > m_limit)
+            _internal_grow(m_count);
+    }/*}}}*/
+    // private void _internal_shift(int slot);/*{{{*/
+    /**
+     * Removes the entry of a slot.
+     * The following entries of the probe sequence are moved back, so the
+     * table doesn't need deleted markers.
+     **/
+    private void _internal_shift(int slot) {
+        final int[] keys   = m_keys;
+        final int[] values = m_values;
+        final int   mask   = m_mask;
+        int gap = slot, next = (slot + 1) & mask, key;
+
+        while ((key = keys[next]) != FREE)
+        {
+            int home = CStringTable._internal_hash(key) & mask;
+
+            /* The entry can move if the gap is between its home and it. */
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap]   = key;
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[gap]   = FREE;
+        values[gap] = 0;
+        m_count--;
+    }/*}}}*/
+    // private void _internal_grow(int count);/*{{{*/
+    /**
+     * Rebuilds the table with room for a number of entries.
+     **/
+    private void _internal_grow(int count) {
+        int capacity = 8;
+        while ((capacity * 3 / 4) < count) capacity <<= 1;
+
+        final int[] keys   = m_keys;
+        final int[] values = m_values;
+
+        m_keys   = new int[capacity];
+        m_values = new int[capacity];
+        m_mask   = capacity - 1;
+        m_limit  = capacity * 3 / 4;
+        m_count  = 0;
+
+        if (keys == null) return;
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != FREE) {
+                int slot = _internal_slot(keys[i]);
+                m_keys[slot]   = keys[i];
+                m_values[slot] = values[i];
+                m_count++;
+            }
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Receives the entries of #forEach().
+     **/
+    public interface IVisitor
+    {
+        /**
+         * Receives one entry.
+         * \param key The key.
+         * \param value The value.
+         * \return \b true to continue. \b false stops the iteration.
+         **/
+        public boolean visit(int key, int value);
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private int[]   m_keys;         /**< Key by slot. #FREE in free slots.  */
+    private int[]   m_values;       /**< Value by slot.                     */
+    private int     m_count;        /**< Entries in the table.              */
+    private int     m_mask;         /**< Number of slots minus one.         */
+    private int     m_limit;        /**< Entries before growing.            */
+    private int     m_missing;      /**< Value of missing keys.             */
+    private boolean m_hasFree;      /**< The key #FREE is in the map.       */
+    private int     m_freeValue;    /**< Value of the key #FREE.            */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    /**
+     * Marks the free slots.
+     * This key is kept out of the table, in #m_hasFree and #m_freeValue.
+     **/
+    private static final int FREE = 0;
+    //@}
+}
+// vim:syntax=java.doxygen
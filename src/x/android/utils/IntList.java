@@ -0,0 +1,403 @@
+/**
+ * \file
+ * Defines the IntList class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.Arrays;
+
+/**
+ * \ingroup x_android_utils
+ * List of \b int values.
+ * Works like SFListT but keeps the values in a \c int array, so they are
+ * never boxed. Use it for identifiers, offsets and counters.
+ *
+ * As in SFListT, invalid indexes don't throw exceptions and negative
+ * indexes count from the end of the list: -1 is the last value. The values
+ * can be visited without creating an iterator:
+ * @code
+ * list.forEach(new IntList.IVisitor() {
+ *     public boolean visit(int index, int value) {
+ *         total += value;
+ *         return true;
+ *     }
+ * });
+ * @endcode
+ *//* --------------------------------------------------------------------- */
+public class IntList
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public IntList();/*{{{*/
+    /**
+     * Builds an empty list.
+     **/
+    public IntList() {
+        m_array = EMPTY;
+        m_count = 0;
+    }/*}}}*/
+    // public IntList(int capacity);/*{{{*/
+    /**
+     * Builds an empty list with an initial capacity.
+     * \param capacity Number of values the list holds without growing.
+     **/
+    public IntList(int capacity) {
+        m_array = ((capacity > 0) ? new int[capacity] : EMPTY);
+        m_count = 0;
+    }/*}}}*/
+    // public IntList(IntList other);/*{{{*/
+    /**
+     * Copy constructor.
+     * \param other The list to copy.
+     **/
+    public IntList(IntList other) {
+        m_array  = Arrays.copyOf(other.m_array, other.m_count);
+        m_count  = other.m_count;
+        m_growth = other.m_growth;
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int     size();/*{{{*/
+    /**
+     * Number of values in the list.
+     **/
+    public final int size() {
+        return m_count;
+    }/*}}}*/
+    // public final boolean isEmpty();/*{{{*/
+    /**
+     * Checks whether the list is empty.
+     **/
+    public final boolean isEmpty() {
+        return (m_count == 0);
+    }/*}}}*/
+    // public final int     capacity();/*{{{*/
+    /**
+     * Number of values the list holds without growing.
+     **/
+    public final int capacity() {
+        return m_array.length;
+    }/*}}}*/
+    // public final float   setGrowth(float factor);/*{{{*/
+    /**
+     * Sets how the capacity grows.
+     * \param factor Multiplier applied to the capacity when a value doesn't
+     * fit. The default is 1.5. Values less than or equal to 1 make the list
+     * grow only what is needed.
+     * \return The previous factor.
+     **/
+    public final float setGrowth(float factor) {
+        float previous = m_growth;
+        m_growth = factor;
+        return previous;
+    }/*}}}*/
+    //@}
+
+    /** \name ELEMENT ACCESS */ //@{
+    // public final int    get(int index);/*{{{*/
+    /**
+     * Gets a value.
+     * \param index Position of the value. Negative values count from the
+     * end of the list.
+     * \return The value. Zero when \a index is out of the list bounds.
+     **/
+    public final int get(int index) {
+        if (index < 0) index += m_count;
+        return (((index < 0) || (index >= m_count)) ? 0 : m_array[index]);
+    }/*}}}*/
+    // public final boolean set(int index, int value);/*{{{*/
+    /**
+     * Replaces a value.
+     * \param index Position of the value. Negative values count from the
+     * end of the list.
+     * \param value The new value.
+     * \return \b true when the value is replaced. \b false when \a index is
+     * out of the list bounds.
+     **/
+    public final boolean set(int index, int value) {
+        if (index < 0) index += m_count;
+        if ((index < 0) || (index >= m_count)) return false;
+
+        m_array[index] = value;
+        return true;
+    }/*}}}*/
+    // public final int     indexOf(int value);/*{{{*/
+    /**
+     * Finds the first position of a value.
+     * \param value The value.
+     * \return The position or -1 when the value is not in the list.
+     **/
+    public final int indexOf(int value) {
+        final int[] array = m_array;
+        final int limit = m_count;
+
+        for (int i = 0; i < limit; i++) {
+            if (array[i] == value)
+                return i;
+        }
+        return -1;
+    }/*}}}*/
+    // public final boolean contains(int value);/*{{{*/
+    /**
+     * Checks whether the list has a value.
+     **/
+    public final boolean contains(int value) {
+        return (indexOf(value) >= 0);
+    }/*}}}*/
+    //@}
+
+    /** \name ADDING */ //@{
+    // public final void    add(int value);/*{{{*/
+    /**
+     * Appends a value.
+     * \param value The value.
+     **/
+    public final void add(int value) {
+        if (m_count == m_array.length)
+            _internal_alloc(1);
+
+        m_array[m_count++] = value;
+    }/*}}}*/
+    // public final void    add(int[] values, int start, int count);/*{{{*/
+    /**
+     * Appends values from an array.
+     * \param values Source array. \b null adds nothing.
+     * \param start Index of the first value in \a values.
+     * \param count Number of values to add.
+     **/
+    public final void add(int[] values, int start, int count) {
+        if ((values == null) || (count <= 0)) return;
+
+        _internal_alloc(count);
+        System.arraycopy(values, start, m_array, m_count, count);
+        m_count += count;
+    }/*}}}*/
+    // public final void    addAll(IntList other);/*{{{*/
+    /**
+     * Appends all values of another list.
+     * \param other The other list. \b null adds nothing.
+     **/
+    public final void addAll(IntList other) {
+        if (other != null)
+            add(other.m_array, 0, other.m_count);
+    }/*}}}*/
+    // public final boolean insert(int index, int value);/*{{{*/
+    /**
+     * Inserts a value, shifting the following ones.
+     * \param index Position of the new value. Negative values count from
+     * the end of the list. When equal to #size() the value is appended.
+     * \param value The value.
+     * \return \b true when the value is inserted. \b false when \a index is
+     * out of the list bounds.
+     **/
+    public final boolean insert(int index, int value) {
+        if (index < 0) index += m_count;
+        if ((index < 0) || (index > m_count)) return false;
+
+        _internal_alloc(1);
+        if (index < m_count)
+            System.arraycopy(m_array, index, m_array, (index + 1), (m_count - index));
+
+        m_array[index] = value;
+        m_count++;
+        return true;
+    }/*}}}*/
+    //@}
+
+    /** \name REMOVING */ //@{
+    // public final boolean remove(int index);/*{{{*/
+    /**
+     * Removes a value, shifting the following ones.
+     * \param index Position of the value. Negative values count from the
+     * end of the list.
+     * \return \b true when the value is removed. \b false when \a index is
+     * out of the list bounds.
+     **/
+    public final boolean remove(int index) {
+        if (index < 0) index += m_count;
+        if ((index < 0) || (index >= m_count)) return false;
+
+        m_count--;
+        if (index < m_count)
+            System.arraycopy(m_array, (index + 1), m_array, index, (m_count - index));
+
+        return true;
+    }/*}}}*/
+    // public final boolean fastRemove(int index);/*{{{*/
+    /**
+     * Removes a value without keeping the order of the list.
+     * The last value is moved to the position of the removed one.
+     * \param index Position of the value. Negative values count from the
+     * end of the list.
+     * \return \b true when the value is removed. \b false when \a index is
+     * out of the list bounds.
+     **/
+    public final boolean fastRemove(int index) {
+        if (index < 0) index += m_count;
+        if ((index < 0) || (index >= m_count)) return false;
+
+        m_array[index] = m_array[--m_count];
+        return true;
+    }/*}}}*/
+    // public final boolean removeValue(int value);/*{{{*/
+    /**
+     * Removes the first occurrence of a value.
+     * \param value The value.
+     * \return \b true when the value is found and removed.
+     **/
+    public final boolean removeValue(int value) {
+        int index = indexOf(value);
+        return ((index >= 0) && remove(index));
+    }/*}}}*/
+    // public final void    clear();/*{{{*/
+    /**
+     * Removes all values.
+     * The capacity is kept.
+     **/
+    public final void clear() {
+        m_count = 0;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final boolean forEach(IVisitor visitor);/*{{{*/
+    /**
+     * Visits the values in order.
+     * No iterator is created. The list must not be changed by the visitor.
+     * \param visitor Object called for each value.
+     * \return \b true when all values are visited. \b false when the
+     * visitor stops the iteration.
+     **/
+    public final boolean forEach(IVisitor visitor) {
+        final int[] array = m_array;
+        final int limit = m_count;
+
+        for (int i = 0; i < limit; i++) {
+            if (!visitor.visit(i, array[i]))
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    // public final void    sort();/*{{{*/
+    /**
+     * Sorts the values in ascending order.
+     **/
+    public final void sort() {
+        Arrays.sort(m_array, 0, m_count);
+    }/*}}}*/
+    // public final int     binarySearch(int value);/*{{{*/
+    /**
+     * Finds a value in a sorted list.
+     * \param value The value.
+     * \return The position of the value. When not found, a negative value:
+     * <tt>-(insertion point) - 1</tt>, as in \c Arrays.binarySearch().
+     **/
+    public final int binarySearch(int value) {
+        return Arrays.binarySearch(m_array, 0, m_count, value);
+    }/*}}}*/
+    // public final int[]  toArray();/*{{{*/
+    /**
+     * Copies the values to a new array.
+     **/
+    public final int[] toArray() {
+        return Arrays.copyOf(m_array, m_count);
+    }/*}}}*/
+    // public final void    ensureCapacity(int capacity);/*{{{*/
+    /**
+     * Makes sure the list holds a number of values without growing.
+     * \param capacity The number of values.
+     **/
+    public final void ensureCapacity(int capacity) {
+        if (capacity > m_array.length)
+            m_array = Arrays.copyOf(m_array, capacity);
+    }/*}}}*/
+    // public final void    trim();/*{{{*/
+    /**
+     * Releases the capacity not used.
+     **/
+    public final void trim() {
+        if (m_count < m_array.length)
+            m_array = ((m_count == 0) ? EMPTY : Arrays.copyOf(m_array, m_count));
+    }/*}}}*/
+    //@}
+
+    /** \name OVERRIDES */ //@{
+    // public String toString();/*{{{*/
+    /**
+     * The values, between brackets and separated by commas.
+     **/
+    public String toString() {
+        StringBuilder sb = new StringBuilder(2 + m_count * 4);
+
+        sb.append('[');
+        for (int i = 0; i < m_count; i++) {
+            if (i > 0) sb.append(", ");
+            numbers.appendDecimal(sb, m_array[i]);
+        }
+        return sb.append(']').toString();
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // private void _internal_alloc(int count);/*{{{*/
+    /**
+     * Makes room for more values.
+     * \param count Number of values to be added.
+     **/
+    private void _internal_alloc(int count) {
+        final int needed   = m_count + count;
+        final int capacity = m_array.length;
+
+        if (needed <= capacity) return;
+
+        int size = needed;
+        if (m_growth > 1.0f)
+        {
+            long grown = Math.max(MIN_CAPACITY, (long)(capacity * m_growth));
+            if (grown > needed)
+                size = (int)Math.min(grown, (long)MAX_CAPACITY);
+        }
+        m_array = Arrays.copyOf(m_array, size);
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Receives the values of #forEach().
+     **/
+    public interface IVisitor
+    {
+        /**
+         * Receives one value.
+         * \param index Position of the value.
+         * \param value The value.
+         * \return \b true to continue. \b false stops the iteration.
+         **/
+        public boolean visit(int index, int value);
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    protected int[] m_array;            /**< The values.              */
+    protected int   m_count;            /**< Number of values.        */
+    protected float m_growth = 1.5f;    /**< Capacity growth factor.  */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    private static final int[] EMPTY = new int[0];                  /**< Empty array.      */
+    private static final int MIN_CAPACITY = 8;                      /**< First allocation. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;  /**< Largest array.    */
+    //@}
+}
+// vim:syntax=java.doxygen
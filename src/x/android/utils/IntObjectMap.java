@@ -0,0 +1,267 @@
+/**
+ * \file
+ * Defines the IntObjectMap class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.Arrays;
+
+/**
+ * \ingroup x_android_utils
+ * Map of \b int keys to objects.
+ * Keys and values are kept in two arrays, with open addressing and linear
+ * probing, as in CStringTable. Keys are not boxed and no entry object is
+ * created. The table is kept at most three quarters full.
+ *
+ * As in SFListT, \b null values are not allowed: they mark the free slots.
+ * Putting \b null removes the key. The entries can be visited without an
+ * iterator with #forEach().
+ * @tparam V Type of the values.
+ *//* --------------------------------------------------------------------- */
+public class IntObjectMap<V>
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public IntObjectMap();/*{{{*/
+    /**
+     * Builds an empty map.
+     **/
+    public IntObjectMap() {
+        this(0);
+    }/*}}}*/
+    // public IntObjectMap(int expected);/*{{{*/
+    /**
+     * Builds an empty map with room for a number of entries.
+     * \param expected Number of entries the map holds without growing.
+     **/
+    public IntObjectMap(int expected) {
+        _internal_grow(Math.max(expected, 4));
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int     size();/*{{{*/
+    /**
+     * Number of entries in the map.
+     **/
+    public final int size() {
+        return m_count;
+    }/*}}}*/
+    // public final boolean isEmpty();/*{{{*/
+    /**
+     * Checks whether the map is empty.
+     **/
+    public final boolean isEmpty() {
+        return (m_count == 0);
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final V       get(int key);/*{{{*/
+    /**
+     * Gets the value of a key.
+     * \param key The key.
+     * \return The value or \b null when the key is not in the map.
+     **/
+    public final V get(int key) {
+        return (V)m_values[_internal_slot(key)];
+    }/*}}}*/
+    // public final boolean containsKey(int key);/*{{{*/
+    /**
+     * Checks whether a key is in the map.
+     **/
+    public final boolean containsKey(int key) {
+        return (m_values[_internal_slot(key)] != null);
+    }/*}}}*/
+    // public final V       put(int key, V value);/*{{{*/
+    /**
+     * Sets the value of a key.
+     * \param key The key.
+     * \param value The value. \b null removes the key.
+     * \return The previous value of the key or \b null when the key was not
+     * in the map.
+     **/
+    public final V put(int key, V value) {
+        if (value == null) return remove(key);
+
+        int slot = _internal_slot(key);
+        V previous = (V)m_values[slot];
+
+        m_values[slot] = value;
+        if (previous == null)
+        {
+            m_keys[slot] = key;
+            if (++m_count > m_limit)
+                _internal_grow(m_count);
+        }
+        return previous;
+    }/*}}}*/
+    // public final V       remove(int key);/*{{{*/
+    /**
+     * Removes a key.
+     * \param key The key.
+     * \return The value removed or \b null when the key was not in the map.
+     **/
+    public final V remove(int key) {
+        int slot = _internal_slot(key);
+        V result = (V)m_values[slot];
+
+        if (result != null)
+            _internal_shift(slot);
+
+        return result;
+    }/*}}}*/
+    // public final void    clear();/*{{{*/
+    /**
+     * Removes all entries.
+     * The capacity is kept.
+     **/
+    public final void clear() {
+        Arrays.fill(m_values, null);
+        m_count = 0;
+    }/*}}}*/
+    // public final int[]   keys();/*{{{*/
+    /**
+     * Copies the keys to an array.
+     * The order is not defined.
+     **/
+    public final int[] keys() {
+        int[] result = new int[m_count];
+        int   index  = 0;
+
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null)
+                result[index++] = m_keys[i];
+        }
+        return result;
+    }/*}}}*/
+    // public final boolean forEach(IVisitor<? super V> visitor);/*{{{*/
+    /**
+     * Visits the entries.
+     * The order is not defined. No iterator is created. The map must not be
+     * changed by the visitor.
+     * \param visitor Object called for each entry.
+     * \return \b true when all entries are visited. \b false when the
+     * visitor stops the iteration.
+     **/
+    public final boolean forEach(IVisitor<? super V> visitor) {
+        final int[]    keys   = m_keys;
+        final Object[] values = m_values;
+
+        for (int i = 0; i < values.length; i++) {
+            if ((values[i] != null) && !visitor.visit(keys[i], (V)values[i]))
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // private int  _internal_slot(int key);/*{{{*/
+    /**
+     * Finds the slot of a key or the free slot where it would be put.
+     **/
+    private int _internal_slot(int key) {
+        final int[]    keys   = m_keys;
+        final Object[] values = m_values;
+        final int      mask   = m_mask;
+        int slot = CStringTable._internal_hash(key) & mask;
+
+        while ((values[slot] != null) && (keys[slot] != key))
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }/*}}}*/
+    // private void _internal_shift(int slot);/*{{{*/
+    /**
+     * Removes the entry of a slot.
+     * The following entries of the probe sequence are moved back, so the
+     * table doesn't need deleted markers.
+     **/
+    private void _internal_shift(int slot) {
+        final int[]    keys   = m_keys;
+        final Object[] values = m_values;
+        final int      mask   = m_mask;
+        int gap = slot, next = (slot + 1) & mask;
+
+        while (values[next] != null)
+        {
+            int home = CStringTable._internal_hash(keys[next]) & mask;
+
+            /* The entry can move if the gap is between its home and it. */
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap]   = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        values[gap] = null;
+        m_count--;
+    }/*}}}*/
+    // private void _internal_grow(int count);/*{{{*/
+    /**
+     * Rebuilds the table with room for a number of entries.
+     **/
+    private void _internal_grow(int count) {
+        int capacity = 8;
+        while ((capacity * 3 / 4) < count) capacity <<= 1;
+
+        final int[]    keys   = m_keys;
+        final Object[] values = m_values;
+
+        m_keys   = new int[capacity];
+        m_values = new Object[capacity];
+        m_mask   = capacity - 1;
+        m_limit  = capacity * 3 / 4;
+
+        if (values == null) return;
+
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] != null) {
+                int slot = _internal_slot(keys[i]);
+                m_keys[slot]   = keys[i];
+                m_values[slot] = values[i];
+            }
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Receives the entries of #forEach().
+     * @tparam E Type of the values.
+     **/
+    public interface IVisitor<E>
+    {
+        /**
+         * Receives one entry.
+         * \param key The key.
+         * \param value The value. Never \b null.
+         * \return \b true to continue. \b false stops the iteration.
+         **/
+        public boolean visit(int key, E value);
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private int[]    m_keys;        /**< Key by slot.                       */
+    private Object[] m_values;      /**< Value by slot. \b null when free.  */
+    private int      m_count;       /**< Entries in the table.              */
+    private int      m_mask;        /**< Number of slots minus one.         */
+    private int      m_limit;       /**< Entries before growing.            */
+    //@}
+}
+// vim:syntax=java.doxygen
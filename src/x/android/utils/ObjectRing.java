@@ -0,0 +1,373 @@
+/**
+ * \file
+ * Defines the ObjectRing class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import x.android.defs.ERROR;
+
+/**
+ * \ingroup x_android_utils
+ * Lock-free ring of objects, with a single consumer.
+ * Hands messages from producer threads to a consumer thread without locks
+ * and without the main looper. The number of producers is selected in the
+ * constructor:
+ * - #MODE_SPSC: one producer. Reserving slots needs no atomic operation.
+ * - #MODE_MPSC: several producers. Each one reserves its slots with a
+ *   single compare-and-set.
+ * .
+ * Only one thread can read at the same time. As in SFListT, \b null
+ * elements are not allowed: an empty slot tells the consumer that the
+ * element was not written yet.
+ *
+ * The consumer can take the elements one by one with #poll() or in
+ * batches with #drain(). A batch frees its slots for the producers once,
+ * at the end.
+ * @code
+ * ObjectRing<msg_t> ring = new ObjectRing<msg_t>(256, ObjectRing.MODE_MPSC,
+ *                                               RingBuffer.WAIT_BLOCK);
+ * // Consumer thread.
+ * while (ring.drain(handler, 64, thread_t.INFINITE) >= 0) ;
+ * @endcode
+ * @tparam T Type of the elements.
+ *//* --------------------------------------------------------------------- */
+public class ObjectRing<T> extends RingBuffer
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public ObjectRing(int capacity);/*{{{*/
+    /**
+     * Builds a ring for one producer that parks waiting threads.
+     * \param capacity Number of elements. Rounded up to a power of two.
+     **/
+    public ObjectRing(int capacity) {
+        this(capacity, MODE_SPSC, WAIT_BLOCK);
+    }/*}}}*/
+    // public ObjectRing(int capacity, int mode, int wait);/*{{{*/
+    /**
+     * Builds a ring.
+     * \param capacity Number of elements. Rounded up to a power of two.
+     * \param mode #MODE_SPSC or #MODE_MPSC. Invalid values select
+     * #MODE_MPSC.
+     * \param wait #WAIT_SPIN, #WAIT_YIELD or #WAIT_BLOCK.
+     **/
+    public ObjectRing(int capacity, int mode, int wait) {
+        super(capacity, wait, (mode != MODE_SPSC));
+        m_slots = new AtomicReferenceArray<Object>(m_capacity);
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int getMode();/*{{{*/
+    /**
+     * Number of producers.
+     * \return #MODE_SPSC or #MODE_MPSC.
+     **/
+    public final int getMode() {
+        return (m_shared ? MODE_MPSC : MODE_SPSC);
+    }/*}}}*/
+    //@}
+
+    /** \name WRITING */ //@{
+    // public final int offer(T element);/*{{{*/
+    /**
+     * Adds an element, without waiting.
+     * \param element The element.
+     * \return \c ERROR.SUCCESS. \c ERROR.FULL when there is no room. \c
+     * ERROR.PARM when \a element is \b null. \c ERROR.CLOSED when the ring
+     * was closed.
+     **/
+    public final int offer(T element) {
+        if (element == null) return ERROR.PARM;
+        if (m_closed) return ERROR.CLOSED;
+
+        final long tail = _internal_claim(1);
+        if (tail < 0L) return ERROR.FULL;
+
+        _internal_store((int)tail & m_mask, element);
+        _internal_wake(true);
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // public final int offer(T element, long interval);/*{{{*/
+    /**
+     * Adds an element, waiting for room when needed.
+     * \param element The element.
+     * \param interval Maximum interval to wait, in milliseconds.
+     * thread_t#INFINITE waits until there is room.
+     * \return \c ERROR.SUCCESS. \c ERROR.EXPIRED when the interval elapses.
+     * \c ERROR.ABORTED when the thread is interrupted. \c ERROR.PARM when an
+     * argument is invalid. \c ERROR.CLOSED when the ring was closed.
+     **/
+    public final int offer(T element, long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        final long deadline = _internal_deadline(interval);
+        int result;
+
+        while ((result = offer(element)) == ERROR.FULL)
+        {
+            result = _internal_await(false, interval, deadline);
+            if (result != ERROR.SUCCESS) break;
+        }
+        return result;
+    }/*}}}*/
+    // public final int offer(T[] elements, int offset, int count);/*{{{*/
+    /**
+     * Adds several elements, without waiting.
+     * The slots are reserved at once, so the elements are kept together
+     * even with several producers.
+     * \param elements Array with the elements.
+     * \param offset Index of the first element in \a elements.
+     * \param count Number of elements to add.
+     * \return The number of elements added, zero when the ring is full. \c
+     * ERROR.PARM when the arguments are invalid or an element is \b null.
+     * \c ERROR.CLOSED when the ring was closed.
+     **/
+    public final int offer(T[] elements, int offset, int count) {
+        if ((elements == null) || (offset < 0) || (count < 0) || (count > elements.length - offset))
+            return ERROR.PARM;
+
+        for (int i = offset; i < offset + count; i++) {
+            if (elements[i] == null) return ERROR.PARM;
+        }
+
+        if (m_closed) return ERROR.CLOSED;
+        if (count == 0) return 0;
+
+        int  amount = count;
+        long start;
+
+        while ((start = _internal_claim(amount)) < 0L)
+        {
+            amount = Math.min(count, m_capacity - (int)(m_tail.get() - m_head.get()));
+            if (amount <= 0) return 0;
+        }
+
+        for (int i = 0; i < amount; i++)
+            _internal_store((int)(start + i) & m_mask, elements[offset + i]);
+
+        _internal_wake(true);
+        return amount;
+    }/*}}}*/
+    //@}
+
+    /** \name READING */ //@{
+    // public final T   peek();/*{{{*/
+    /**
+     * Gets the next element without removing it.
+     * \return The element or \b null when the ring is empty.
+     **/
+    public final T peek() {
+        return (T)m_slots.get((int)m_head.get() & m_mask);
+    }/*}}}*/
+    // public final T   poll();/*{{{*/
+    /**
+     * Removes the next element, without waiting.
+     * \return The element or \b null when the ring is empty.
+     **/
+    public final T poll() {
+        final long head = m_head.get();
+        final int  slot = (int)head & m_mask;
+        final Object element = m_slots.get(slot);
+
+        if (element == null) return null;
+
+        m_slots.lazySet(slot, null);
+        _internal_publish(m_head, head + 1L);
+        _internal_wake(false);
+        return (T)element;
+    }/*}}}*/
+    // public final T   poll(long interval);/*{{{*/
+    /**
+     * Removes the next element, waiting when the ring is empty.
+     * \param interval Maximum interval to wait, in milliseconds.
+     * thread_t#INFINITE waits until there is an element.
+     * \return The element. \b null when the interval elapses, the thread is
+     * interrupted, the ring is empty and closed or \a interval is invalid.
+     **/
+    public final T poll(long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return null;
+
+        final long deadline = _internal_deadline(interval);
+        T element;
+
+        while ((element = poll()) == null)
+        {
+            if (m_closed && ((element = poll()) == null))
+                break;
+
+            if (_internal_await(true, interval, deadline) != ERROR.SUCCESS)
+                break;
+        }
+        return element;
+    }/*}}}*/
+    // public final int drain(SFListT.IVisitor<? super T> visitor, int max);/*{{{*/
+    /**
+     * Removes a batch of elements, without waiting.
+     * The slots are freed for the producers once, after the batch.
+     * \param visitor Object called for each element removed. The index is
+     * the position in the batch. Returning \b false ends the batch; the
+     * element passed is removed anyway.
+     * \param max Maximum number of elements to remove.
+     * \return The number of elements removed, zero when the ring is empty.
+     * \c ERROR.EOF when the ring is empty and closed. \c ERROR.PARM when the
+     * arguments are invalid.
+     **/
+    public final int drain(SFListT.IVisitor<? super T> visitor, int max) {
+        if ((visitor == null) || (max < 0))
+            return ERROR.PARM;
+
+        final AtomicReferenceArray<Object> slots = m_slots;
+        final boolean closed = m_closed;
+        final long head = m_head.get();
+        int count = 0;
+
+        try {
+            while (count < max)
+            {
+                final int slot = (int)(head + count) & m_mask;
+                final Object element = slots.get(slot);
+
+                if (element == null) break;
+
+                slots.lazySet(slot, null);
+                if (!visitor.visit(count++, (T)element))
+                    break;
+            }
+        }
+        finally {
+            if (count > 0) {
+                _internal_publish(m_head, head + count);
+                _internal_wake(false);
+            }
+        }
+        return (((count == 0) && closed && (max > 0)) ? ERROR.EOF : count);
+    }/*}}}*/
+    // public final int drain(SFListT.IVisitor<? super T> visitor, int max, long interval);/*{{{*/
+    /**
+     * Removes a batch of elements, waiting when the ring is empty.
+     * Returns after the first batch, doesn't wait for \a max elements.
+     * \param visitor Object called for each element removed.
+     * \param max Maximum number of elements to remove.
+     * \param interval Maximum interval to wait, in milliseconds.
+     * thread_t#INFINITE waits until there are elements.
+     * \return The number of elements removed. \c ERROR.EXPIRED when the
+     * interval elapses. \c ERROR.ABORTED when the thread is interrupted. \c
+     * ERROR.EOF when the ring is empty and closed. \c ERROR.PARM when the
+     * arguments are invalid.
+     **/
+    public final int drain(SFListT.IVisitor<? super T> visitor, int max, long interval) {
+        if ((interval < 0L) && (interval != thread_t.INFINITE))
+            return ERROR.PARM;
+
+        final long deadline = _internal_deadline(interval);
+        int result;
+
+        while (true)
+        {
+            result = drain(visitor, max);
+            if ((result != 0) || (max == 0)) return result;
+
+            result = _internal_await(true, interval, deadline);
+            if (result != ERROR.SUCCESS) return result;
+        }
+    }/*}}}*/
+    // public final int drain(SFListT<? super T> list, int max);/*{{{*/
+    /**
+     * Moves a batch of elements to a list, without waiting.
+     * \param list The list where the elements are added.
+     * \param max Maximum number of elements to move.
+     * \return The number of elements moved, zero when the ring is empty. \c
+     * ERROR.EOF when the ring is empty and closed. \c ERROR.PARM when the
+     * arguments are invalid.
+     **/
+    public final int drain(final SFListT<? super T> list, int max) {
+        if (list == null) return ERROR.PARM;
+
+        return drain(new SFListT.IVisitor<T>() {
+            public boolean visit(int index, T element) {
+                list.add(element);
+                return true;
+            }
+        }, max);
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // boolean _internal_ready(boolean reader);/*{{{*/
+    /**
+     * Checks for an element or room.
+     **/
+    boolean _internal_ready(boolean reader) {
+        if (m_closed) return true;
+
+        if (reader)
+            return (m_slots.get((int)m_head.get() & m_mask) != null);
+        else
+            return ((m_tail.get() - m_head.get()) < m_capacity);
+    }/*}}}*/
+    // private long _internal_claim(int count);/*{{{*/
+    /**
+     * Reserves slots for the producer.
+     * \param count Number of slots. All of them are reserved or none.
+     * \return The sequence of the first slot. -1 when there is no room.
+     **/
+    private long _internal_claim(int count) {
+        long tail;
+
+        if (!m_shared)
+        {
+            tail = m_tail.get();
+            if (((m_capacity - (int)(tail - m_tail.cache)) < count) &&
+                ((m_capacity - (int)(tail - (m_tail.cache = m_head.get()))) < count))
+                return -1L;
+
+            m_tail.lazySet(tail + count);
+            return tail;
+        }
+
+        while (true)
+        {
+            tail = m_tail.get();
+            if ((m_capacity - (int)(tail - m_head.get())) < count)
+                return -1L;
+            if (m_tail.compareAndSet(tail, tail + count))
+                return tail;
+        }
+    }/*}}}*/
+    // private void _internal_store(int slot, Object element);/*{{{*/
+    /**
+     * Writes an element in a reserved slot.
+     * The element is seen by the consumer after this.
+     **/
+    private void _internal_store(int slot, Object element) {
+        if (m_wait == WAIT_BLOCK)
+            m_slots.set(slot, element);
+        else
+            m_slots.lazySet(slot, element);
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private final AtomicReferenceArray<Object> m_slots; /**< Elements.     */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    public static final int MODE_SPSC = 0;          /**< One producer.          */
+    public static final int MODE_MPSC = 1;          /**< Several producers.     */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,300 @@
+/**
+ * \file
+ * Defines the PeriodicTask class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import x.android.defs.ERROR;
+
+/**
+ * \ingroup x_android_utils
+ * A thread that executes a job periodically.
+ * Instead of a loop calling thread_t#interval() in \c execute(), which
+ * drifts by the time spent in each iteration, the job is written in #tick()
+ * and this class calls it on a schedule kept in nanoseconds:
+ * - #FIXED_RATE: each call is scheduled one period after the previous
+ *   schedule, so the time spent in #tick() doesn't accumulate. When a call
+ *   ends after the next schedule, the periods lost are counted as overruns
+ *   and passed to #overrun(). By default the lost periods are skipped and
+ *   the next call keeps the original cadence. With #setSkipOverruns() set to
+ *   \b false the lost calls are executed without waiting.
+ * - #FIXED_DELAY: each call is scheduled one period after the end of the
+ *   previous one.
+ * .
+ * The thread is started, aborted and joined as any thread_t. #abort() wakes
+ * the thread immediately. Statistics about the execution time of #tick()
+ * and the lateness of each call are available while the task is running.
+ * @code
+ * class Poller extends PeriodicTask {
+ *     Poller() { super(50, FIXED_RATE); }
+ *     protected int tick() {
+ *         return device.poll();
+ *     }
+ * }
+ * @endcode
+ *//* --------------------------------------------------------------------- */
+public abstract class PeriodicTask extends thread_t
+{
+    /** \name CONSTRUCTORS */ //@{
+    // protected PeriodicTask(long period, int mode);/*{{{*/
+    /**
+     * Builds the task.
+     * \param period Period between calls, in milliseconds. Values less than
+     * 1 are changed to 1.
+     * \param mode #FIXED_RATE or #FIXED_DELAY.
+     **/
+    protected PeriodicTask(long period, int mode) {
+        m_period = Math.max(period, 1L) * 1000000L;
+        m_mode   = ((mode == FIXED_DELAY) ? FIXED_DELAY : FIXED_RATE);
+        m_skip   = true;
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final long getPeriodNanos();/*{{{*/
+    /**
+     * Period between calls, in nanoseconds.
+     * The constructor takes the period in milliseconds. The suffix makes
+     * the unit explicit.
+     **/
+    public final long getPeriodNanos() {
+        return m_period;
+    }/*}}}*/
+    // public final int  getMode();/*{{{*/
+    /**
+     * Scheduling mode.
+     * \return #FIXED_RATE or #FIXED_DELAY.
+     **/
+    public final int getMode() {
+        return m_mode;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final int  setPeriodNanos(long nanos);/*{{{*/
+    /**
+     * Changes the period between calls.
+     * Can be changed while the task runs. The new period is used after the
+     * current call.
+     * \param nanos The period, in nanoseconds.
+     * \return \c ERROR.SUCCESS or \c ERROR.PARM when \a nanos is less than 1.
+     **/
+    public final int setPeriodNanos(long nanos) {
+        if (nanos < 1L) return ERROR.PARM;
+
+        m_period = nanos;
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // public final int  setInitialDelay(long delay);/*{{{*/
+    /**
+     * Sets the time between the start of the thread and the first call.
+     * \param delay The delay, in milliseconds. The default is zero.
+     * \return \c ERROR.SUCCESS. \c ERROR.PARM when \a delay is negative. \c
+     * ERROR.RUNNING when the thread is active.
+     **/
+    public final int setInitialDelay(long delay) {
+        if (delay < 0L) return ERROR.PARM;
+        if (isActive()) return ERROR.RUNNING;
+
+        m_delay = delay * 1000000L;
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // public final void setSkipOverruns(boolean skip);/*{{{*/
+    /**
+     * Selects what happens with periods lost in the #FIXED_RATE mode.
+     * \param skip \b true skips the calls of the lost periods. \b false
+     * executes them without waiting, until the schedule is reached.
+     **/
+    public final void setSkipOverruns(boolean skip) {
+        m_skip = skip;
+    }/*}}}*/
+    //@}
+
+    /** \name STATISTICS */ //@{
+    // public final long runs();/*{{{*/
+    /**
+     * Number of calls to #tick() since the thread started.
+     **/
+    public final long runs() {
+        return m_runs;
+    }/*}}}*/
+    // public final long overruns();/*{{{*/
+    /**
+     * Number of periods lost since the thread started.
+     * Only counted in the #FIXED_RATE mode.
+     **/
+    public final long overruns() {
+        return m_overruns;
+    }/*}}}*/
+    // public final long lastTime();/*{{{*/
+    /**
+     * Time spent in the last call to #tick(), in nanoseconds.
+     **/
+    public final long lastTime() {
+        return m_last;
+    }/*}}}*/
+    // public final long minTime();/*{{{*/
+    /**
+     * Shortest time spent in #tick(), in nanoseconds.
+     * Zero before the first call.
+     **/
+    public final long minTime() {
+        return ((m_runs == 0L) ? 0L : m_min);
+    }/*}}}*/
+    // public final long maxTime();/*{{{*/
+    /**
+     * Longest time spent in #tick(), in nanoseconds.
+     **/
+    public final long maxTime() {
+        return m_max;
+    }/*}}}*/
+    // public final long averageTime();/*{{{*/
+    /**
+     * Average time spent in #tick(), in nanoseconds.
+     **/
+    public final long averageTime() {
+        final long runs = m_runs;
+        return ((runs == 0L) ? 0L : (m_total / runs));
+    }/*}}}*/
+    // public final long maxLateness();/*{{{*/
+    /**
+     * Largest delay between the schedule of a call and its start, in
+     * nanoseconds.
+     * Shows how precise the schedule is under load.
+     **/
+    public final long maxLateness() {
+        return m_lateness;
+    }/*}}}*/
+    //@}
+
+    /** \name OVERRIDABLE */ //@{
+    // protected abstract int tick();/*{{{*/
+    /**
+     * The periodic job.
+     * Called in the thread of this task, on each period. Must return as soon
+     * as possible when #aborted() is \b true.
+     * \return \c ERROR.SUCCESS to keep running. Any other value ends the
+     * thread and becomes its exit code.
+     **/
+    protected abstract int tick();
+    /*}}}*/
+    // protected void overrun(long missed);/*{{{*/
+    /**
+     * Called when a call to #tick() ends after the next schedule.
+     * Only in the #FIXED_RATE mode. This implementation does nothing.
+     * \param missed Number of periods lost.
+     **/
+    protected void overrun(long missed) {
+    }/*}}}*/
+    // protected final int execute();/*{{{*/
+    /**
+     * Calls #tick() on the schedule until the thread is aborted.
+     * \return The value returned by #tick() when it is not \c
+     * ERROR.SUCCESS. \c ERROR.ABORTED when the thread is aborted.
+     **/
+    protected final int execute() {
+        _internal_reset();
+
+        long next    = System.nanoTime() + m_delay;
+        long counted = next - m_period;     /* Last schedule counted lost. */
+        long begin, end, elapsed, period;
+        int  result;
+
+        while (_internal_waitUntil(next) == ERROR.SUCCESS)
+        {
+            begin = System.nanoTime();
+            if ((begin - next) > m_lateness)
+                m_lateness = begin - next;
+
+            result  = tick();
+            end     = System.nanoTime();
+            elapsed = end - begin;
+
+            m_last   = elapsed;
+            m_total += elapsed;
+            if (elapsed < m_min) m_min = elapsed;
+            if (elapsed > m_max) m_max = elapsed;
+            m_runs++;
+
+            if (result != ERROR.SUCCESS) return result;
+
+            period = m_period;
+            if (m_mode == FIXED_DELAY) {
+                next = end + period;
+                continue;
+            }
+
+            /* Values of System.nanoTime() are compared by their difference,
+             * which is right even when the clock wraps around. */
+            next += period;
+            if ((end - next) > 0L)
+            {
+                /* Schedules already passed, counting 'next' itself. When
+                 * catching up, the ones counted before are not counted
+                 * again. */
+                long first = counted + period;
+                if ((next - first) > 0L) first = next;
+
+                if ((end - first) > 0L)
+                {
+                    long missed = (end - first) / period + 1L;
+
+                    counted     = first + (missed - 1L) * period;
+                    m_overruns += missed;
+                    overrun(missed);
+                }
+
+                if (m_skip) next = counted + period;
+            }
+        }
+        return ERROR.ABORTED;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // private void _internal_reset();/*{{{*/
+    /**
+     * Clears the statistics.
+     **/
+    private void _internal_reset() {
+        m_runs     = 0L;
+        m_overruns = 0L;
+        m_last     = 0L;
+        m_total    = 0L;
+        m_min      = Long.MAX_VALUE;
+        m_max      = 0L;
+        m_lateness = 0L;
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private volatile long    m_period;      /**< Period in nanoseconds.     */
+    private final int        m_mode;        /**< Scheduling mode.           */
+    private volatile boolean m_skip;        /**< Skip lost periods.         */
+    private long             m_delay;       /**< First call delay, in ns.   */
+    private volatile long    m_runs;        /**< Calls to tick().           */
+    private volatile long    m_overruns;    /**< Periods lost.              */
+    private volatile long    m_last;        /**< Last tick() time.          */
+    private volatile long    m_total;       /**< Sum of tick() times.       */
+    private volatile long    m_min;         /**< Shortest tick() time.      */
+    private volatile long    m_max;         /**< Longest tick() time.       */
+    private volatile long    m_lateness;    /**< Largest start delay.       */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    public static final int FIXED_RATE  = 0;    /**< Period between schedules.  */
+    public static final int FIXED_DELAY = 1;    /**< Period after each call.    */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,287 @@
+/**
+ * \file
+ * Defines the RingBuffer class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import x.android.defs.ERROR;
+
+/**
+ * \ingroup x_android_utils
+ * Base of the lock-free ring buffers, ByteRing and ObjectRing.
+ * A ring buffer hands data from producer threads to a single consumer
+ * thread without locks. It has a fixed capacity, always a power of two.
+ * The position of the producers (tail) and of the consumer (head) are
+ * sequences that only grow, each kept in its own cache line, so the
+ * threads don't invalidate each other's cache when updating them.
+ *
+ * Operations without an interval never wait. The operations that accept an
+ * interval wait for data or for room, with the strategy selected in the
+ * constructor:
+ * - #WAIT_SPIN: busy loop. Lowest latency, but keeps the processor busy.
+ *   Only fits when the threads have dedicated processors.
+ * - #WAIT_YIELD: a short busy loop, then \c Thread.yield() between checks.
+ * - #WAIT_BLOCK: a short busy loop, then the thread is parked until the
+ *   other side wakes it. Uses no processor while waiting. The default.
+ * .
+ * The ring can be closed with #close(). After that, writing fails with \c
+ * ERROR.CLOSED and the consumer reads the remaining data, then gets \c
+ * ERROR.EOF. Waiting threads are released.
+ *//* --------------------------------------------------------------------- */
+public abstract class RingBuffer
+{
+    /** \name CONSTRUCTOR */ //@{
+    // RingBuffer(int capacity, int wait, boolean shared);/*{{{*/
+    /**
+     * Builds the ring.
+     * \param capacity Number of elements. Rounded up to a power of two,
+     * between 2 and #MAX_CAPACITY.
+     * \param wait #WAIT_SPIN, #WAIT_YIELD or #WAIT_BLOCK. Invalid values
+     * select #WAIT_BLOCK.
+     * \param shared \b true when several producers can write at the same
+     * time.
+     **/
+    RingBuffer(int capacity, int wait, boolean shared) {
+        int size = 2;
+        while ((size < capacity) && (size < MAX_CAPACITY)) size <<= 1;
+
+        m_capacity = size;
+        m_mask     = size - 1;
+        m_wait     = (((wait == WAIT_SPIN) || (wait == WAIT_YIELD)) ? wait : WAIT_BLOCK);
+        m_shared   = shared;
+        m_head     = new Sequence();
+        m_tail     = new Sequence();
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final int     capacity();/*{{{*/
+    /**
+     * Number of elements the ring can hold.
+     **/
+    public final int capacity() {
+        return m_capacity;
+    }/*}}}*/
+    // public final int     size();/*{{{*/
+    /**
+     * Number of elements in the ring.
+     * Only a hint while other threads are using the ring.
+     **/
+    public final int size() {
+        final long head = m_head.get();
+        final long size = m_tail.get() - head;
+
+        return (int)Math.max(0L, Math.min(size, (long)m_capacity));
+    }/*}}}*/
+    // public final boolean isEmpty();/*{{{*/
+    /**
+     * Checks whether the ring is empty.
+     * Only a hint while other threads are using the ring.
+     **/
+    public final boolean isEmpty() {
+        return (size() == 0);
+    }/*}}}*/
+    // public final boolean isClosed();/*{{{*/
+    /**
+     * Checks whether #close() was called.
+     **/
+    public final boolean isClosed() {
+        return m_closed;
+    }/*}}}*/
+    // public final int     getWaitStrategy();/*{{{*/
+    /**
+     * How the threads wait for data or for room.
+     * \return #WAIT_SPIN, #WAIT_YIELD or #WAIT_BLOCK.
+     **/
+    public final int getWaitStrategy() {
+        return m_wait;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final void close();/*{{{*/
+    /**
+     * Closes the ring.
+     * Must be called by the producer after its last write, or by the
+     * consumer to stop the producers. Threads waiting in the ring are
+     * released.
+     **/
+    public final void close() {
+        m_closed = true;
+        LockSupport.unpark(m_reader);
+        LockSupport.unpark(m_writer);
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // abstract boolean _internal_ready(boolean reader);/*{{{*/
+    /**
+     * Checks whether a waiting thread can go on.
+     * \param reader \b true for the consumer: there is data. \b false for
+     * the producers: there is room.
+     * \return \b true also when the ring is closed.
+     **/
+    abstract boolean _internal_ready(boolean reader);
+    /*}}}*/
+    // final int  _internal_await(boolean reader, long interval, long deadline);/*{{{*/
+    /**
+     * Waits until #_internal_ready() is \b true.
+     * \param reader \b true when called by the consumer.
+     * \param interval Interval, in milliseconds, or thread_t#INFINITE.
+     * \param deadline Value of \c System.nanoTime() when \a interval ends.
+     * \return \c ERROR.SUCCESS when ready. \c ERROR.EXPIRED when the
+     * interval elapses. \c ERROR.ABORTED when the thread is interrupted.
+     **/
+    final int _internal_await(boolean reader, long interval, long deadline) {
+        final Thread current = Thread.currentThread();
+        boolean registered = false;
+        long remaining = 0L;
+        int round = 0;
+
+        try {
+            while (!_internal_ready(reader))
+            {
+                if ((interval != thread_t.INFINITE) &&
+                    ((remaining = deadline - System.nanoTime()) <= 0L))
+                    return ERROR.EXPIRED;
+
+                if (current.isInterrupted())
+                    return ERROR.ABORTED;
+
+                if (round < SPIN_ROUNDS) {
+                    round++;
+                    continue;
+                }
+
+                if (m_wait == WAIT_SPIN)
+                    continue;
+                else if (m_wait == WAIT_YIELD)
+                    Thread.yield();
+                else if (!reader && m_shared)
+                {
+                    /* Several producers can wait for room. They are not
+                     * registered, so they check the ring from time to time. */
+                    LockSupport.parkNanos(this, ((interval == thread_t.INFINITE) ?
+                                                 PARK_SLICE : Math.min(remaining, PARK_SLICE)));
+                }
+                else if ((reader ? m_reader : m_writer) != current)
+                {
+                    /* Registers and checks once more before parking, so a
+                     * wake up done between the check and the park isn't
+                     * lost. The other side clears the register when it
+                     * wakes the thread, so this is done before each park. */
+                    if (reader) m_reader = current;
+                    else        m_writer = current;
+                    registered = true;
+                }
+                else if (interval == thread_t.INFINITE)
+                    LockSupport.park(this);
+                else
+                    LockSupport.parkNanos(this, remaining);
+            }
+        }
+        finally {
+            if (registered) {
+                if (reader) m_reader = null;
+                else        m_writer = null;
+            }
+        }
+        return ERROR.SUCCESS;
+    }/*}}}*/
+    // final long _internal_deadline(long interval);/*{{{*/
+    /**
+     * Computes the end of an interval.
+     * \param interval Interval, in milliseconds.
+     * \return Value of \c System.nanoTime() when the interval ends.
+     **/
+    final long _internal_deadline(long interval) {
+        return ((interval == thread_t.INFINITE) ? 0L : System.nanoTime() + interval * 1000000L);
+    }/*}}}*/
+    // final void _internal_publish(AtomicLong sequence, long value);/*{{{*/
+    /**
+     * Updates a sequence.
+     * In the #WAIT_BLOCK mode the write is a full barrier, so the thread
+     * can check the waiting thread just after it. In other modes it only
+     * keeps the order of the previous writes.
+     **/
+    final void _internal_publish(AtomicLong sequence, long value) {
+        if (m_wait == WAIT_BLOCK)
+            sequence.set(value);
+        else
+            sequence.lazySet(value);
+    }/*}}}*/
+    // final void _internal_wake(boolean reader);/*{{{*/
+    /**
+     * Wakes the thread waiting in the other side, if any.
+     * The register is cleared, so the thread is woken only once until it
+     * waits again.
+     * \param reader \b true to wake the consumer. \b false to wake the
+     * producer.
+     **/
+    final void _internal_wake(boolean reader) {
+        if (m_wait != WAIT_BLOCK) return;
+
+        final Thread waiting = (reader ? m_reader : m_writer);
+        if (waiting != null)
+        {
+            if (reader) m_reader = null;
+            else        m_writer = null;
+            LockSupport.unpark(waiting);
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * A sequence padded to fill a cache line.
+     * The fields of a subclass are placed after the fields of its parent,
+     * so the padding keeps the next object away from the value. The \c
+     * cache field is only used by the thread that owns the sequence, to
+     * keep the last value read of the other sequence. The class is never
+     * serialized; the version only comes with \c AtomicLong.
+     **/
+    static final class Sequence extends AtomicLong
+    {
+        private static final long serialVersionUID = 1L;
+
+        long cache;                         /**< Other sequence, as last read.  */
+        long p1, p2, p3, p4, p5, p6, p7;    /**< Padding.                       */
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    final int      m_capacity;              /**< Number of elements.            */
+    final int      m_mask;                  /**< Capacity minus one.            */
+    final int      m_wait;                  /**< Wait strategy.                 */
+    final boolean  m_shared;                /**< Several producers.             */
+    final Sequence m_head;                  /**< Next element to read.          */
+    final Sequence m_tail;                  /**< Next element to write.         */
+    volatile boolean m_closed;              /**< #close() was called.           */
+    volatile Thread  m_reader;              /**< Parked consumer.               */
+    volatile Thread  m_writer;              /**< Parked producer.               */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    public static final int WAIT_SPIN    = 0;       /**< Busy loop.             */
+    public static final int WAIT_YIELD   = 1;       /**< Yields the processor.  */
+    public static final int WAIT_BLOCK   = 2;       /**< Parks the thread.      */
+    public static final int MAX_CAPACITY = 1 << 30; /**< Largest capacity.      */
+
+    static final int  SPIN_ROUNDS = 64;             /**< Checks before waiting. */
+    static final long PARK_SLICE  = 100000L;        /**< Shared producers park. */
+    //@}
+}
+// vim:syntax=java.doxygen
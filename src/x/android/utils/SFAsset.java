@@ -19,6 +19,7 @@ package x.android.utils;
 import java.util.*;
 import java.io.*;
 import java.nio.channels.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import android.os.*;
 import android.app.Application;
@@ -89,6 +90,11 @@ public final class SFAsset
      * "/some/folder/en/messages.xml"). If none were found the fall
      * through will be remove the language notation:
      * "/some/folder/messages.xml".
+     *
+     * The list of localized directories is built once, when the locale is
+     * first needed. The directory where a localized file was found is
+     * remembered, so next loads of the same file open it directly. Call
+     * #refreshLocale() when the locale changes.
      * @return On success this function returns an InputStream for reading the
      * file. On failure the result will be \b null.
      **/
@@ -102,30 +108,29 @@ public final class SFAsset
         else
             resourcePath = "jguime/[...]/" + resourcePath;
 
-        InputStream is;
-
         if (resourcePath.indexOf("[...]") < 0)
             return _internal_open(resourcePath);
-        else
-        {
-            String tempPath = _internal_applyLocale(resourcePath, true, true);
 
-            if ((is = _internal_open(tempPath)) != null)
-                return is;
-            else
+        Locales     locales = _internal_locales();
+        String      found   = locales.resolved.get(resourcePath);
+        InputStream is;
+
+        if (found != null)
+            return ((found.length() == 0) ? null : _internal_open(found));
+
+        for (int i = 0; i < locales.folders.length; i++)
+        {
+            found = strings.replace(resourcePath, "/[...]/", locales.folders[i]);
+            if ((is = _internal_open(found)) != null)
             {
-                /* Try only the language code. */
-                tempPath = _internal_applyLocale(resourcePath, false, true);
-                if ((is = _internal_open(tempPath)) != null)
-                    return is;
-                else
-                {
-                    /* Try without both. */
-                    tempPath = _internal_applyLocale(resourcePath, false, false);
-                    return _internal_open(tempPath);
-                }
+                _internal_remember(locales, resourcePath, found);
+                return is;
             }
         }
+
+        /* Not found in any folder. Assets don't change while running. */
+        _internal_remember(locales, resourcePath, strings.EMPTY);
+        return null;
     }/*}}}*/
     // public static String      getMessage(int errCode);/*{{{*/
     /**
@@ -133,11 +138,28 @@ public final class SFAsset
      * @param errCode An error code declared in the \c ERROR class.
      * @return A string with the error message. If no message is found the
      * result will be an empty string.
+     * @remarks The messages are loaded only once. See SFErrors.
      **/
     public static String getMessage(int errCode)
     {
-        CStringTable stringTable = CStringTable.LoadStream(Load("errors.xml"));
-        return stringTable.get(errCode);
+        return SFErrors.get(errCode);
+    }/*}}}*/
+    //@}
+
+    // public static void        refreshLocale();/*{{{*/
+    /**
+     * Builds again the list of localized directories.
+     * Must be called when the system locale changes. CAndroidApp does this
+     * in \c onConfigurationChanged(). When the locale is not the same, the
+     * remembered locations of localized files are discarded.
+     * @since jguime 2.5
+     **/
+    public static void refreshLocale()
+    {
+        Locales locales = s_locales;
+
+        if ((locales == null) || !locales.locale.equals(Locale.getDefault()))
+            s_locales = _internal_buildLocales();
     }/*}}}*/
     //@}
 
@@ -261,35 +283,68 @@ public final class SFAsset
     //@}
 
     /** \name Local Operations */ //@{
-    // private static String _internal_applyLocale(String path, boolean country, boolean lang);/*{{{*/
+    // private static Locales _internal_locales();/*{{{*/
     /**
-     * Apply the language and country code in an asset file path.
-     * @param path The path to change.
-     * @param country Set to \b true to add the country code.
-     * @param lang Set to \b true to add the language code.
-     * @returns The string with localized path information. If both \a country
-     * and \a lang are set to \b false, the string representing the localized
-     * folder ("[...]") will be removed.
+     * Gets the localized directories of the current locale.
+     * They are built in the first call.
      **/
-    private static String _internal_applyLocale(String path, boolean country, boolean lang)
+    private static Locales _internal_locales()
     {
-        Locale locale   = Locale.getDefault();
-        String localizedFolder;
+        Locales locales = s_locales;
 
-        if (lang)
-        {
-            localizedFolder = "/" + locale.getLanguage();
-            if (country)
-                localizedFolder = strings.format("%s_%s", localizedFolder, locale.getCountry());
+        if (locales == null)
+            s_locales = locales = _internal_buildLocales();
 
-            localizedFolder = localizedFolder + "/";
-        }
-        else if (country)
-            localizedFolder = "/" + locale.getCountry() + "/";
-        else
-            localizedFolder = "/";
+        return locales;
+    }/*}}}*/
+    // static Locale           _internal_locale();/*{{{*/
+    /**
+     * Gets the locale used to find localized assets.
+     * It changes only in #refreshLocale(), so it can differ from \c
+     * Locale.getDefault() for a while. Used by SFErrors to know when the
+     * messages loaded from 'errors.xml' are out of date.
+     **/
+    static Locale _internal_locale()
+    {
+        return _internal_locales().locale;
+    }/*}}}*/
+    // private static Locales _internal_buildLocales();/*{{{*/
+    /**
+     * Builds the list of localized directories of the default locale.
+     * The list has, in order, the language and country directory (e.g.:
+     * "/pt_BR/"), the language directory ("/pt/") and the root directory.
+     **/
+    private static Locales _internal_buildLocales()
+    {
+        Locale  locale  = Locale.getDefault();
+        String  lang    = locale.getLanguage();
+        String  country = locale.getCountry();
+        Locales locales = new Locales();
+        ArrayList<String> folders = new ArrayList<String>(3);
+
+        if ((lang.length() > 0) && (country.length() > 0))
+            folders.add("/" + lang + "_" + country + "/");
+        if (lang.length() > 0)
+            folders.add("/" + lang + "/");
+        folders.add("/");
 
-        return strings.replace(path, "/[...]/", localizedFolder);
+        locales.locale   = locale;
+        locales.folders  = folders.toArray(new String[folders.size()]);
+        locales.resolved = new ConcurrentHashMap<String, String>();
+
+        return locales;
+    }/*}}}*/
+    // private static void _internal_remember(Locales locales, String path, String found);/*{{{*/
+    /**
+     * Remembers where a localized file was found.
+     * @param locales Localized directories used in the search.
+     * @param path Path with the "[...]" pseudo-macro.
+     * @param found Path of the file found. Empty if not found.
+     **/
+    private static void _internal_remember(Locales locales, String path, String found)
+    {
+        if (locales.resolved.size() >= MAX_RESOLVED) locales.resolved.clear();
+        locales.resolved.put(path, found);
     }/*}}}*/
     // private static InputStream _internal_open(String assetFile);/*{{{*/
     /**
@@ -314,5 +369,22 @@ public final class SFAsset
         }
     }/*}}}*/
     //@}
+
+    /** \name Internal Classes */ //@{
+    /**
+     * Localized directories of a locale.
+     **/
+    private static final class Locales
+    {
+        Locale   locale;        /**< Locale of the directories.          */
+        String[] folders;       /**< Directories, in search order.       */
+        ConcurrentHashMap<String, String> resolved; /**< Found paths.    */
+    }
+    //@}
+
+    /** \name Static Data */ //@{
+    private static volatile Locales s_locales;      /**< Current locale. */
+    private static final int MAX_RESOLVED = 256;    /**< Paths limit.    */
+    //@}
 }
 // vim:syntax=java.doxygen
@@ -0,0 +1,168 @@
+/**
+ * \file
+ * Defines the SFErrors class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.Locale;
+import x.android.defs.ENC;
+import x.android.defs.ERROR;
+import x.android.defs.RES;
+import x.android.ui.CAndroidApp;
+
+/**
+ * \ingroup x_android_utils
+ * Static registry of error messages.
+ * The table of error descriptions is loaded only once for each locale and
+ * shared by SFAsset#getMessage(), CAndroidApp#getMessage() and
+ * res#getErrorDesc(). The messages come from the library resource
+ * x::android::defs::RES#ERRORS. When a CAndroidApp instance is running, the
+ * 'errors.xml' file in the 'assets' directory is merged over them: its
+ * messages replace the library ones with the same code and add new codes.
+ * The library messages follow the locale resolved by res, see
+ * res#refreshLocale(). The 'errors.xml' file follows the locale of SFAsset,
+ * see SFAsset#refreshLocale(). The table is loaded again when any of them
+ * changes.
+ *
+ * The table is loaded when first needed. Applications can call #preload()
+ * at startup so the table is loaded in a background thread.
+ *//* --------------------------------------------------------------------- */
+public final class SFErrors
+{
+    /** \name OPERATIONS */ //@{
+    // public static String get(int errCode);/*{{{*/
+    /**
+     * Gets the description of an error code.
+     * \param errCode An error code declared in the \c ERROR class.
+     * \return The message in the current locale. An empty string when the
+     * code has no description.
+     **/
+    public static String get(int errCode) {
+        return _internal_table().get(errCode);
+    }/*}}}*/
+    // public static int    preload();/*{{{*/
+    /**
+     * Starts loading the messages in a background thread.
+     * Calls to #get() made while the table is being loaded wait for it.
+     * \return \c ERROR.SUCCESS when the thread starts or the messages are
+     * already loaded. Otherwise an error code from thread_t#start().
+     **/
+    public static int preload() {
+        if (_internal_current(s_entry, res._internal_locale(), SFAsset._internal_locale()))
+            return ERROR.SUCCESS;
+
+        Loader loader = new Loader();
+        loader.setPriority(thread_t.PRIORITY_IDLE);
+        return loader.start();
+    }/*}}}*/
+    // public static void   invalidate();/*{{{*/
+    /**
+     * Discards the loaded messages.
+     * They are loaded again in the next call to #get(). Changes in the
+     * locale are detected automatically, so this is needed only when the
+     * resource files change or become available, since a missing resource
+     * is remembered as an empty table.
+     **/
+    public static void invalidate() {
+        s_entry = null;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // static CStringTable _internal_table();/*{{{*/
+    /**
+     * Gets the table of messages of the default locale.
+     * \return The table. Never \b null.
+     **/
+    static CStringTable _internal_table() {
+        String locale = res._internal_locale();
+        Locale assets = SFAsset._internal_locale();
+        Entry  entry  = s_entry;
+
+        if (_internal_current(entry, locale, assets))
+            return entry.table;
+
+        synchronized (s_lock)
+        {
+            /* Another thread may have loaded it while we waited. */
+            entry = s_entry;
+            if (_internal_current(entry, locale, assets))
+                return entry.table;
+
+            /* A missing resource is kept as an empty table, so it is not
+             * searched again in each call. */
+            entry = new Entry();
+            entry.locale = locale;
+            entry.assets = assets;
+            entry.table  = _internal_load();
+            s_entry = entry;
+        }
+        return entry.table;
+    }/*}}}*/
+    // private static boolean _internal_current(Entry entry, String locale, Locale assets);/*{{{*/
+    /**
+     * Checks whether a table was loaded with the current locales.
+     * \param entry The loaded table. Can be \b null.
+     * \param locale Locale resolved by res.
+     * \param assets Locale of the SFAsset localized directories.
+     **/
+    private static boolean _internal_current(Entry entry, String locale, Locale assets) {
+        return ((entry != null) && entry.locale.equals(locale) && entry.assets.equals(assets));
+    }/*}}}*/
+    // static CStringTable _internal_load();/*{{{*/
+    /**
+     * Loads the table of messages.
+     * The library messages are loaded first and the application messages, if
+     * any, are merged over them.
+     * \return The table. Empty when no resource is found.
+     **/
+    static CStringTable _internal_load() {
+        CStringTable table = res.loadAsTable(RES.ERRORS, ENC.UTF8);
+
+        if (CAndroidApp.currentApp() != null)
+            table.merge(CStringTable.LoadAsset("errors.xml"));
+
+        return table;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Table of messages of a locale.
+     **/
+    private static final class Entry
+    {
+        String       locale;    /**< Locale of the library messages.     */
+        Locale       assets;    /**< Locale of the 'errors.xml' file.    */
+        CStringTable table;     /**< Messages by error code.             */
+    }
+
+    /**
+     * Background thread used by #preload().
+     **/
+    private static final class Loader extends thread_t
+    {
+        protected int execute() {
+            _internal_table();
+            return ERROR.SUCCESS;
+        }
+    }
+    //@}
+
+    /** \name STATIC DATA */ //@{
+    private static final Object   s_lock = new Object();    /**< Load lock.  */
+    private static volatile Entry s_entry;                  /**< Messages.   */
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -0,0 +1,290 @@
+/**
+ * \file
+ * Defines the SFHex class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+/**
+ * \ingroup x_android_utils
+ * Hexadecimal encoding and decoding of byte arrays.
+ * The conversion uses lookup tables and writes directly into a \c char
+ * array or a \c StringBuilder supplied by the caller. No object is created
+ * for each byte, so the same builder can be reused to dump many frames.
+ * This class is used by arrays#toString(), arrays#fromString(), the dump
+ * functions of the debug class and stream_t#dump().
+ *
+ * The #dump() functions write lines in the format below, with the offset,
+ * sixteen bytes and their ASCII representation:
+ * <pre>
+ * 00000010  48 65 6C 6C 6F 2C 20 77  6F 72 6C 64 21 0D 0A 00  |Hello, world!...|
+ * </pre>
+ *//* --------------------------------------------------------------------- */
+public final class SFHex
+{
+    /** \name ENCODING */ //@{
+    // public static int    encode(byte[] src, int start, int count, char[] dest, int pos);/*{{{*/
+    /**
+     * Writes bytes as hexadecimal characters in a \c char array.
+     * \param src Source array.
+     * \param start Index of the first byte to convert.
+     * \param count Number of bytes to convert.
+     * \param dest Destination array. Must have room for <tt>count * 2</tt>
+     * characters.
+     * \param pos Index of the first character to write in \a dest.
+     * \return The index after the last character written.
+     **/
+    public static int encode(byte[] src, int start, int count, char[] dest, int pos) {
+        final int limit = start + count;
+        int value;
+
+        for (int i = start; i < limit; i++) {
+            value = (src[i] & 0xFF) << 1;
+            dest[pos++] = HEX_PAIRS[value];
+            dest[pos++] = HEX_PAIRS[value + 1];
+        }
+        return pos;
+    }/*}}}*/
+    // public static StringBuilder append(StringBuilder sb, byte[] src, int start, int count, String separator, int frequency);/*{{{*/
+    /**
+     * Appends bytes as hexadecimal characters in a builder.
+     * \param sb Destination builder.
+     * \param src Source array. \b null appends nothing.
+     * \param start Index of the first byte to convert.
+     * \param count Number of bytes to convert.
+     * \param separator String written between groups of bytes. Can be \b
+     * null.
+     * \param frequency Number of bytes in each group. When less than 1 the
+     * \a separator is not used.
+     * \return The \a sb argument.
+     **/
+    public static StringBuilder append(StringBuilder sb, byte[] src, int start, int count, String separator, int frequency) {
+        if ((src == null) || (count <= 0)) return sb;
+
+        final int limit = start + count;
+        int value;
+
+        if ((separator == null) || (frequency < 1))
+            sb.ensureCapacity(sb.length() + (count << 1));
+        else
+            sb.ensureCapacity(sb.length() + (count << 1) + (count / frequency) * separator.length());
+
+        for (int i = start, n = 0; i < limit; i++, n++)
+        {
+            if ((n > 0) && (separator != null) && (frequency > 0) && ((n % frequency) == 0))
+                sb.append(separator);
+
+            value = (src[i] & 0xFF) << 1;
+            sb.append(HEX_PAIRS[value]).append(HEX_PAIRS[value + 1]);
+        }
+        return sb;
+    }/*}}}*/
+    // public static StringBuilder append(StringBuilder sb, byte[] src, int start, int count);/*{{{*/
+    /**
+     * Appends bytes as hexadecimal characters in a builder.
+     * No separator is used.
+     * \param sb Destination builder.
+     * \param src Source array.
+     * \param start Index of the first byte to convert.
+     * \param count Number of bytes to convert.
+     * \return The \a sb argument.
+     **/
+    public static StringBuilder append(StringBuilder sb, byte[] src, int start, int count) {
+        return append(sb, src, start, count, null, 0);
+    }/*}}}*/
+    // public static String        toString(byte[] src, int start, int count, String separator, int frequency);/*{{{*/
+    /**
+     * Converts bytes in a hexadecimal string.
+     * \param src Source array.
+     * \param start Index of the first byte to convert.
+     * \param count Number of bytes to convert.
+     * \param separator String written between groups of bytes.
+     * \param frequency Number of bytes in each group.
+     * \return The string. Empty if \a src is \b null.
+     **/
+    public static String toString(byte[] src, int start, int count, String separator, int frequency) {
+        if ((src == null) || (count <= 0)) return strings.EMPTY;
+
+        if ((separator == null) || (frequency < 1) || (count <= frequency))
+        {
+            char[] chars = new char[count << 1];
+            encode(src, start, count, chars, 0);
+            return new String(chars);
+        }
+        return append(new StringBuilder(), src, start, count, separator, frequency).toString();
+    }/*}}}*/
+    //@}
+
+    /** \name DECODING */ //@{
+    // public static int    digit(char c);/*{{{*/
+    /**
+     * Gets the value of a hexadecimal digit.
+     * \param c The character. Upper and lower case letters are accepted.
+     * \return The value, from 0 to 15. -1 when \a c is not a hexadecimal
+     * digit.
+     **/
+    public static int digit(char c) {
+        return ((c < 128) ? HEX_VALUES[c] : -1);
+    }/*}}}*/
+    // public static int    decode(CharSequence text, int start, int end, byte[] dest, int pos);/*{{{*/
+    /**
+     * Converts hexadecimal characters in bytes.
+     * Characters that are not hexadecimal digits are skipped, so any
+     * separator is accepted. A last digit without its pair is ignored.
+     * \param text Source text.
+     * \param start Index of the first character to read.
+     * \param end Index after the last character to read.
+     * \param dest Destination array. Must have room for
+     * <tt>(end - start) / 2</tt> bytes.
+     * \param pos Index of the first byte to write in \a dest.
+     * \return Number of bytes written.
+     **/
+    public static int decode(CharSequence text, int start, int end, byte[] dest, int pos) {
+        final int first = pos;
+        int high = -1, value;
+        char c;
+
+        for (int i = start; i < end; i++)
+        {
+            c = text.charAt(i);
+            if ((c >= 128) || ((value = HEX_VALUES[c]) < 0))
+                continue;
+
+            if (high < 0)
+                high = value;
+            else {
+                dest[pos++] = (byte)((high << 4) | value);
+                high = -1;
+            }
+        }
+        return (pos - first);
+    }/*}}}*/
+    // public static byte[] decode(CharSequence text);/*{{{*/
+    /**
+     * Converts hexadecimal characters in a byte array.
+     * \param text Source text. Non hexadecimal characters are skipped.
+     * \return The byte array. Empty when \a text is \b null or has no
+     * hexadecimal digit.
+     **/
+    public static byte[] decode(CharSequence text) {
+        int length = ((text == null) ? 0 : text.length());
+        int digits = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (digit(text.charAt(i)) >= 0)
+                digits++;
+        }
+
+        byte[] result = new byte[digits >> 1];
+        if (result.length > 0)
+            decode(text, 0, length, result, 0);
+
+        return result;
+    }/*}}}*/
+    //@}
+
+    /** \name DUMPING */ //@{
+    // public static StringBuilder dumpLine(StringBuilder sb, byte[] src, int start, int count, long offset);/*{{{*/
+    /**
+     * Appends one line of a hexadecimal dump.
+     * The line has the offset, up to #LINE_BYTES bytes in hexadecimal and
+     * the same bytes as ASCII characters. Bytes that are not printable are
+     * shown as dots. No line break is appended.
+     * \param sb Destination builder.
+     * \param src Source array.
+     * \param start Index of the first byte of the line.
+     * \param count Number of bytes in the line. Values greater than
+     * #LINE_BYTES are limited.
+     * \param offset Value written in the offset column.
+     * \return The \a sb argument.
+     **/
+    public static StringBuilder dumpLine(StringBuilder sb, byte[] src, int start, int count, long offset) {
+        count = Math.min(count, LINE_BYTES);
+        sb.ensureCapacity(sb.length() + LINE_LENGTH);
+
+        numbers.appendHex(sb, offset & 0xFFFFFFFFL, 8).append(' ');
+
+        int value;
+        for (int i = 0; i < LINE_BYTES; i++)
+        {
+            if (i == (LINE_BYTES >> 1)) sb.append(' ');
+
+            if (i < count) {
+                value = (src[start + i] & 0xFF) << 1;
+                sb.append(' ').append(HEX_PAIRS[value]).append(HEX_PAIRS[value + 1]);
+            }
+            else
+                sb.append("   ");
+        }
+
+        sb.append("  |");
+        for (int i = 0; i < count; i++) {
+            value = src[start + i] & 0xFF;
+            sb.append(((value >= 0x20) && (value < 0x7F)) ? (char)value : '.');
+        }
+        return sb.append('|');
+    }/*}}}*/
+    // public static StringBuilder dump(StringBuilder sb, byte[] src, int start, int count, long offset);/*{{{*/
+    /**
+     * Appends a hexadecimal dump.
+     * Each line is built by #dumpLine() and ends with a line break.
+     * \param sb Destination builder.
+     * \param src Source array. \b null appends nothing.
+     * \param start Index of the first byte to dump.
+     * \param count Number of bytes to dump.
+     * \param offset Offset of the first byte, shown in the first line.
+     * \return The \a sb argument.
+     **/
+    public static StringBuilder dump(StringBuilder sb, byte[] src, int start, int count, long offset) {
+        if (src == null) return sb;
+
+        final int limit = start + count;
+        sb.ensureCapacity(sb.length() + ((count + LINE_BYTES - 1) / LINE_BYTES) * (LINE_LENGTH + 1));
+
+        for (int i = start; i < limit; i += LINE_BYTES) {
+            dumpLine(sb, src, i, limit - i, offset + (i - start));
+            sb.append('\n');
+        }
+        return sb;
+    }/*}}}*/
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    public static final int LINE_BYTES  = 16;   /**< Bytes in a dump line.      */
+    public static final int LINE_LENGTH = 78;   /**< Characters in a dump line. */
+    //@}
+
+    /** \name STATIC DATA */ //@{
+    /**
+     * Both hexadecimal characters of each byte value.
+     **/
+    private static final char[] HEX_PAIRS = new char[512];
+
+    /**
+     * Value of each ASCII character as a hexadecimal digit. -1 when it is
+     * not a digit.
+     **/
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[(i << 1)]     = numbers.HEX_DIGITS[i >> 4];
+            HEX_PAIRS[(i << 1) + 1] = numbers.HEX_DIGITS[i & 0x0F];
+        }
+
+        for (int i = 0; i < 128; i++)
+            HEX_VALUES[i] = (byte)Character.digit((char)i, 16);
+    }
+    //@}
+}
+// vim:syntax=java.doxygen
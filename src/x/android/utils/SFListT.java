@@ -64,26 +64,27 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      **/
     public SFListT(SFListT<T> list) {
         m_array = new Object[list.size()];
-
-        final Object[] items = list.m_array;
-        final int      count = list.size();
-
-        for (int i = 0; i < count; i++)
-            m_array[i] = items[i];
-
         m_count = m_array.length;
+        m_growth = list.m_growth;
+
+        /* A list built with SFListT() has no array yet. */
+        if (m_count > 0)
+            System.arraycopy(list.m_array, 0, m_array, 0, m_count);
     }
     //@}
 
     /** \name Iterable Implementation */ //@{
     /**
      * Builds an Iterator for the elements in this list.
-     * The same rules of the Java \c ArrayList class apply. The list can be
-     * changed while this iterator are in use.
+     * The same rules of the Java \c ArrayList class apply. The iterator is
+     * fail-fast: when the list is structurally changed while it is in use
+     * the next call to \c next() throws \c ConcurrentModificationException.
      * @returns An \c Iterator object to iterate with objects in this list.
+     * @remarks To visit the elements without allocating an iterator use
+     * #forEach().
      **/
     public Iterator<T> iterator() {
-        return new __Iterator<T>(this);
+        return new __Iterator();
     }
     //@}
 
@@ -124,6 +125,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
 
         m_array[m_count] = element;
         m_count++;
+        m_modCount++;
         return true;
     }
 
@@ -136,17 +138,36 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * to make room for the new element if needed.
      * @note The result will be \b true even when \a coll is empty or \b null.
      * This is a break in the \c Collection contract.
+     * @remarks Elements are read through the collection iterator, without
+     * copying them to a temporary array. \b null elements are skipped.
      **/
     public boolean addAll(Collection<? extends T> coll) {
         if ((coll == null) || coll.isEmpty()) return true;
 
-        final int      limit = coll.size();
-        final Object[] items = coll.toArray();
-        _internal_alloc(limit);
+        /* Another SFListT has no null elements. Copy the array directly. */
+        if (coll instanceof SFListT)
+        {
+            SFListT<?> list = (SFListT<?>)coll;
+            final int  count = list.m_count;
 
-        for (int i = 0; i < limit; i++)
-            m_array[m_count++] = items[i];
+            _internal_alloc(count);
+            System.arraycopy(list.m_array, 0, m_array, m_count, count);
+            m_count += count;
+            m_modCount++;
+            return true;
+        }
+
+        _internal_alloc(coll.size());
+        m_modCount++;
+        for (T element : coll)
+        {
+            if (element == null) continue;
+
+            if (m_count == m_array.length)
+                _internal_alloc(1);     /* The collection grew. */
 
+            m_array[m_count++] = element;
+        }
         return true;
     }
 
@@ -293,11 +314,11 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * deallocated thouth. The internal capacity will remain the same.
      **/
     public void clear() {
-        final int limit = arrays.length(m_array);
-        for (int i = 0; i < limit; i++)
-            m_array[i] = null;
+        if (m_count > 0)
+            Arrays.fill(m_array, 0, m_count, null);
 
         m_count = 0;
+        m_modCount++;
     }
 
     /**
@@ -320,7 +341,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
 
         if (len < m_count)
         {
-            try { array = (T[])Array.newInstance(array.getClass(), m_count); }
+            try { array = (T[])Array.newInstance(array.getClass().getComponentType(), m_count); }
             catch (Exception ex) {
                 debug.e(ex, "$n in SFListT::toArray(T[]): '$s'\n");
                 return null;
@@ -329,11 +350,11 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
 
         final int count = m_count;
 
-        for (int i = 0; i < count; i++)
-            array[i] = (T)m_array[i];
+        if (count > 0)
+            System.arraycopy(m_array, 0, array, 0, count);
 
-        for (int i = count; i < len; i++)
-            array[i] = null;
+        if (count < len)
+            Arrays.fill(array, count, len, null);
 
         return array;
     }
@@ -346,11 +367,10 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * is empty an empty array is returned.
      **/
     public Object[] toArray() {
-        Object[]  items = new Object[m_count];
-        final int count = m_count;
+        Object[] items = new Object[m_count];
 
-        for (int i = 0; i < count; i++)
-            items[i] = m_array[i];
+        if (m_count > 0)
+            System.arraycopy(m_array, 0, items, 0, m_count);
 
         return items;
     }
@@ -434,7 +454,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * @returns The element reference or \b null when \a index is invalid.
      **/
     public T get(int index) {
-        if (index < 0) index = (m_count - index);
+        if (index < 0) index = (m_count + index);
 
         if ((index < 0) || (index >= m_count))
             return null;
@@ -455,7 +475,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * will be appended but the result will still be \b null.
      **/
     public T set(int index, T element) {
-        if (index < 0) index = (m_count - index);
+        if (index < 0) index = (m_count + index);
         if ((index < 0) || (index > m_count))
             return null;
 
@@ -488,9 +508,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
         if ((index < 0) || (index > m_count))
             throw new IllegalArgumentException("Invalid 'index' parameter!");
 
-        _internal_alloc(1);
-        m_array = arrays.add(m_array, index, element);
-        m_count++;
+        _internal_insert(index, element);
     }
 
     /**
@@ -506,13 +524,11 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * Otherwise \b false.
      **/
     public boolean insert(int index, T element) {
-        if (index < 0) index = (m_count - index);
+        if (index < 0) index = (m_count + index);
         if ((index < 0) || (index >= m_count) || (element == null))
             return false;
 
-        _internal_alloc(1);
-        m_array = arrays.add(m_array, index, element);
-        m_count++;
+        _internal_insert(index, element);
         return true;
     }
 
@@ -526,7 +542,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * out of list bounds the return will be \b null.
      **/
     public T remove(int index) {
-        if (index < 0) index = (m_count - index);
+        if (index < 0) index = (m_count + index);
         if ((index < 0) || (index >= m_count))
             return null;
 
@@ -534,14 +550,144 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
         final int lastIndex = (m_count - 1);
 
         if (index < lastIndex)
-            arrays.move(m_array, index, m_array, (index + 1), ((index + 1) - m_count));
+            System.arraycopy(m_array, (index + 1), m_array, index, (lastIndex - index));
 
         m_array[lastIndex] = null;
 
         m_count--;
+        m_modCount++;
         return result;
     }
 
+    /**
+     * Removes one element without keeping the order of the list.
+     * The last element of the list is moved to the position of the removed
+     * element, so nothing is shifted.
+     * @param index Position of the element to be removed. Negative values
+     * count from the end of the list, as in #remove(int).
+     * @return The element removed. \b null when \a index is out of the list
+     * bounds.
+     * @since jguime 2.5
+     **/
+    public T fastRemove(int index) {
+        if (index < 0) index = (m_count + index);
+        if ((index < 0) || (index >= m_count))
+            return null;
+
+        T result = (T)m_array[index];
+        final int lastIndex = (m_count - 1);
+
+        m_array[index]     = m_array[lastIndex];
+        m_array[lastIndex] = null;
+
+        m_count--;
+        m_modCount++;
+        return result;
+    }
+
+    /**
+     * Removes all elements accepted by a filter.
+     * The list is compacted in a single pass, keeping the order of the
+     * remaining elements.
+     * @param filter Object that selects the elements to remove. \b null
+     * removes nothing.
+     * @return The number of elements removed.
+     * @remarks Not named \c removeIf(), which would be ambiguous with \c
+     * Collection.removeIf(Predicate) for lambda arguments.
+     * @since jguime 2.5
+     **/
+    public int removeMatching(IFilter<? super T> filter) {
+        if (filter == null) return 0;
+
+        final int count = m_count;
+        int kept = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            T element = (T)m_array[i];
+            if (filter.accept(element)) continue;
+
+            if (kept != i) m_array[kept] = element;
+            kept++;
+        }
+
+        if (kept < count)
+            Arrays.fill(m_array, kept, count, null);
+
+        m_count = kept;
+        m_modCount++;
+        return (count - kept);
+    }
+
+    /**
+     * Sorts the elements of this list.
+     * The sort is stable. Equal elements keep their order.
+     * @param comparator Object that compares the elements. When \b null the
+     * elements must implement \c Comparable and are sorted in their natural
+     * order.
+     * @throw ClassCastException When \a comparator is \b null and the
+     * elements are not \c Comparable.
+     * @since jguime 2.5
+     **/
+    public void sort(Comparator<? super T> comparator) {
+        if (m_count < 2) return;
+
+        if (comparator == null)
+            Arrays.sort(m_array, 0, m_count);
+        else
+            Arrays.sort((T[])m_array, 0, m_count, comparator);
+
+        m_modCount++;
+    }
+
+    /**
+     * Visits all elements of this list.
+     * The elements are read directly from the internal array, by index. No
+     * iterator is allocated.
+     * @param visitor Object called for each element.
+     * @returns \b true when all elements are visited. \b false when the
+     * visitor stops the iteration.
+     * @throw ConcurrentModificationException When the list is structurally
+     * changed by the visitor.
+     * @since jguime 2.5
+     **/
+    public boolean forEach(IVisitor<? super T> visitor) {
+        return forEach(0, m_count, visitor);
+    }
+
+    /**
+     * Visits a range of elements of this list.
+     * A large list can be split in ranges visited by different threads, as
+     * long as no thread changes the list. No iterator is allocated.
+     * @param start Index of the first element to visit.
+     * @param count Number of elements to visit. Limited to the end of the
+     * list.
+     * @param visitor Object called for each element.
+     * @returns \b true when all elements in the range are visited. \b false
+     * when the visitor stops the iteration or when \a start is invalid.
+     * @throw ConcurrentModificationException When the list is structurally
+     * changed by the visitor.
+     * @since jguime 2.5
+     **/
+    public boolean forEach(int start, int count, IVisitor<? super T> visitor) {
+        if ((start < 0) || (start > m_count) || (visitor == null))
+            return false;
+
+        final int      expected = m_modCount;
+        final Object[] array    = m_array;
+        final int      limit    = (int)Math.min((long)start + count, (long)m_count);
+
+        for (int i = start; i < limit; i++)
+        {
+            if (!visitor.visit(i, (T)array[i]))
+                return false;
+
+            if (m_modCount != expected)
+                throw new ConcurrentModificationException();
+        }
+        return true;
+    }
+
     /**
      * Ensure the list will have capacity for the specified number of
      * elements.
@@ -552,7 +698,24 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
         if (capacity <= arrays.length(m_array))
             return;
 
-        _internal_alloc(capacity - m_count);
+        m_array = arrays.realloc(m_array, capacity);
+    }
+
+    /**
+     * Sets how the list capacity grows.
+     * When an element doesn't fit in the list, the capacity is multiplied by
+     * this factor, so a sequence of additions copies the elements only a few
+     * times.
+     * @param factor The growth factor. The default is 1.5. Values less than
+     * or equal to 1 make the list grow only what is needed, as in the
+     * previous versions of this class.
+     * @return The previous factor.
+     * @since jguime 2.5
+     **/
+    public float setGrowth(float factor) {
+        float previous = m_growth;
+        m_growth = factor;
+        return previous;
     }
 
     /**
@@ -584,30 +747,79 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
      * OutOfMemoryError will be thrown.
      **/
     private boolean _internal_alloc(int count) {
-        if ((m_count + count) <= arrays.length(m_array))
+        final int needed   = m_count + count;
+        final int capacity = arrays.length(m_array);
+
+        if (needed <= capacity)
             return true;
 
-        m_array = arrays.realloc(m_array, (m_count + count));
+        int size = needed;
+        if (m_growth > 1.0f)
+        {
+            long grown = Math.max(MIN_CAPACITY, (long)(capacity * m_growth));
+            if (grown > needed)
+                size = (int)Math.min(grown, (long)MAX_CAPACITY);
+        }
+
+        m_array = arrays.realloc(m_array, size);
         return true;
     }
+
+    /**
+     * Inserts an element shifting the following ones.
+     * @param index Position of the new element. Must be valid.
+     * @param element Element to insert.
+     **/
+    private void _internal_insert(int index, Object element) {
+        _internal_alloc(1);
+
+        if (index < m_count)
+            System.arraycopy(m_array, index, m_array, (index + 1), (m_count - index));
+
+        m_array[index] = element;
+        m_count++;
+        m_modCount++;
+    }
     //@}
 
     /** \name Internal Classes */ //@{
     /**
-     * The internal Iterator implementation.
+     * Selects elements of a list.
+     * Used by #removeMatching().
+     * @tparam E Type of the elements.
+     * @since jguime 2.5
      **/
-    class __Iterator<T> implements Iterator<T> {
-        /** \name Constructors */ //@{
+    public interface IFilter<E> {
         /**
-         * Builds the __Iterator object.
-         * @param list The list backing the elements.
+         * Checks one element.
+         * @param element The element.
+         * @returns \b true to select the element.
          **/
-        public __Iterator(SFListT<T> list) {
-            m_list     = list;
-            m_position = -1;
-        }
-        //@}
+        public boolean accept(E element);
+    }
 
+    /**
+     * Receives the elements of a list.
+     * Used by #forEach().
+     * @tparam E Type of the elements.
+     * @since jguime 2.5
+     **/
+    public interface IVisitor<E> {
+        /**
+         * Receives one element.
+         * @param index Position of the element in the list.
+         * @param element The element. Never \b null.
+         * @returns \b true to continue. \b false stops the iteration.
+         **/
+        public boolean visit(int index, E element);
+    }
+
+    /**
+     * The internal Iterator implementation.
+     * Reads the array of the enclosing list directly and checks the
+     * modification counter on each call to #next().
+     **/
+    class __Iterator implements Iterator<T> {
         /** \name Iterator Implementation */ //@{
         /**
          * Checks if there is more elements in the list.
@@ -615,7 +827,7 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
          * Otherwise \b false.
          **/
         public boolean hasNext() {
-            return ((m_position + 1) < m_list.size());
+            return (m_position < m_count);
         }
 
         /**
@@ -625,13 +837,17 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
          * @return The next element in the list.
          * @throw NoSuchElementException When the list has no more elements to
          * be iterated.
+         * @throw ConcurrentModificationException When the list was
+         * structurally changed after this iterator was created.
          **/
         public T next() throws NoSuchElementException {
-            if (!hasNext())
+            if (m_expected != m_modCount)
+                throw new ConcurrentModificationException();
+
+            if (m_position >= m_count)
                 throw new NoSuchElementException("There are no more elements to iterate!");
 
-            m_position++;
-            return m_list.get(m_position);
+            return (T)m_array[m_position++];
         }
 
         /**
@@ -649,8 +865,8 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
         //@}
 
         /** \name Data Members */ //@{
-        SFListT<T> m_list;          /**< The list backing this Iterator. */
-        int    m_position;          /**< Current iterating position.     */
+        int m_position;                 /**< Next iterating position.       */
+        int m_expected = m_modCount;    /**< Modification count expected.   */
         //@}
     }
     //@}
@@ -658,6 +874,13 @@ public class SFListT<T> implements Collection<T>, Iterable<T>, Cloneable,
     /** \name Data members */ //@{
     protected Object[] m_array;             /**< Array of objects. */
     protected int      m_count;             /**< Number of objects in array. */
+    protected float    m_growth = 1.5f;     /**< Capacity growth factor. */
+    protected int      m_modCount;          /**< Structural changes made. */
+    //@}
+
+    /** \name Constants */ //@{
+    private static final int MIN_CAPACITY = 8;                      /**< First allocation. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;  /**< Largest array.    */
     //@}
 }
 // vim:syntax=java.doxygen
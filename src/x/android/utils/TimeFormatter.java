@@ -0,0 +1,414 @@
+/**
+ * \file
+ * Defines the TimeFormatter class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.utils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.text.DateFormat;
+
+/**
+ * \ingroup x_android_utils
+ * Compiled date and time format specification.
+ * The specification is parsed only once, in #Compile(). Formatting a value
+ * writes the digits directly in a \c StringBuilder, with no intermediate
+ * strings. The names of months and week days are loaded from the
+ * 'calendar.xml' asset once for each locale.
+ *
+ * The accepted specifiers are the same of time_t#toString(String).
+ *
+ * Compiled objects are immutable and can be shared between threads.
+ *//* --------------------------------------------------------------------- */
+public final class TimeFormatter
+{
+    /** \name FACTORY */ //@{
+    // public static TimeFormatter Compile(String spec);/*{{{*/
+    /**
+     * Compiles a format specification.
+     * \param spec The format specification. See time_t#toString(String).
+     * \return The compiled formatter or \b null when \a spec is \b null.
+     * \remarks Compiled specifications are kept in a small cache. Calling
+     * this function with the same specification returns the same object.
+     **/
+    public static TimeFormatter Compile(String spec) {
+        if (spec == null) return null;
+
+        TimeFormatter formatter = s_compiled.get(spec);
+        if (formatter != null) return formatter;
+
+        formatter = new TimeFormatter(spec);
+        if (s_compiled.size() >= MAX_COMPILED) s_compiled.clear();
+        s_compiled.put(spec, formatter);
+
+        return formatter;
+    }/*}}}*/
+    //@}
+
+    /** \name CONSTRUCTOR */ //@{
+    // private TimeFormatter(String spec);/*{{{*/
+    /**
+     * Parses the specification into segments.
+     * \param spec The format specification.
+     **/
+    private TimeFormatter(String spec) {
+        int limit = spec.length();
+        int start = 0, i = 0, op;
+
+        m_spec  = spec;
+        m_ops   = new int[limit + 1];
+        m_texts = new String[limit + 1];
+
+        while (i < limit)
+        {
+            if ((spec.charAt(i) != '%') || (i == (limit - 1))) {
+                i++;
+                continue;
+            }
+
+            if ((op = _internal_op(spec.charAt(i + 1))) == OP_TEXT) {
+                /* Unknown specifier: the character is copied. */
+                _internal_add(OP_TEXT, spec.substring(start, i));
+                start = ++i;
+                i++;
+                continue;
+            }
+
+            _internal_add(OP_TEXT, spec.substring(start, i));
+            _internal_add(op, null);
+            start = (i += 2);
+        }
+        _internal_add(OP_TEXT, spec.substring(start, limit));
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public String spec();/*{{{*/
+    /**
+     * Gets the specification of this formatter.
+     **/
+    public String spec() {
+        return m_spec;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public String        format(long time);/*{{{*/
+    /**
+     * Formats a date and time.
+     * \param time Milliseconds since January 1, 1970, as returned by
+     * \c System.currentTimeMillis().
+     * \return The formatted string.
+     **/
+    public String format(long time) {
+        Scratch scratch = s_scratch.get();
+        StringBuilder sb = scratch.sb;
+
+        sb.setLength(0);
+        scratch.tm._internal_setLocal(time);
+        _internal_append(sb, scratch.tm, time);
+
+        return sb.toString();
+    }/*}}}*/
+    // public String        format(time_t tm);/*{{{*/
+    /**
+     * Formats a date and time.
+     * \param tm The date and time to format.
+     * \return The formatted string or \b null if \a tm is \b null.
+     **/
+    public String format(time_t tm) {
+        if (tm == null) return null;
+
+        StringBuilder sb = s_scratch.get().sb;
+
+        sb.setLength(0);
+        _internal_append(sb, tm, Long.MIN_VALUE);
+
+        return sb.toString();
+    }/*}}}*/
+    // public StringBuilder append(StringBuilder sb, long time);/*{{{*/
+    /**
+     * Formats a date and time at the end of a string builder.
+     * \param sb The builder to append the text. Callers can reuse the
+     * same builder for many calls.
+     * \param time Milliseconds since January 1, 1970.
+     * \return The \a sb argument.
+     **/
+    public StringBuilder append(StringBuilder sb, long time) {
+        Scratch scratch = s_scratch.get();
+
+        scratch.tm._internal_setLocal(time);
+        _internal_append(sb, scratch.tm, time);
+        return sb;
+    }/*}}}*/
+    // public StringBuilder append(StringBuilder sb, time_t tm);/*{{{*/
+    /**
+     * Formats a date and time at the end of a string builder.
+     * \param sb The builder to append the text.
+     * \param tm The date and time to format.
+     * \return The \a sb argument.
+     **/
+    public StringBuilder append(StringBuilder sb, time_t tm) {
+        if (tm != null) _internal_append(sb, tm, Long.MIN_VALUE);
+        return sb;
+    }/*}}}*/
+    //@}
+
+    /** \name OVERRIDES */ //@{
+    // public String toString();/*{{{*/
+    /**
+     * Gets the specification of this formatter.
+     **/
+    public String toString() {
+        return m_spec;
+    }/*}}}*/
+    //@}
+
+    /** \name CALENDAR NAMES */ //@{
+    // static String _internal_weekDayName(int weekDay);/*{{{*/
+    /**
+     * Gets the name of a week day in the current locale.
+     * \param weekDay Day of week. 1 is Sunday.
+     * \return The name or an empty string.
+     **/
+    static String _internal_weekDayName(int weekDay) {
+        if ((weekDay < 1) || (weekDay > 7)) return strings.EMPTY;
+        return _internal_names()[weekDay];
+    }/*}}}*/
+    // static String _internal_monthName(int month);/*{{{*/
+    /**
+     * Gets the name of a month in the current locale.
+     * \param month Month number. 1 is January.
+     * \return The name or an empty string.
+     **/
+    static String _internal_monthName(int month) {
+        if ((month < 1) || (month > 12)) return strings.EMPTY;
+        return _internal_names()[month + 10];
+    }/*}}}*/
+    // static String[] _internal_names();/*{{{*/
+    /**
+     * Gets the calendar names of the current locale.
+     * The 'calendar.xml' asset is loaded only once for each locale.
+     * \return Array indexed by the string identifiers of the asset.
+     **/
+    static String[] _internal_names() {
+        Locale locale = Locale.getDefault();
+        Names  names  = s_names;
+
+        if ((names != null) && names.locale.equals(locale))
+            return names.values;
+
+        String[] values;
+
+        synchronized (s_namesCache)
+        {
+            values = s_namesCache.get(locale);
+            if (values == null)
+            {
+                CStringTable table = CStringTable.LoadAsset("calendar.xml");
+
+                values = new String[NAMES_COUNT];
+                for (int i = 0; i < NAMES_COUNT; i++)
+                    values[i] = table.get(i);
+
+                /* A missing asset is not cached. It can be available later. */
+                if (!table.isEmpty()) s_namesCache.put(locale, values);
+            }
+        }
+
+        names = new Names();
+        names.locale = locale;
+        names.values = values;
+        s_names = names;
+
+        return values;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL OPERATIONS */ //@{
+    // private void _internal_append(StringBuilder sb, time_t tm, long time);/*{{{*/
+    /**
+     * Writes the formatted text.
+     * \param sb Destination builder.
+     * \param tm Date and time fields.
+     * \param time Milliseconds of \a tm or \c Long.MIN_VALUE when unknown.
+     **/
+    private void _internal_append(StringBuilder sb, time_t tm, long time) {
+        for (int i = 0; i < m_count; i++)
+        {
+            switch (m_ops[i])
+            {
+            case OP_TEXT:
+                sb.append(m_texts[i]);
+                break;
+            case OP_MONTH_NAME:
+                sb.append(_internal_monthName(tm.month()));
+                break;
+            case OP_DATE_TIME:
+            case OP_DATE:
+            case OP_TIME:
+                if (time == Long.MIN_VALUE) time = tm.get();
+                sb.append(_internal_locale(m_ops[i], time));
+                break;
+            case OP_DAY:
+                numbers.appendDecimal(sb, tm.day(), 2);
+                break;
+            case OP_HOUR:
+                numbers.appendDecimal(sb, tm.hour(), 2);
+                break;
+            case OP_MONTH:
+                numbers.appendDecimal(sb, tm.month(), 2);
+                break;
+            case OP_MINUTE:
+                numbers.appendDecimal(sb, tm.minute(), 2);
+                break;
+            case OP_SECOND:
+                numbers.appendDecimal(sb, tm.seconds(), 2);
+                break;
+            case OP_WEEK_DAY:
+                numbers.appendDecimal(sb, tm.dayOfWeek(), 1);
+                break;
+            case OP_WEEK_DAY_NAME:
+                sb.append(_internal_weekDayName(tm.dayOfWeek()));
+                break;
+            case OP_YEAR2:
+                numbers.appendDecimal(sb, tm.year() % 100, 2);
+                break;
+            case OP_YEAR4:
+                numbers.appendDecimal(sb, tm.year(), 4);
+                break;
+            }
+        }
+    }/*}}}*/
+    // private void _internal_add(int op, String text);/*{{{*/
+    /**
+     * Adds a segment to the compiled list.
+     * Empty text segments are discarded.
+     **/
+    private void _internal_add(int op, String text) {
+        if ((op == OP_TEXT) && (text.length() == 0)) return;
+
+        m_ops[m_count]   = op;
+        m_texts[m_count] = text;
+        m_count++;
+    }/*}}}*/
+    //@}
+
+    /** \name STATIC INTERNALS */ //@{
+    // static String _internal_locale(int op, long time);/*{{{*/
+    /**
+     * Formats the date, the time or both as in the current locale.
+     **/
+    static String _internal_locale(int op, long time) {
+        DateFormat df;
+
+        if (op == OP_DATE)
+            df = DateFormat.getDateInstance(DateFormat.SHORT);
+        else if (op == OP_TIME)
+            df = DateFormat.getTimeInstance(DateFormat.SHORT);
+        else
+            df = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
+
+        return df.format(new Date(time));
+    }/*}}}*/
+    // static int  _internal_op(char spec);/*{{{*/
+    /**
+     * Gets the operation of a specifier character.
+     * \return The operation or \c OP_TEXT for unknown specifiers.
+     **/
+    static int _internal_op(char spec) {
+        switch (spec)
+        {
+        case 'B': return OP_MONTH_NAME;
+        case 'c': return OP_DATE_TIME;
+        case 'd': return OP_DAY;
+        case 'H': return OP_HOUR;
+        case 'm': return OP_MONTH;
+        case 'M': return OP_MINUTE;
+        case 'S': return OP_SECOND;
+        case 'w': return OP_WEEK_DAY;
+        case 'W': return OP_WEEK_DAY_NAME;
+        case 'x': return OP_DATE;
+        case 'X': return OP_TIME;
+        case 'y': return OP_YEAR2;
+        case 'Y': return OP_YEAR4;
+        }
+        return OP_TEXT;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Calendar names of a locale.
+     **/
+    private static final class Names
+    {
+        Locale   locale;        /**< Locale of the names.                */
+        String[] values;        /**< Names by string identifier.         */
+    }
+
+    /**
+     * Per thread objects used while formatting.
+     **/
+    private static final class Scratch
+    {
+        StringBuilder sb = new StringBuilder(64);   /**< Output buffer.  */
+        time_t        tm = new time_t(0L);          /**< Fields buffer.  */
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private String   m_spec;            /**< Source specification.            */
+    private int[]    m_ops;             /**< Operations of the segments.      */
+    private String[] m_texts;           /**< Text of \c OP_TEXT segments.     */
+    private int      m_count;           /**< Number of segments.              */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    private static final int OP_TEXT          = 0;
+    private static final int OP_MONTH_NAME    = 1;
+    private static final int OP_DATE_TIME     = 2;
+    private static final int OP_DAY           = 3;
+    private static final int OP_HOUR          = 4;
+    private static final int OP_MONTH         = 5;
+    private static final int OP_MINUTE        = 6;
+    private static final int OP_SECOND        = 7;
+    private static final int OP_WEEK_DAY      = 8;
+    private static final int OP_WEEK_DAY_NAME = 9;
+    private static final int OP_DATE          = 10;
+    private static final int OP_TIME          = 11;
+    private static final int OP_YEAR2         = 12;
+    private static final int OP_YEAR4         = 13;
+
+    private static final int MAX_COMPILED     = 64;     /**< Cache limit.  */
+    private static final int NAMES_COUNT      = 23;     /**< Ids 0 to 22.  */
+    //@}
+
+    /** \name STATIC DATA */ //@{
+    private static final ConcurrentHashMap<String, TimeFormatter> s_compiled =
+        new ConcurrentHashMap<String, TimeFormatter>();
+    private static final HashMap<Locale, String[]> s_namesCache =
+        new HashMap<Locale, String[]>();
+    private static volatile Names s_names;  /**< Names of the last locale.  */
+
+    private static final ThreadLocal<Scratch> s_scratch = new ThreadLocal<Scratch>() {
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+    //@}
+}
+// vim:syntax=java.doxygen
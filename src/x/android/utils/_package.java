@@ -24,21 +24,41 @@ package x.android.utils;
  * instance to use them. They are ready to go in its current form. Classes in
  * this group are:
  * - \b debug: For debugging purpose.
+ * - \b CLogQueue: Asynchronous output of the \b debug messages.
+ * - \b ILogMessage: Messages built only when their level is enabled.
  * - \b strings: With some helper methods to treat strings.
  * - \b arrays: A big class, with several methods to work with
  *   arrays of scalar values and objects.
  * - \b numbers: Compose and decompose numbers.
+ * - \b SFHex: Hexadecimal encoding, decoding and dumps of byte arrays.
  * .
  *
  * Others are classes that simply don't fit in any other category. They are:
  * - \b time_t: With special and simplified methods to
  *   retrieve and format date and time information.
+ * - \b TimeFormatter: Compiled date and time format specifications,
+ *   used by \b time_t.
  * - \b thread_t: A class that simplified multithreaded
  *   applications. Including mechanism to signal a thread to stop it self.
+ * - \b PeriodicTask: A thread_t calling a job at a fixed rate or with a
+ *   fixed delay.
+ * - \b CTask: A job, with result and exit code, executed by a pool.
+ * - \b CTaskPool: Bounded pool of worker threads with priorities and work
+ *   stealing.
  * - \b CStringTable: Which is used to load string tables
  *   into memory.
+ * - \b CStringReplacer: Replaces several strings in a single pass.
  * - \b SFAsset: Works out loading raw resource files from the
  *   'assets' Android directory.
+ * - \b SFErrors: Shared table of error messages.
+ * - \b ConcurrentSFList: Thread safe SFListT, with copy-on-write or
+ *   striped locks.
+ * - \b IntList, \b LongList: Lists of \b int and \b long values
+ *   without boxing.
+ * - \b IntIntMap, \b IntObjectMap: Maps with \b int keys, using open
+ *   addressing.
+ * - \b ByteRing, \b ObjectRing: Lock-free ring buffers to hand bytes or
+ *   messages from one thread to another. Both extend \b RingBuffer.
  * .
  * @{ *//* ---------------------------------------------------------------- */
 ///@} x_android_utils
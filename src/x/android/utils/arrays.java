@@ -14,6 +14,7 @@
  */
 package x.android.utils;
 
+import java.util.Arrays;
 import java.util.Random;
 import x.android.defs.ERROR;
 
@@ -144,64 +145,50 @@ public final class arrays
      **/
     public static void set(byte[] array, int val, int first, int count)
     {
-        int last = first + count;
-        for (int i = first; i < last; i++) {
-            array[i] = (byte)(val & 0x000000FF);
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, (byte)(val & 0x000000FF));
     }
 
     /** \copydoc arrays#set(byte[],int,int,int) */
     public static void set(char[] array, char val, int first, int count)
     {
-        int limit = first + count;
-        for (int i = first; i < limit; i++) {
-            array[i] = val;
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, val);
     }
 
     /** \copydoc arrays#set(byte[],int,int,int) */
     public static void set(short[] array, int val, int first, int count)
     {
-        int limit = first + count;
-        for (int i = first; i < limit; i++) {
-            array[i] = (short)(val & 0x0000FFFF);
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, (short)(val & 0x0000FFFF));
     }
 
     /** \copydoc arrays#set(byte[],int,int,int) */
     public static void set(int[] array, int val, int first, int count)
     {
-        int limit = first + count;
-        for (int i = first; i < limit; i++) {
-            array[i] = val;
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, val);
     }
 
     /** \copydoc arrays#set(byte[],int,int,int) */
     public static void set(long[] array, long val, int first, int count)
     {
-        int limit = first + count;
-        for (int i = first; i < limit; i++) {
-            array[i] = val;
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, val);
     }
 
     /** \copydoc arrays#set(byte[],int,int,int) */
     public static void set(String[] array, String val, int first, int count)
     {
-        int limit = first + count;
-        for (int i = first; i < limit; i++) {
-            array[i] = val;
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, val);
     }
 
     /** \copydoc arrays#set(byte[],int,int,int) */
     public static void set(Object[] array, Object val, int first, int count)
     {
-        int limit = first + count;
-        for (int i = first; i < limit; i++) {
-            array[i] = val;
-        }
+        if (count > 0)
+            Arrays.fill(array, first, first + count, val);
     }
     //@}
 
@@ -221,13 +208,13 @@ public final class arrays
      * array should be copied to \a dst. In cases where the number of elements
      * to copy are zero, no objects are touched by this function.
      * \note Arguments are in different order of \c System.arraycopy()
-     * standard function.
+     * standard function, which is used to do the copy.
      **/
     public static void copy(byte[] dst, int dstInd, byte[] src, int srcInd, int count)
     {
         if (count < 0) { count = (arrays.length(src) - srcInd); }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
 
@@ -236,9 +223,9 @@ public final class arrays
      **/
     public static void copy(char[] dst, int dstInd, char[] src, int srcInd, int count)
     {
-        if (count < 0) { count = arrays.length(src) - srcInd; }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count < 0) { count = (arrays.length(src) - srcInd); }
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
 
@@ -247,9 +234,9 @@ public final class arrays
      **/
     public static void copy(short[] dst, int dstInd, short[] src, int srcInd, int count)
     {
-        if (count < 0) { count = arrays.length(src) - srcInd; }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count < 0) { count = (arrays.length(src) - srcInd); }
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
 
@@ -258,9 +245,9 @@ public final class arrays
      **/
     public static void copy(int[] dst, int dstInd, int[] src, int srcInd, int count)
     {
-        if (count < 0) { count = arrays.length(src) - srcInd; }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count < 0) { count = (arrays.length(src) - srcInd); }
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
 
@@ -269,9 +256,9 @@ public final class arrays
      **/
     public static void copy(long[] dst, int dstInd, long[] src, int srcInd, int count)
     {
-        if (count < 0) { count = arrays.length(src) - srcInd; }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count < 0) { count = (arrays.length(src) - srcInd); }
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
 
@@ -280,9 +267,9 @@ public final class arrays
      **/
     public static void copy(String[] dst, int dstInd, String[] src, int srcInd, int count)
     {
-        if (count < 0) { count = arrays.length(src) - srcInd; }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count < 0) { count = (arrays.length(src) - srcInd); }
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
 
@@ -291,9 +278,9 @@ public final class arrays
      **/
     public static void copy(Object[] dst, int dstInd, Object[] src, int srcInd, int count)
     {
-        if (count < 0) { count = arrays.length(src) - srcInd; }
-        for (int i = 0; i < count; i++) {
-            dst[i+dstInd] = src[i+srcInd];
+        if (count < 0) { count = (arrays.length(src) - srcInd); }
+        if (count > 0) {
+            System.arraycopy(src, srcInd, dst, dstInd, count);
         }
     }
     //@}
@@ -314,22 +301,17 @@ public final class arrays
      * \param count The number of elements to copy from \a src to \a dst.
      * \remarks \a srcIdx and \a dstIdx must be valid. No check is done in
      * these arguments. \a count can be less than zero if the entire \a src
-     * array should be copied to \a dst. If \a src and \a dst are different
-     * arrays the \c copy() method will be used due of performance reasons.
+     * array should be copied to \a dst. The copy is done by \c
+     * System.arraycopy(), that handles overlapping areas.
      **/
     public static void move(byte[] dst, int dstIdx, byte[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
 
@@ -338,17 +320,12 @@ public final class arrays
      **/
     public static void move(char[] dst, int dstIdx, char[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
 
@@ -357,17 +334,12 @@ public final class arrays
      **/
     public static void move(short[] dst, int dstIdx, short[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
 
@@ -376,17 +348,12 @@ public final class arrays
      **/
     public static void move(int[] dst, int dstIdx, int[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
 
@@ -395,17 +362,12 @@ public final class arrays
      **/
     public static void move(long[] dst, int dstIdx, long[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
 
@@ -414,17 +376,12 @@ public final class arrays
      **/
     public static void move(String[] dst, int dstIdx, String[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
 
@@ -433,17 +390,12 @@ public final class arrays
      **/
     public static void move(Object[] dst, int dstIdx, Object[] src, int srcIdx, int count)
     {
-        if ((dst != src) || (dstIdx < srcIdx)) {
-            copy(dst, dstIdx, src, srcIdx, count);
-            return;
-        }
-
         if (count < 0) {
-            count = (src.length - srcIdx);
+            count = (arrays.length(src) - srcIdx);
         }
 
-        while (--count >= 0) {
-            dst[dstIdx + count] = src[srcIdx + count];
+        if (count > 0) {
+            System.arraycopy(src, srcIdx, dst, dstIdx, count);
         }
     }
     //@}
@@ -1005,9 +957,10 @@ public final class arrays
         if ((count < 0) || (count > (array.length - start)))
             count = array.length - start;
 
-        for (int i = 0; i < count; i++) {
-            if (array[start + i] == value)
-                return (start + i);
+        final int limit = start + count;
+        for (int i = start; i < limit; i++) {
+            if (array[i] == value)
+                return i;
         }
         return -1;
     }
@@ -1023,9 +976,15 @@ public final class arrays
         if ((count < 0) || (count > (array.length - start)))
             count = array.length - start;
 
-        for (int i = 0; i < count - 1; i++) {
-            if (value == bigEndToShort(array, (start + i)))
-                return (start + i);
+        /* Finds the high byte and then checks the low one, without building
+         * a short value at each position. */
+        final byte high  = (byte)(value >> 8);
+        final byte low   = (byte)value;
+        final int  limit = start + count - 1;
+
+        for (int i = start; i < limit; i++) {
+            if ((array[i] == high) && (array[i + 1] == low))
+                return i;
         }
         return -1;
     }
@@ -1370,42 +1329,26 @@ public final class arrays
      * representation.
      * @param array Byte array with values to convert.
      * @param separator A string to separate groups. Can be \b null.
-     * @param frequency The frequency to separate groups. See the example.
+     * @param frequency The number of bytes in each group. See the example.
      * When \a separtor is \b null, \a frequency is ignored.
      * @returns A string with the converted value.
      * @remarks The conversion is done byte by byte, building its
      * representation in a string notation. For example:
      * <pre>
      * byte[] array = { 0x01, 0xA0, 0x2F, 0xFF };
-     * arrays.toString(array, "-", 2);
-     * arrays.toString(array, " ", 4);
+     * arrays.toString(array, "-", 1);
+     * arrays.toString(array, " ", 2);
      * </pre>
      * Then it will be converted in this string:
      * <pre>
      * "01-A0-2F-FF"
      * "01A0 2FFF"
      * </pre>
-     * Where each byte is represented by two characters.
+     * Where each byte is represented by two characters. The conversion is
+     * done by SFHex#toString().
      **/
     public static String toString(byte[] array, String separator, int frequency) {
-        int    limit = arrays.length(array);
-        int    extra = (separator == null ? 0 : separator.length() * limit);
-        StringBuilder sb = new StringBuilder(limit*2 + extra);
-
-        if (separator != null)
-        {
-            for (int i = 0; i < limit; i++) {
-                if ((i>0) && (((i+1) % frequency) == 0))
-                    sb.append(separator);
-                sb.append(String.format("%02X", array[i]));
-            }
-        }
-        else
-        {
-            for (int i = 0; i < limit; i++)
-                sb.append(String.format("%02X", array[i]));
-        }
-        return sb.toString();
+        return SFHex.toString(array, 0, arrays.length(array), separator, frequency);
     }
 
     /**
@@ -1430,32 +1373,7 @@ public final class arrays
      **/
     public static byte[] fromString(String binary)
     {
-        char[] nibbles;
-        int i, x, limit = strings.length(binary);
-
-        if (limit == 0) return new byte[0];
-
-        /* First we remove any non hexadecimal character, forming an array of
-         * remaining values.
-         */
-        nibbles = new char[limit];
-        for (i = 0, x = 0; i < limit; i++) {
-            if (strings.isHexChar(binary.charAt(i)))
-                nibbles[x++] = (char)Character.digit(binary.charAt(i), 16);
-        }
-
-        /* Now we converte each two characters into a byte value. */
-        int value;
-        byte[] result = new byte[x/2];      /* x has the final number of nibbles found. */
-
-        limit = result.length * 2;      /* In the case when x is odd. */
-        i = x = 0;
-        while (i < limit) {
-            value = nibbles[i++] * 16;
-            value += nibbles[i++];
-            result[x++] = (byte)(value & 0x000000FF);
-        }
-        return result;
+        return SFHex.decode(binary);
     }
 
     /**
@@ -18,6 +18,8 @@ import java.io.PrintStream;
 
 import android.util.Log;
 
+import x.android.defs.ERROR;
+
 /**
  * \ingroup x_android_utils
  * Contain functions to write messages and data in the logging output.
@@ -26,6 +28,31 @@ import android.util.Log;
  *//* --------------------------------------------------------------------- */
 public final class debug
 {
+    /** \name LEVEL CHECK */ //@{
+    // public static final boolean isEnabled(int level);/*{{{*/
+    /**
+     * Checks whether messages of a level are written.
+     * Use it to skip the building of expensive messages:
+     * @code
+     * if (debug.isEnabled(CLogQueue.LEVEL_DEBUG))
+     *     debug.w("frame: %s", arrays.toString(frame, " ", 16));
+     * @endcode
+     * \param level One of the level constants of CLogQueue. The write
+     * methods use CLogQueue#LEVEL_VERBOSE. The exception methods use
+     * CLogQueue#LEVEL_ERROR.
+     * \return \b false when #enabled is \b false or the level is below
+     * #level. When the asynchronous output is running the level of #TAG in
+     * the queue is also checked.
+     * \since jguime 2.5
+     **/
+    public static final boolean isEnabled(int level) {
+        if (!debug.enabled || (level < debug.level)) return false;
+
+        CLogQueue queue = s_queue;
+        return ((queue == null) || queue.isLoggable(debug.TAG, level));
+    }/*}}}*/
+    //@}
+
     /** \name WRITE METHODS */ //@{
     // public static final void w(String text);/*{{{*/
     /**
@@ -33,28 +60,13 @@ public final class debug
      * \param text Text to be written. A new line will be appended at its end.
      **/
     public static final void w(String text) {
-        if (!debug.enabled || (text == null)) return;
-        if (debug.timestamp)
-        {
-            StringBuilder sb = new StringBuilder(13 + text.length());
-            time_t tm = new time_t();
-            
-            sb.append('[');
-            if (tm.hour() < 10) sb.append('0');
-            sb.append(tm.hour()).append(':');
-            if (tm.minute() < 10) sb.append('0');
-            sb.append(tm.minute()).append(':');
-            if (tm.seconds() < 10) sb.append('0');
-            sb.append(tm.seconds()).append('.');
-            if (tm.milliseconds() < 1000) sb.append('0');
-            if (tm.milliseconds() < 100) sb.append('0');
-            if (tm.milliseconds() < 10) sb.append('0');
-            sb.append(tm.milliseconds());
-            sb.append("] ").append(text);
+        if ((text == null) || !debug.isEnabled(CLogQueue.LEVEL_VERBOSE)) return;
 
-            text = sb.toString();
-        }
-        Log.v(debug.TAG, text);
+        CLogQueue queue = s_queue;
+        if (queue != null)
+            queue._internal_post(CLogQueue.KIND_TEXT, CLogQueue.LEVEL_VERBOSE, debug.TAG, text, null, null);
+        else
+            debug._internal_write(text);
     }/*}}}*/
     // public static final void w(String fmt, Object... vList);/*{{{*/
     /**
@@ -66,8 +78,130 @@ public final class debug
      * written in the logging output.
      **/
     public static final void w(String fmt, Object... vList) {
-        if (!debug.enabled) return;
-        debug.w(String.format(fmt, vList));
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, vList);
+    }/*}}}*/
+    // public static final void w(int level, ILogMessage message);/*{{{*/
+    /**
+     * Writes a message built only when the level is enabled.
+     * \param level Level of the message. See #isEnabled().
+     * \param message Object that builds the message.
+     * \since jguime 2.5
+     **/
+    public static final void w(int level, ILogMessage message) {
+        if ((message == null) || !debug.isEnabled(level)) return;
+
+        String text = message.message();
+        if (text == null) return;
+
+        CLogQueue queue = s_queue;
+        if (queue != null)
+            queue._internal_post(CLogQueue.KIND_TEXT, level, debug.TAG, text, null, null);
+        else
+            debug._internal_write(text);
+    }/*}}}*/
+    //@}
+
+    /** \name SPECIALIZED WRITE METHODS
+     * These overloads avoid the array of arguments and the boxing of
+     * primitive values when the output is disabled. The arguments are boxed
+     * only when the message will be written. There is one overload for each
+     * primitive type, so the value is never widened: \c %02X of a \b byte
+     * prints two digits and \c %s of a \b float prints it as a \b float.
+     * Two primitive arguments use the \b Object overload, which keeps
+     * their types.
+     * \since jguime 2.5
+     **/ //@{
+    // public static final void w(String fmt, Object value);/*{{{*/
+    /**
+     * Formats one argument and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, Object value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { value });
+    }/*}}}*/
+    // public static final void w(String fmt, Object value1, Object value2);/*{{{*/
+    /**
+     * Formats two arguments and writes in the logging output.
+     * \param fmt String with two format specifications.
+     * \param value1 The first argument.
+     * \param value2 The second argument.
+     **/
+    public static final void w(String fmt, Object value1, Object value2) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { value1, value2 });
+    }/*}}}*/
+    // public static final void w(String fmt, byte value);/*{{{*/
+    /**
+     * Formats a \b byte value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, byte value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Byte.valueOf(value) });
+    }/*}}}*/
+    // public static final void w(String fmt, short value);/*{{{*/
+    /**
+     * Formats a \b short value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, short value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Short.valueOf(value) });
+    }/*}}}*/
+    // public static final void w(String fmt, int value);/*{{{*/
+    /**
+     * Formats an \b int value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, int value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Integer.valueOf(value) });
+    }/*}}}*/
+    // public static final void w(String fmt, long value);/*{{{*/
+    /**
+     * Formats a \b long value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, long value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Long.valueOf(value) });
+    }/*}}}*/
+    // public static final void w(String fmt, float value);/*{{{*/
+    /**
+     * Formats a \b float value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, float value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Float.valueOf(value) });
+    }/*}}}*/
+    // public static final void w(String fmt, double value);/*{{{*/
+    /**
+     * Formats a \b double value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, double value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Double.valueOf(value) });
+    }/*}}}*/
+    // public static final void w(String fmt, char value);/*{{{*/
+    /**
+     * Formats a \b char value and writes in the logging output.
+     * \param fmt String with one format specification.
+     * \param value The argument.
+     **/
+    public static final void w(String fmt, char value) {
+        if (debug.isEnabled(CLogQueue.LEVEL_VERBOSE))
+            debug._internal_w(fmt, new Object[] { Character.valueOf(value) });
     }/*}}}*/
     //@}
 
@@ -93,11 +227,13 @@ public final class debug
      * string. This list will follow the rules in `String::format()` function.
      **/
     public static final void e(Exception e, String msg, Object... vList) {
-        if (!debug.enabled) return;
+        if (!debug.isEnabled(CLogQueue.LEVEL_ERROR)) return;
 
-        msg = strings.replace(msg, "$t", "file '$f' at line '$l' in '$c::$m'");
-        msg = debug.formatE(e, msg);
-        debug.w(msg, vList);
+        CLogQueue queue = s_queue;
+        if (queue != null)
+            queue._internal_post(CLogQueue.KIND_EXCEPTION, CLogQueue.LEVEL_ERROR, debug.TAG, msg, vList, e);
+        else
+            debug._internal_write(String.format(debug._internal_formatE(e, msg), vList));
     }/*}}}*/
     // public static final void e(Exception e, String msg);/*{{{*/
     /**
@@ -118,11 +254,13 @@ public final class debug
      * sign (%).
      **/
     public static final void e(Exception e, String msg) {
-        if (!debug.enabled) return;
+        if (!debug.isEnabled(CLogQueue.LEVEL_ERROR)) return;
 
-        msg = strings.replace(msg, "$t", "file '$f' at line '$l' in '$c::$m'");
-        msg = debug.formatE(e, msg);
-        debug.w(msg);
+        CLogQueue queue = s_queue;
+        if (queue != null)
+            queue._internal_post(CLogQueue.KIND_EXCEPTION, CLogQueue.LEVEL_ERROR, debug.TAG, msg, null, e);
+        else
+            debug._internal_write(debug._internal_formatE(e, msg));
     }/*}}}*/
     // public static final void e(String fmt, Exception ex);/*{{{*/
     /**
@@ -191,8 +329,14 @@ public final class debug
      * \param ex The Exception object.
      **/
     public static final void p(String fmt, Exception ex) {
-        if (!debug.enabled) return;
-        debug.w(String.format(fmt, ex.getMessage()) + "\n" + Log.getStackTraceString(ex));
+        if (!debug.isEnabled(CLogQueue.LEVEL_ERROR)) return;
+
+        CLogQueue queue = s_queue;
+        if (queue != null) {
+            queue._internal_post(CLogQueue.KIND_TRACE, CLogQueue.LEVEL_ERROR, debug.TAG, fmt, null, ex);
+            return;
+        }
+        debug._internal_write(String.format(fmt, ex.getMessage()) + "\n" + Log.getStackTraceString(ex));
     }/*}}}*/
     //@}
 
@@ -224,13 +368,10 @@ public final class debug
         }
 
         /* Create a buffer. We do not write directly to the log. */
-        StringBuffer sb = new StringBuffer(count * 3 + 3);
-        sb.append('[');
+        StringBuilder sb = new StringBuilder((limit - start) * 3 + 4);
 
-        while (start < limit) {
-            sb.append(String.format(" %02X", vector[start]));
-            start++;
-        }
+        sb.append("[ ");
+        SFHex.append(sb, vector, start, (limit - start), " ", 1);
         sb.append(" ]");
 
         debug.w(sb.toString());
@@ -268,17 +409,100 @@ public final class debug
         }
 
         /* Create a buffer. We do not write directly to the log. */
-        StringBuffer sb = new StringBuffer(strings.length(pre) + count * 3 + 3 + strings.length(pos));
-        sb.append(pre);
-
-        while (start < limit) {
-            sb.append(String.format(" %02X", vector[start]));
-            start++;
-        }
+        StringBuilder sb = new StringBuilder(strings.length(pre) + (limit - start) * 3 + 3 + strings.length(pos));
+        sb.append(pre).append(' ');
+        SFHex.append(sb, vector, start, (limit - start), " ", 1);
         sb.append(pos);
 
         debug.w(sb.toString());
     }/*}}}*/
+    // public static final void dump(byte[] vector, int start, int count, long offset);/*{{{*/
+    /**
+     * Writes a hexadecimal dump of a byte array.
+     * Each line has the offset, 16 bytes and their ASCII characters, as
+     * produced by SFHex#dumpLine(). The timestamp is written only in the
+     * first line.
+     * \param vector The byte array to dump.
+     * \param start The first byte of the array to dump.
+     * \param count The number of bytes to dump starting from \a start.
+     * \param offset The offset shown for the first byte.
+     * \since jguime 2.5
+     **/
+    public static final void dump(byte[] vector, int start, int count, long offset) {
+        if ((vector == null) || !debug.isEnabled(CLogQueue.LEVEL_VERBOSE)) return;
+
+        start = Math.max(0, Math.min(start, vector.length));
+        count = Math.max(0, Math.min(count, vector.length - start));
+
+        final boolean stamp = debug.timestamp;
+        StringBuilder sb = new StringBuilder(SFHex.LINE_LENGTH);
+
+        try
+        {
+            for (int i = 0; i < count; i += SFHex.LINE_BYTES) {
+                sb.setLength(0);
+                debug.w(SFHex.dumpLine(sb, vector, start + i, count - i, offset + i).toString());
+                debug.timestamp = false;
+            }
+        }
+        finally {
+            debug.timestamp = stamp;
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name ASYNCHRONOUS OUTPUT */ //@{
+    // public static final int       startAsync(int capacity);/*{{{*/
+    /**
+     * Starts writing the messages in a background thread.
+     * After this call the write methods only post the messages in a
+     * CLogQueue. The formatting and the output are done by the writer
+     * thread, so logging doesn't delay the calling thread.
+     * \param capacity Maximum number of pending messages. When the queue is
+     * full new messages are dropped.
+     * \return \c ERROR.SUCCESS or \c ERROR.RUNNING when the asynchronous
+     * output is already running. Other errors come from thread_t#start().
+     * \since jguime 2.5
+     **/
+    public static final synchronized int startAsync(int capacity) {
+        if (s_queue != null) return ERROR.RUNNING;
+
+        CLogQueue queue = new CLogQueue(capacity);
+        int result = queue.start();
+
+        if (result == ERROR.SUCCESS)
+            s_queue = queue;
+
+        return result;
+    }/*}}}*/
+    // public static final int       stopAsync(long timeout);/*{{{*/
+    /**
+     * Stops the asynchronous output.
+     * The pending messages are written and the messages are written
+     * directly again.
+     * \param timeout Maximum time to wait for the writer thread, in
+     * milliseconds. See thread_t#join().
+     * \return The result of CLogQueue#stop().
+     * \since jguime 2.5
+     **/
+    public static final synchronized int stopAsync(long timeout) {
+        CLogQueue queue = s_queue;
+        if (queue == null) return ERROR.SUCCESS;
+
+        s_queue = null;
+        return queue.stop(timeout);
+    }/*}}}*/
+    // public static final CLogQueue queue();/*{{{*/
+    /**
+     * Gets the queue of the asynchronous output.
+     * Used to set the level of the tags, the output file and to read the
+     * counters of the queue.
+     * \return The queue or \b null when the output is synchronous.
+     * \since jguime 2.5
+     **/
+    public static final CLogQueue queue() {
+        return s_queue;
+    }/*}}}*/
     //@}
 
     /** \name DIRECT OUTPUT METHODS */ //@{
@@ -321,6 +545,60 @@ public final class debug
     //@}
 
     /** \name PRIVATE METHODS */ //@{
+    // static void _internal_w(String fmt, Object[] args);/*{{{*/
+    /**
+     * Writes a formatted message.
+     * The level must be checked by the caller.
+     * \param fmt Format string.
+     * \param args Arguments of the format.
+     **/
+    static void _internal_w(String fmt, Object[] args) {
+        CLogQueue queue = s_queue;
+        if (queue != null)
+            queue._internal_post(CLogQueue.KIND_FORMAT, CLogQueue.LEVEL_VERBOSE, debug.TAG, fmt, args, null);
+        else
+            debug._internal_write(String.format(fmt, args));
+    }/*}}}*/
+    // static void _internal_write(String text);/*{{{*/
+    /**
+     * Writes a message directly in the \c Log object.
+     * \param text The message.
+     **/
+    static void _internal_write(String text) {
+        if (debug.timestamp)
+        {
+            StringBuilder sb = new StringBuilder(16 + text.length());
+            debug._internal_stamp(sb, new time_t()).append(text);
+            text = sb.toString();
+        }
+        Log.v(debug.TAG, text);
+    }/*}}}*/
+    // static StringBuilder _internal_stamp(StringBuilder sb, time_t tm);/*{{{*/
+    /**
+     * Appends the timestamp of a message.
+     * \param sb Destination builder.
+     * \param tm Time of the message.
+     * \returns The \a sb argument.
+     **/
+    static StringBuilder _internal_stamp(StringBuilder sb, time_t tm) {
+        sb.append('[');
+        numbers.appendDecimal(sb, tm.hour(), 2).append(':');
+        numbers.appendDecimal(sb, tm.minute(), 2).append(':');
+        numbers.appendDecimal(sb, tm.seconds(), 2).append('.');
+        numbers.appendDecimal(sb, tm.milliseconds(), 4);
+        return sb.append("] ");
+    }/*}}}*/
+    // static String _internal_formatE(Exception ex, String msg);/*{{{*/
+    /**
+     * Expands the exception specifiers of debug#e().
+     * \param ex The exception.
+     * \param msg The message, with the '$' specifiers.
+     * \returns The message with the specifiers replaced.
+     **/
+    static String _internal_formatE(Exception ex, String msg) {
+        msg = strings.replace(msg, "$t", "file '$f' at line '$l' in '$c::$m'");
+        return debug.formatE(ex, msg);
+    }/*}}}*/
     // static String formatE(Exception ex, String fmt);/*{{{*/
     /**
      * Formats an exception class int a string.
@@ -391,10 +669,15 @@ public final class debug
     /** \name PUBLIC STATIC VARIABLES */ //@{
     public static boolean enabled = true;       /**< Debugging enabled by default. */
     public static boolean timestamp = true;     /**< Preceed output with timestamp. */
+    public static int     level = CLogQueue.LEVEL_VERBOSE;  /**< Minimum level written. \since jguime 2.5 */
     //@}
 
     /** \name PUBLIC CONSTANTS */ //@{
     public static String TAG = "X__X";          /**< Logging tag.   */
     //@}
+
+    /** \name STATIC DATA */ //@{
+    private static volatile CLogQueue s_queue;  /**< Asynchronous output. */
+    //@}
 }
 // vim:syntax=java.doxygen
@@ -299,5 +299,425 @@ public final class numbers
         return (byte)(((highOrderNibble & 0x0F) << 4) | (lowOrderNibble & 0x0F));
     }/*}}}*/
     //@}
+
+    /** \name PARSERS */ //@{
+    // public static long  parseLong(CharSequence text, int start, int end, int radix);/*{{{*/
+    /**
+     * Converts the characters of a text range into a number.
+     * No object is allocated.
+     * \param text The text with the number.
+     * \param start Index of the first character.
+     * \param end Index after the last character.
+     * \param radix The radix to do the conversion. This must be 0 or in range
+     * 2-36. If this value is 0 the radix is recognized from the text: '0x'
+     * or '0X' prefix means hexadecimal, a leading '0' means octal and
+     * anything else means decimal.
+     * \return The converted value. Zero if the range has no number.
+     * \remarks Leading white spaces and a sign ('-' or '+') are accepted.
+     * When \a radix is 16 the '0x' prefix is optional. The conversion stops
+     * in the first character that is not a digit in \a radix. No error or
+     * exception is thrown.
+     * \since jguime 2.5
+     **/
+    public static long  parseLong(CharSequence text, int start, int end, int radix) {
+        if (text == null) return 0L;
+        return _internal_parseLong(text, SRC_CHARS, start, Math.min(end, text.length()), radix);
+    }/*}}}*/
+    // public static long  parseLong(char[] text, int start, int end, int radix);/*{{{*/
+    /**
+     * \copydoc numbers::parseLong(CharSequence,int,int,int)
+     **/
+    public static long  parseLong(char[] text, int start, int end, int radix) {
+        if (text == null) return 0L;
+        return _internal_parseLong(text, SRC_ARRAY, start, Math.min(end, text.length), radix);
+    }/*}}}*/
+    // public static long  parseLong(byte[] text, int start, int end, int radix);/*{{{*/
+    /**
+     * \copydoc numbers::parseLong(CharSequence,int,int,int)
+     * \note Each byte is an ASCII character.
+     **/
+    public static long  parseLong(byte[] text, int start, int end, int radix) {
+        if (text == null) return 0L;
+        return _internal_parseLong(text, SRC_BYTES, start, Math.min(end, text.length), radix);
+    }/*}}}*/
+    // public static int   parseInt(CharSequence text, int start, int end, int radix);/*{{{*/
+    /**
+     * Converts the characters of a text range into an \b int number.
+     * Works like parseLong(CharSequence,int,int,int). The result is
+     * truncated to 32 bits.
+     * \since jguime 2.5
+     **/
+    public static int   parseInt(CharSequence text, int start, int end, int radix) {
+        return (int)parseLong(text, start, end, radix);
+    }/*}}}*/
+    // public static int   parseInt(char[] text, int start, int end, int radix);/*{{{*/
+    /**
+     * \copydoc numbers::parseInt(CharSequence,int,int,int)
+     **/
+    public static int   parseInt(char[] text, int start, int end, int radix) {
+        return (int)parseLong(text, start, end, radix);
+    }/*}}}*/
+    // public static int   parseInt(byte[] text, int start, int end, int radix);/*{{{*/
+    /**
+     * \copydoc numbers::parseInt(CharSequence,int,int,int)
+     **/
+    public static int   parseInt(byte[] text, int start, int end, int radix) {
+        return (int)parseLong(text, start, end, radix);
+    }/*}}}*/
+    // public static float parseFloat(CharSequence text, int start, int end);/*{{{*/
+    /**
+     * Converts the characters of a text range into a \b float number.
+     * Numbers with up to 7 significant digits and small exponents, which are
+     * the usual ones, are converted with no object allocated. Others are
+     * converted by \c Float.parseFloat(), with the same result.
+     * \param text The text with the number.
+     * \param start Index of the first character.
+     * \param end Index after the last character.
+     * \return The converted value. Zero if the range is not a valid number.
+     * \since jguime 2.5
+     **/
+    public static float parseFloat(CharSequence text, int start, int end) {
+        if (text == null) return 0.0f;
+        return _internal_parseFloat(text, SRC_CHARS, start, Math.min(end, text.length()));
+    }/*}}}*/
+    // public static float parseFloat(char[] text, int start, int end);/*{{{*/
+    /**
+     * \copydoc numbers::parseFloat(CharSequence,int,int)
+     **/
+    public static float parseFloat(char[] text, int start, int end) {
+        if (text == null) return 0.0f;
+        return _internal_parseFloat(text, SRC_ARRAY, start, Math.min(end, text.length));
+    }/*}}}*/
+    // public static float parseFloat(byte[] text, int start, int end);/*{{{*/
+    /**
+     * \copydoc numbers::parseFloat(CharSequence,int,int)
+     * \note Each byte is an ASCII character.
+     **/
+    public static float parseFloat(byte[] text, int start, int end) {
+        if (text == null) return 0.0f;
+        return _internal_parseFloat(text, SRC_BYTES, start, Math.min(end, text.length));
+    }/*}}}*/
+    //@}
+
+    /** \name FORMATTERS */ //@{
+    // public static StringBuilder appendDecimal(StringBuilder sb, long value);/*{{{*/
+    /**
+     * Writes a number in decimal notation.
+     * No intermediate string is created.
+     * \param sb Destination builder.
+     * \param value Value to write.
+     * \return The \a sb argument.
+     * \since jguime 2.5
+     **/
+    public static StringBuilder appendDecimal(StringBuilder sb, long value) {
+        return appendDecimal(sb, value, 0);
+    }/*}}}*/
+    // public static StringBuilder appendDecimal(StringBuilder sb, long value, int width);/*{{{*/
+    /**
+     * Writes a number in decimal notation, with leading zeros.
+     * \param sb Destination builder.
+     * \param value Value to write.
+     * \param width Minimum number of digits. The sign is not counted.
+     * \return The \a sb argument.
+     * \since jguime 2.5
+     **/
+    public static StringBuilder appendDecimal(StringBuilder sb, long value, int width) {
+        if (value < 0L) sb.append('-');
+
+        int digits = _internal_digits(value);
+        while (width-- > digits) sb.append('0');
+
+        int pos = sb.length() + digits;
+        sb.setLength(pos);
+
+        /* Negative values are used, so Long.MIN_VALUE works too. */
+        long v = ((value > 0L) ? -value : value);
+        do {
+            sb.setCharAt(--pos, (char)('0' - (v % 10)));
+            v /= 10;
+        } while (v != 0L);
+
+        return sb;
+    }/*}}}*/
+    // public static StringBuilder appendHex(StringBuilder sb, long value, int digits);/*{{{*/
+    /**
+     * Writes a number in hexadecimal notation, with upper case letters.
+     * \param sb Destination builder.
+     * \param value Value to write. It is treated as unsigned.
+     * \param digits Minimum number of digits. Leading zeros are added.
+     * \return The \a sb argument.
+     * \since jguime 2.5
+     **/
+    public static StringBuilder appendHex(StringBuilder sb, long value, int digits) {
+        int count = Math.max(digits, (67 - Long.numberOfLeadingZeros(value | 1L)) >> 2);
+
+        while (count-- > 0)
+            sb.append(HEX_DIGITS[(int)(value >>> (count << 2)) & 0x0F]);
+
+        return sb;
+    }/*}}}*/
+    // public static int   formatDecimal(byte[] dest, int pos, long value);/*{{{*/
+    /**
+     * Writes a number in decimal notation, as ASCII characters.
+     * \param dest Destination array. Must have room for 20 bytes.
+     * \param pos Index of the first byte to write.
+     * \param value Value to write.
+     * \return Index after the last byte written.
+     * \since jguime 2.5
+     **/
+    public static int   formatDecimal(byte[] dest, int pos, long value) {
+        if (value < 0L) dest[pos++] = '-';
+
+        int  end = pos + _internal_digits(value);
+        long v   = ((value > 0L) ? -value : value);
+
+        pos = end;
+        do {
+            dest[--pos] = (byte)('0' - (v % 10));
+            v /= 10;
+        } while (v != 0L);
+
+        return end;
+    }/*}}}*/
+    // public static int   formatHex(byte[] dest, int pos, long value, int digits);/*{{{*/
+    /**
+     * Writes a number in hexadecimal notation, as ASCII characters.
+     * \param dest Destination array. Must have room for all digits.
+     * \param pos Index of the first byte to write.
+     * \param value Value to write. It is treated as unsigned.
+     * \param digits Minimum number of digits. Leading zeros are added.
+     * \return Index after the last byte written.
+     * \since jguime 2.5
+     **/
+    public static int   formatHex(byte[] dest, int pos, long value, int digits) {
+        int count = Math.max(digits, (67 - Long.numberOfLeadingZeros(value | 1L)) >> 2);
+
+        while (count-- > 0)
+            dest[pos++] = (byte)HEX_DIGITS[(int)(value >>> (count << 2)) & 0x0F];
+
+        return pos;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNALS */ //@{
+    // static int   _internal_char(Object text, int kind, int index);/*{{{*/
+    /**
+     * Reads a character from one of the supported sources.
+     **/
+    static int _internal_char(Object text, int kind, int index) {
+        switch (kind)
+        {
+        case SRC_ARRAY: return ((char[])text)[index];
+        case SRC_BYTES: return (((byte[])text)[index] & 0xFF);
+        }
+        return ((CharSequence)text).charAt(index);
+    }/*}}}*/
+    // static int   _internal_digits(long value);/*{{{*/
+    /**
+     * Counts the decimal digits of a value, without its sign.
+     **/
+    static int _internal_digits(long value) {
+        long v = ((value > 0L) ? -value : value);
+        int  digits = 1;
+
+        while (v <= -10L) {
+            v /= 10;
+            digits++;
+        }
+        return digits;
+    }/*}}}*/
+    // static long  _internal_parseLong(Object text, int kind, int pos, int end, int radix);/*{{{*/
+    /**
+     * Converts a range of characters into a number.
+     * See parseLong(CharSequence,int,int,int).
+     **/
+    static long _internal_parseLong(Object text, int kind, int pos, int end, int radix) {
+        long result = 0L;
+        boolean negative = false;
+        int c, val;
+
+        if (pos < 0) pos = 0;
+
+        while ((pos < end) && Character.isWhitespace(_internal_char(text, kind, pos)))
+            pos++;                  /* Skip white spaces. */
+
+        if (pos >= end) return result;
+
+        c = _internal_char(text, kind, pos);
+        if ((c == '-') || (c == '+')) {
+            negative = (c == '-');
+            pos++;
+        }
+
+        if (pos >= end) return result;
+
+        boolean prefix = ((_internal_char(text, kind, pos) == '0') && (pos < (end - 1)) &&
+                          ((_internal_char(text, kind, pos + 1) | 0x20) == 'x'));
+
+        if (radix == 0)
+            radix = (prefix ? 16 : ((_internal_char(text, kind, pos) == '0') ? 8 : 10));
+
+        if ((radix < 2) || (radix > 36))
+            return result;
+        else if ((radix == 16) && prefix)
+            pos += 2;
+
+        while (pos < end)
+        {
+            c = _internal_char(text, kind, pos++);
+
+            if (c < 128)
+                val = DIGITS[c];
+            else
+                val = Character.digit((char)c, radix);
+
+            if ((val < 0) || (val >= radix)) break;
+            result = result * radix + val;
+        }
+        return (negative ? -result : result);
+    }/*}}}*/
+    // static float _internal_parseFloat(Object text, int kind, int start, int end);/*{{{*/
+    /**
+     * Converts a range of characters into a \b float number.
+     * Uses the exact fast path when the number has up to 24 bits of
+     * mantissa and a power of ten that is exact in a \b float.
+     * See parseFloat(CharSequence,int,int).
+     **/
+    static float _internal_parseFloat(Object text, int kind, int start, int end) {
+        int pos = Math.max(0, start);
+
+        /* Float.parseFloat() ignores the same characters at both ends. */
+        while ((pos < end) && (_internal_char(text, kind, pos) <= ' ')) pos++;
+        while ((end > pos) && (_internal_char(text, kind, end - 1) <= ' ')) end--;
+
+        if (pos >= end) return 0.0f;
+
+        int first = pos, c = _internal_char(text, kind, pos);
+        boolean negative = false, digits = false, exact = true;
+        long mantissa = 0L;
+        int  significant = 0, exponent = 0, value;
+
+        if ((c == '-') || (c == '+')) {
+            negative = (c == '-');
+            pos++;
+        }
+
+        /* Integer part. */
+        while ((pos < end) && ((value = _internal_char(text, kind, pos) - '0') >= 0) && (value <= 9)) {
+            digits = true;
+            pos++;
+            if ((mantissa == 0L) && (value == 0)) continue;
+            if (significant < 18) {
+                mantissa = mantissa * 10 + value;
+                significant++;
+            } else {
+                exponent++;
+                exact &= (value == 0);
+            }
+        }
+
+        /* Fraction part. */
+        if ((pos < end) && (_internal_char(text, kind, pos) == '.'))
+        {
+            pos++;
+            while ((pos < end) && ((value = _internal_char(text, kind, pos) - '0') >= 0) && (value <= 9)) {
+                digits = true;
+                pos++;
+                if (significant < 18) {
+                    if ((mantissa != 0L) || (value != 0)) {
+                        mantissa = mantissa * 10 + value;
+                        significant++;
+                    }
+                    exponent--;
+                } else {
+                    exact &= (value == 0);
+                }
+            }
+        }
+
+        /* Exponent part. */
+        if (digits && (pos < end) && ((_internal_char(text, kind, pos) | 0x20) == 'e'))
+        {
+            boolean minus = false;
+            int exp = 0;
+
+            if ((++pos < end) && (((c = _internal_char(text, kind, pos)) == '-') || (c == '+'))) {
+                minus = (c == '-');
+                pos++;
+            }
+
+            if ((pos >= end) || !Character.isDigit((char)_internal_char(text, kind, pos)))
+                digits = false;
+
+            while ((pos < end) && ((value = _internal_char(text, kind, pos) - '0') >= 0) && (value <= 9)) {
+                if (exp < 100000) exp = exp * 10 + value;
+                pos++;
+            }
+            exponent += (minus ? -exp : exp);
+        }
+
+        /* Optional type suffix, as Float.parseFloat() accepts. */
+        if (digits && (pos == (end - 1)) && ("fFdD".indexOf(_internal_char(text, kind, pos)) >= 0))
+            pos++;
+
+        if (digits && (pos == end))
+        {
+            if (mantissa == 0L)
+                return (negative ? -0.0f : 0.0f);
+
+            if (exact && (mantissa <= (1L << 24)) && (exponent >= -10) && (exponent <= 10))
+            {
+                float result = (float)mantissa;
+
+                result = ((exponent < 0) ? (result / FLOAT_POW10[-exponent]) : (result * FLOAT_POW10[exponent]));
+                return (negative ? -result : result);
+            }
+        }
+
+        /* Not usual. Let the system do it. */
+        char[] chars = new char[end - first];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char)_internal_char(text, kind, first + i);
+
+        try { return Float.parseFloat(new String(chars)); }
+        catch (Exception ex) { /* Invalid number. */ }
+        return 0.0f;
+    }/*}}}*/
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    static final int SRC_CHARS = 0;     /**< Source is a CharSequence.   */
+    static final int SRC_ARRAY = 1;     /**< Source is a char array.     */
+    static final int SRC_BYTES = 2;     /**< Source is an ASCII array.   */
+
+    /**
+     * Upper case hexadecimal digits.
+     **/
+    static final char[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    /**
+     * Exact powers of ten in \b float.
+     **/
+    static final float[] FLOAT_POW10 = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Digit values of the ASCII characters. -1 for non digits.
+     **/
+    static final byte[] DIGITS = new byte[128];
+
+    static {
+        java.util.Arrays.fill(DIGITS, (byte)-1);
+        for (int i = 0; i < 10; i++) DIGITS['0' + i] = (byte)i;
+        for (int i = 0; i < 26; i++) {
+            DIGITS['a' + i] = (byte)(10 + i);
+            DIGITS['A' + i] = (byte)(10 + i);
+        }
+    }
+    //@}
 }
 // vim:syntax=java.doxygen
@@ -15,6 +15,10 @@
 package x.android.utils;
 
 import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
 import x.android.defs.*;
 import x.android.xml.*;
 
@@ -100,12 +104,14 @@ public final class res
      * \param enc The encoding of the file. If it is a standard resource file
      * the encoding is always UTF-8.
      * \returns The string object or \b null if an error occurs.
+     * \remarks The resource is parsed only once. Next calls find the string
+     * in the cached table. See #setCacheLimits(int,int).
      **/
     public static String getString(int resID, String resName, String enc) {
-        CXmlFile file = res.loadAsFile(resName, enc);
+        CStringTable table = _internal_cachedTable(resName, enc, true);
 
-        if (file == null) return null;
-        return _internal_getString(resID, file.root);
+        if (table == null) return null;
+        return table._internal_find(resID);
     }/*}}}*/
     // public static String getString(int resID, String resName);/*{{{*/
     /**
@@ -114,21 +120,27 @@ public final class res
      * \param resID The numeric identifier of the string to get.
      * \param resName The name of the resource where the string is.
      * \returns The string object or \b null if an error occurs.
+     * \remarks The resource is parsed only once. Next calls find the string
+     * in the cached table. See #setCacheLimits(int,int).
      **/
     public static String getString(int resID, String resName) {
-        CXmlFile file = res.loadAsFile(resName);
+        CStringTable table = _internal_cachedTable(resName, null, false);
 
-        if (file == null) return null;
-        return _internal_getString(resID, file.root);
+        if (table == null) return null;
+        return table._internal_find(resID);
     }/*}}}*/
     // public static String getErrorDesc(int errCode);/*{{{*/
     /**
      * Get an error description.
      * The text is loaded from an standard resource.
      * \param errCode Code or error number.
+     * \returns The description or \b null if not found.
+     * \remarks The messages are shared with SFAsset#getMessage(). See
+     * SFErrors.
      **/
     public static String getErrorDesc(int errCode) {
-        return getString(errCode, localizePath("/x/android/[...]/errors.xml"), ENC.UTF8);
+        String message = SFErrors.get(errCode);
+        return ((message.length() == 0) ? null : message);
     }/*}}}*/
     //@}
 
@@ -139,70 +151,73 @@ public final class res
      * \param path String with a path to localize. Where the locale identifier
      * should be positioned the string must have a pseudo-macro ([...]) that
      * will be replaced.
+     * \remarks Localized paths are remembered, so the replacement is done
+     * only once for each path. The locale is resolved in the first call and
+     * kept until #refreshLocale() is called.
      **/
     public static String localizePath(String path)
     {
-        String country = System.getProperty("persist.sys.country");
-        String locale;
+        if (path == null) return null;
+        return _internal_localize(_internal_paths(), path);
+    }/*}}}*/
+    // public static void   refreshLocale();/*{{{*/
+    /**
+     * Resolves the locale again.
+     * Must be called when the system locale changes. CAndroidApp does this
+     * in \c onConfigurationChanged(). When the locale is not the same, the
+     * localized paths and the cached string tables are discarded.
+     * \since jguime 2.5
+     **/
+    public static void refreshLocale()
+    {
+        String locale = _internal_resolveLocale();
+        Paths  paths  = s_paths;
 
-        if (country == null) {
-            country = System.getProperty("user.language");
-        }
+        if ((paths != null) && locale.equals(paths.locale))
+            return;
 
-        if (strings.ncasecmp(country, "BR", "PT") >= 0)
-            locale = "pt_BR";
-        else if (strings.ncasecmp(country, "EN", "US") >= 0)
-            locale = "en_US";
-        else
-            locale = "pt_BR";
+        paths = new Paths();
+        paths.locale = locale;
+        s_paths = paths;
 
-        return strings.replace(path, "[...]", locale);
+        invalidateCache();
     }/*}}}*/
     //@}
 
-    /** \name STATIC INTERNALS */ //@{
-    // static String _internal_getString(int resID, CXmlNode node);/*{{{*/
+    /** \name STATIC CACHE */ //@{
+    // public static void setCacheLimits(int maxTables, int maxStrings);/*{{{*/
     /**
-     * Finds a string in a XML file.
-     * \param resID The numerical string identifier.
-     * \param rootNode The root element of the XML file.
-     * \returns The string object or \b null if an error occurs.
+     * Sets the limits of the string tables cache.
+     * Tables used by #getString() and #getErrorDesc() are kept in memory.
+     * When a limit is reached the table used least recently is discarded.
+     * \param maxTables Maximum number of tables in the cache. Zero disables
+     * the cache. Default is 8.
+     * \param maxStrings Maximum number of strings, of all tables together.
+     * Default is 8192. A single table bigger than this is not cached.
+     * \since jguime 2.5
      **/
-    static String _internal_getString(int resID, CXmlNode rootNode) {
-        CXmlNode[] nodes = rootNode.children;
-
-        if (!rootNode.nodeName.equals("stringtable"))
-            return null;            /* Invalid XML format. */
-        else if (arrays.length(nodes) == 0)
-            return null;            /* No string in this file. */
-
-        CXmlNode node;
-        CXmlAttr attrID;
-        CXmlAttr attrValue;
-        int count = nodes.length;
-
-        for (int i = 0; i < count; i++) {
-            node = nodes[i];
-
-            if (!node.nodeName.equals("string"))
-                continue;       /* Jump to the next node. */
-
-            attrID = node.getAttribute("id");
-            attrValue = node.getAttribute("value");
-
-            if ((attrID == null) || (attrValue == null))
-                continue;       /* Missing attribute. */
-
-            if (resID != attrID.intValue())
-                continue;
-
-            /* Identifier found. Return its value. */
-            return attrValue.value;
+    public static void setCacheLimits(int maxTables, int maxStrings) {
+        synchronized (s_cache) {
+            s_maxTables  = Math.max(0, maxTables);
+            s_maxStrings = Math.max(0, maxStrings);
+            _internal_trim();
         }
-
-        /* If we got here nothing was found. */
-        return null;
     }/*}}}*/
+    // public static void invalidateCache();/*{{{*/
+    /**
+     * Discards all cached string tables.
+     * The cache is also discarded automatically when the locale changes.
+     * \since jguime 2.5
+     **/
+    public static void invalidateCache() {
+        synchronized (s_cache) {
+            s_cache.clear();
+            s_cacheStrings = 0;
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name STATIC INTERNALS */ //@{
     // static CStringTable _internal_getTable(CXmlFile file);/*{{{*/
     /**
      * Loads a string table resource stream into memory.
@@ -220,8 +235,163 @@ public final class res
             return new CStringTable();     /* Empty string table. */
         }
 
-        return new CStringTable(rootNode.children);
+        return new CStringTable(rootNode.getChildren());
+    }/*}}}*/
+    // static String _internal_locale();/*{{{*/
+    /**
+     * Gets the locale identifier used in resource paths.
+     * \returns "pt_BR" or "en_US".
+     **/
+    static String _internal_locale() {
+        return _internal_paths().locale;
+    }/*}}}*/
+    // static Paths  _internal_paths();/*{{{*/
+    /**
+     * Gets the localized paths of the current locale.
+     * The locale is resolved in the first call.
+     **/
+    static Paths _internal_paths() {
+        Paths paths = s_paths;
+
+        if (paths == null) {
+            paths = new Paths();
+            paths.locale = _internal_resolveLocale();
+            s_paths = paths;
+        }
+        return paths;
+    }/*}}}*/
+    // static String _internal_localize(Paths paths, String path);/*{{{*/
+    /**
+     * Localizes a path, remembering the result.
+     * \param paths Localized paths of the current locale.
+     * \param path The path to localize. Cannot be \b null.
+     **/
+    static String _internal_localize(Paths paths, String path) {
+        String result = paths.map.get(path);
+
+        if (result != null) return result;
+
+        result = ((path.indexOf("[...]") < 0) ? path : strings.replace(path, "[...]", paths.locale));
+
+        if (paths.map.size() >= MAX_PATHS) paths.map.clear();
+        paths.map.put(path, result);
+
+        return result;
     }/*}}}*/
+    // static String _internal_resolveLocale();/*{{{*/
+    /**
+     * Reads the locale identifier from the system properties.
+     * \returns "pt_BR" or "en_US".
+     **/
+    static String _internal_resolveLocale() {
+        String country = System.getProperty("persist.sys.country");
+
+        if (country == null) {
+            country = System.getProperty("user.language");
+        }
+
+        if (strings.ncasecmp(country, "BR", "PT") >= 0)
+            return "pt_BR";
+        else if (strings.ncasecmp(country, "EN", "US") >= 0)
+            return "en_US";
+
+        return "pt_BR";
+    }/*}}}*/
+    // static CStringTable _internal_cachedTable(String resName, String enc, boolean useEnc);/*{{{*/
+    /**
+     * Gets a string table from the cache, loading it when needed.
+     * \param resName Resource name. Can have the locale pseudo-macro.
+     * \param enc Encoding of the resource.
+     * \param useEnc \b false to detect the encoding by the file BOM.
+     * \return The table or \b null when the resource cannot be loaded.
+     **/
+    static CStringTable _internal_cachedTable(String resName, String enc, boolean useEnc) {
+        if (resName == null) return null;
+
+        Paths  paths  = _internal_paths();
+        String locale = paths.locale;
+        String path   = _internal_localize(paths, resName);
+        String key    = (useEnc ? (path + '\n' + enc) : path);
+        CStringTable table;
+
+        synchronized (s_cache)
+        {
+            if (!locale.equals(s_cacheLocale)) {
+                s_cache.clear();
+                s_cacheStrings = 0;
+                s_cacheLocale  = locale;
+            }
+
+            table = s_cache.get(key);
+            if (table != null) return table;
+        }
+
+        /* Loaded out of the lock. Two threads may load the same table at
+         * the same time. Only one is kept.
+         */
+        InputStream is = res.class.getClassLoader().getResourceAsStream(path);
+        if (is == null) return null;
+
+        CXmlFile file = (useEnc ? CXmlFile.Load(is, enc) : CXmlFile.Load(is));
+        if ((file == null) || (file.root == null) ||
+            !file.root.nodeName.equals("stringtable"))
+            return null;
+
+        table = new CStringTable(file.root.getChildren());
+
+        synchronized (s_cache)
+        {
+            /* A table bigger than the limit is not cached. Checked before
+             * adding it, so it doesn't evict the other tables. */
+            if (!locale.equals(s_cacheLocale) || s_cache.containsKey(key) ||
+                (s_maxTables == 0) || (table.m_count > s_maxStrings))
+                return table;
+
+            s_cache.put(key, table);
+            s_cacheStrings += table.m_count;
+            _internal_trim();
+        }
+        return table;
+    }/*}}}*/
+    // static void _internal_trim();/*{{{*/
+    /**
+     * Discards the tables used least recently until the cache is within its
+     * limits. Must be called with the cache locked.
+     **/
+    static void _internal_trim() {
+        Iterator<CStringTable> it = s_cache.values().iterator();
+
+        while (it.hasNext() && ((s_cache.size() > s_maxTables) || (s_cacheStrings > s_maxStrings)))
+        {
+            s_cacheStrings -= it.next().m_count;
+            it.remove();
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Localized paths of a locale.
+     **/
+    static final class Paths
+    {
+        String locale;          /**< Locale identifier.                  */
+        ConcurrentHashMap<String, String> map = new ConcurrentHashMap<String, String>();
+    }
+    //@}
+
+    /** \name STATIC DATA */ //@{
+    /**
+     * Parsed string tables by localized path and encoding, in access order.
+     **/
+    static final LinkedHashMap<String, CStringTable> s_cache = new LinkedHashMap<String, CStringTable>(16, 0.75f, true);
+    static String s_cacheLocale;            /**< Locale of the cached tables.  */
+    static int    s_cacheStrings;           /**< Strings in all cached tables. */
+    static int    s_maxTables  = 8;         /**< Maximum number of tables.     */
+    static int    s_maxStrings = 8192;      /**< Maximum number of strings.    */
+
+    static volatile Paths s_paths;          /**< Resolved locale and paths.    */
+    static final int MAX_PATHS = 256;       /**< Limit of remembered paths.    */
     //@}
 }
 // vim:syntax=java.doxygen
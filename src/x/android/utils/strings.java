@@ -53,24 +53,30 @@ public final class strings
      * \return The new string with the substitution done. If the \a rem string
      * isn't found the original \a str string will be returned without
      * changes.
-     * \remarks All occurrencies of *rem* will be replaced with *add*.
+     * \remarks All occurrencies of *rem* will be replaced with *add*. The
+     * string is scanned only once, from left to right, so text inserted by
+     * *add* is never searched again. A \b null *add* removes *rem*. To
+     * replace several strings at once use CStringReplacer.
      **/
     public static String replace(String str, String rem, String add) {
-        int index = str.indexOf(rem);
         int count = strings.length(rem);
-        String start, end;
+        int index;
 
-        while (index >= 0)
-        {
-            start = strings.substr(str, 0, index);
-            end   = strings.substr(str, index + count, -1);
+        if ((str == null) || (count == 0) || ((index = str.indexOf(rem)) < 0))
+            return str;
+
+        if (add == null) add = EMPTY;
 
-            str = ((start != null) ? start : strings.EMPTY) + add
-                  + ((end != null) ? end : strings.EMPTY);
+        StringBuilder sb = new StringBuilder(str.length() + Math.max(0, add.length() - count) * 4);
+        int last = 0;
 
-            index = str.indexOf(rem);
+        while (index >= 0)
+        {
+            sb.append(str, last, index).append(add);
+            last  = index + count;
+            index = str.indexOf(rem, last);
         }
-        return str;
+        return sb.append(str, last, str.length()).toString();
     }
 
     /**
@@ -97,7 +103,7 @@ public final class strings
                 index = sb.indexOf(sub, index);
             }
         } catch (Exception ex) {
-            logger.w("strings::remove('%s', '%s') => '%s'", str, sub, ex.getMessage());
+            debug.w("strings::remove('%s', '%s') => '%s'", str, sub, ex.getMessage());
             return str;
         }
         return sb.toString();
@@ -197,16 +203,13 @@ public final class strings
      * @since Julho 22, 2019
      **/
     public static boolean isNumeric(final String str, final int radix) {
-        char[] array = str.toCharArray();
-        int index = 0, count = length(str);
+        int count = length(str);
 
-        if (index == count) return false;       /* str is empty. */
+        if (count == 0) return false;       /* str is empty. */
 
-        while (index < count) {
-            if (Character.digit(array[index], radix) < 0)
+        for (int index = 0; index < count; index++) {
+            if (Character.digit(str.charAt(index), radix) < 0)
                 return false;
-
-            index++;
         }
         return true;
     }
@@ -238,7 +241,7 @@ public final class strings
      * exception will be thrown.
      **/
     public static int toInt(String num, int radix) {
-        return (int)(strings.toLong(num, radix) & 0xFFFFFFFF);
+        return (int)strings.toLong(num, radix);
     }
 
     /**
@@ -255,79 +258,12 @@ public final class strings
      * the value can have a minus '-' or plus '+' signal in front of it. The
      * conversion will stop in the first invalid character. No error or
      * exception will be thrown.
+     * @see numbers#parseLong(CharSequence,int,int,int) to convert part of a
+     * text without creating a string.
      **/
     public static long toLong(String num, int radix) {
-        long result = 0L;
-
-        if ((num == null) || (num.length() == 0)) {
-            return result;
-        }
-
-        char[] arr = num.toCharArray();
-        char c;
-        int  pos = 0;
-        int  count = arr.length;
-        int  val = 0;
-        boolean negative = false;
-
-        while ((pos < count) && Character.isWhitespace(arr[pos])) {
-            pos++;                  /* Skip white spaces. */
-        }
-
-        if (pos >= count) {
-            return result;          /* Only spaces in the text. */
-        }
-
-        /* Check of a sign. */
-        if (arr[pos] == '-') {
-            pos++;
-            negative = true;
-        } else if (arr[pos] == '+') {
-            pos++;
-        }
-
-        /* We always need to check about the end of the string. */
-        if (pos >= count) return result;
-
-        /* If radix is zero we need to figure out. */
-        if (radix == 0) {
-            if ((arr[pos] == '0') && (pos < (count - 1))) {
-                if ((arr[pos+1] == 'x') || (arr[pos+1] == 'X'))
-                    radix = 16;
-                else
-                    radix = 8;
-            }
-            else
-                radix = 10;
-        }
-
-        /* Validating the 'radix' value. */
-        if ((radix < 0) || (radix == 1) || (radix > 36)) {
-            return result;
-        } else if (radix == 16) {
-            /* The text might have '0x' on it. We should remove it. */
-            if ((arr[pos] == '0') && (pos < (count - 1))) {
-                if ((arr[pos+1] == 'x') || (arr[pos+1] == 'X'))
-                    pos += 2;
-            }
-        }
-
-        while (pos < count) {
-            c = arr[pos++];
-
-            if (Character.isDigit(c))
-                val = Character.digit(c, 10);
-            else if (Character.isLetter(c) && (radix > 10))
-                val = Character.digit(c, radix);
-            else
-                break;                  /* Invalid char. */
-
-            if (val >= radix) break;    /* Another invalid value. */
-            result = result * radix + val;  /* NOTE: possibility of ArithmeticException. */
-        }
-
-        /* End of the conversion. Negate the number if we found a sign. */
-        return (negative ? -result : result);
+        if (num == null) return 0L;
+        return numbers.parseLong(num, 0, num.length(), radix);
     }
 
     /**
@@ -337,9 +273,8 @@ public final class strings
      * doesn't represent a valid float value the return will be zero.
      **/
     public static float  toFloat(String num) {
-        try { return Float.parseFloat(num); }
-        catch (Exception ex) { /* we will ignore this for while. */ }
-        return .0F;
+        if (num == null) return .0F;
+        return numbers.parseFloat(num, 0, num.length());
     }
 
     /**
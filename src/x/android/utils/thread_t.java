@@ -14,6 +14,9 @@
  */
 package x.android.utils;
 
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
 import x.android.defs.ERROR;
 
 /**
@@ -25,6 +28,12 @@ import x.android.defs.ERROR;
  * specification. Because of that we create this class that exports methods
  * enabling the control application to start, stop and restart the thread
  * execution.
+ *
+ * On runtimes with virtual threads (Java 21 and later) the thread can be
+ * started as a virtual thread, so thousands of objects blocked in I/O don't
+ * need thousands of platform threads. The mode is chosen with #setMode()
+ * or, for all objects, with #setDefaultMode(). Where virtual threads are not
+ * available, as in Android, platform threads are used.
  *//* --------------------------------------------------------------------- */
 public class thread_t implements Runnable
 {
@@ -36,6 +45,7 @@ public class thread_t implements Runnable
      **/
     protected thread_t() {
         m_thread   = new Thread(this);
+        m_priority = m_thread.getPriority();
         m_exitCode = 0;
         m_stop   = 0;
     }/*}}}*/
@@ -46,6 +56,7 @@ public class thread_t implements Runnable
      **/
     thread_t(Thread other) {
         m_thread   = other;
+        m_priority = other.getPriority();
         m_exitCode = 0;
         m_stop   = 0;
     }/*}}}*/
@@ -74,6 +85,32 @@ public class thread_t implements Runnable
             debug.e("thread_t::sleep() Exception: %s", ex);
         }
     }/*}}}*/
+    // public static boolean isVirtualSupported();/*{{{*/
+    /**
+     * Checks whether the runtime has virtual threads.
+     * \returns \b true when \c MODE_VIRTUAL starts virtual threads.
+     * \since jguime 2.5
+     **/
+    public static boolean isVirtualSupported() {
+        return (s_virtual != null);
+    }/*}}}*/
+    // public static int     setDefaultMode(int mode);/*{{{*/
+    /**
+     * Sets the kind of thread started by objects in \c MODE_DEFAULT.
+     * \param mode \c MODE_PLATFORM or \c MODE_VIRTUAL. The initial value
+     * is \c MODE_PLATFORM.
+     * \return \c ERROR.SUCCESS. \c ERROR.PARM when \a mode is invalid. \c
+     * ERROR.NOTSUP when \a mode is \c MODE_VIRTUAL and the runtime has no
+     * virtual threads; the mode is kept and platform threads are used.
+     * \since jguime 2.5
+     **/
+    public static int setDefaultMode(int mode) {
+        if ((mode != MODE_PLATFORM) && (mode != MODE_VIRTUAL))
+            return ERROR.PARM;
+
+        s_mode = mode;
+        return (((mode == MODE_VIRTUAL) && (s_virtual == null)) ? ERROR.NOTSUP : ERROR.SUCCESS);
+    }/*}}}*/
     //@}
 
     /** \name ATTRIBUTES */ //@{
@@ -96,6 +133,8 @@ public class thread_t implements Runnable
      * .
      **/
     public final int getPriority() {
+        if (m_virtual) return m_priority;
+
         try { return m_thread.getPriority(); }
         catch (Exception ex) {
             debug.e("thread_t::getPriority() Exception:\n\t%s", ex);
@@ -112,6 +151,14 @@ public class thread_t implements Runnable
             return ERROR.ACTIVE;
         return m_exitCode;
     }/*}}}*/
+    // public final boolean isVirtual();/*{{{*/
+    /**
+     * Checks whether the last thread started is a virtual thread.
+     * \since jguime 2.5
+     **/
+    public final boolean isVirtual() {
+        return m_virtual;
+    }/*}}}*/
     //@}
 
     /** \name OPERATIONS */ //@{
@@ -124,22 +171,53 @@ public class thread_t implements Runnable
      *      - \c PRIORITY_IDLE: Idle execution time.
      *      .
      *      The priority can be changed any time. Even after the thread is
-     *      started.
+     *      started. Virtual threads ignore the priority, but it is kept for
+     *      the next start in a platform thread.
      * \return The normal result is \c ERROR.SUCCESS. If the \a priority value
      * is not one of the above the result will be \c ERROR.PARM.
      **/
     public final int  setPriority(int priority) {
-        try { m_thread.setPriority(priority); }
+        try {
+            m_thread.setPriority(priority);
+            m_priority = priority;
+        }
         catch (Exception ex) {
             debug.e("thread_t::setPriority() exception:\n\t%s", ex);
             return ERROR.PARM;
         }
         return ERROR.SUCCESS;
     }/*}}}*/
+    // public final int  setMode(int mode);/*{{{*/
+    /**
+     * Sets the kind of thread started by this object.
+     * \param mode One of the following values:
+     *      - \c MODE_DEFAULT: The mode set with #setDefaultMode().
+     *      - \c MODE_PLATFORM: A platform thread.
+     *      - \c MODE_VIRTUAL: A virtual thread, when the runtime has them.
+     *      Virtual threads are always daemon threads.
+     *      .
+     *      The mode is used in the next call to #start().
+     * \return \c ERROR.SUCCESS. \c ERROR.PARM when \a mode is invalid. \c
+     * ERROR.RUNNING when the thread is active. \c ERROR.NOTSUP when \a mode
+     * is \c MODE_VIRTUAL and the runtime has no virtual threads; the mode is
+     * kept and platform threads are used.
+     * \since jguime 2.5
+     **/
+    public final int setMode(int mode) {
+        if ((mode < MODE_DEFAULT) || (mode > MODE_VIRTUAL))
+            return ERROR.PARM;
+
+        if (m_thread.isAlive())
+            return ERROR.RUNNING;
+
+        m_mode = mode;
+        return (((mode == MODE_VIRTUAL) && (s_virtual == null)) ? ERROR.NOTSUP : ERROR.SUCCESS);
+    }/*}}}*/
     // public final int  start();/*{{{*/
     /**
      * Starts the execution of this thread.
-     * The \c run() method is called immediately.
+     * The \c run() method is called immediately, in a platform or virtual
+     * thread as selected by #setMode().
      * \return \c ERROR.SUCCESS or, if this thread is already running \c
      * ERROR.RUNNING. If there is an issue in security level, \c ERROR.ACCESS
      * will be returned.
@@ -152,12 +230,18 @@ public class thread_t implements Runnable
         m_exitCode = 0;
         m_stop = 0;
 
-        /* We always need to create a new thread. */
-        Thread thread = new Thread(this);
+        final int mode = ((m_mode == MODE_DEFAULT) ? s_mode : m_mode);
+        final ThreadFactory factory = ((mode == MODE_VIRTUAL) ? s_virtual : null);
 
         try {
-            thread.setPriority( m_thread.getPriority() );
-            m_thread = thread;
+            /* We always need to create a new thread. */
+            Thread thread = ((factory != null) ? factory.newThread(this) : new Thread(this));
+
+            if (factory == null)
+                thread.setPriority(m_priority);
+
+            m_virtual = (factory != null);
+            m_thread  = thread;
             m_thread.start();
         }
         catch (IllegalThreadStateException itse) {
@@ -180,12 +264,18 @@ public class thread_t implements Runnable
      * The actual result is produced by the implementation. It should monitor
      * the state of the thread using the \c aborted() method and returns from
      * the \c execute() function as soon as possible.
+     *
+     * A thread waiting in #interval() is woken immediately. The thread is
+     * not interrupted, so blocking I/O in progress is not disturbed.
      * \return The normal result is \c ERROR.SUCCESS. If the thread is already
      * stoped the return code will be \c ERROR.FAILED.
      **/
     public final int  abort() {
-        if (!isActive()) return ERROR.FAILED;
+        final Thread thread = m_thread;
+
+        if (!thread.isAlive()) return ERROR.FAILED;
         m_stop = SIGNAL_ABORT;
+        LockSupport.unpark(thread);
         return ERROR.SUCCESS;
     }/*}}}*/
     // public final int  join(long interval);/*{{{*/
@@ -205,32 +295,33 @@ public class thread_t implements Runnable
      * the result will be \c ERROR.EXPIRED. If the thread is not running when
      * the function is called the result will also be \c ERROR.SUCCESS. If an
      * invalid value is passed through \a interval, the return will be \c
-     * ERROR.PARM even if the thread is aborted and stopped successfully.
+     * ERROR.PARM even if the thread is aborted and stopped successfully. If
+     * the calling thread is interrupted while waiting the result is \c
+     * ERROR.ABORTED and the interrupt status is kept.
+     * \remarks The function returns as soon as the thread ends. It blocks in
+     * \c Thread.join() instead of checking the thread periodically.
      **/
     public final int join(long interval) {
-        if ((abort() == ERROR.FAILED) || (interval == 0L)) {
-            return ERROR.SUCCESS;
-        }
+        final Thread thread = m_thread;
 
-        if (interval == INFINITE) {
-            while (isActive()) {
-                sleep(40);
-            }
+        if ((abort() == ERROR.FAILED) || (interval == 0L)) {
             return ERROR.SUCCESS;
         }
-        else if (interval < 0L) {
+        else if ((interval < 0L) && (interval != INFINITE)) {
             return ERROR.PARM;    /* Traps invalid intervals. */
         }
 
-        long counter = 0;
-        while (isActive()) {
-            sleep(40);
-            counter += 40;
-            if (counter >= interval) {
-                return ERROR.EXPIRED;
-            }
+        try {
+            if (interval == INFINITE)
+                thread.join();
+            else
+                thread.join(interval);
         }
-        return ERROR.SUCCESS;
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ERROR.ABORTED;
+        }
+        return (thread.isAlive() ? ERROR.EXPIRED : ERROR.SUCCESS);
     }/*}}}*/
     // public final long id();/*{{{*/
     /**
@@ -328,17 +419,55 @@ public class thread_t implements Runnable
      * function returns \b ERROR.SUCCESS that means, actualy, the period of
      * time has expired. If \a howLong is invalid the function does nothing and
      * returns \c ERROR.PARM.
+     * \remarks The thread is parked until the period ends or #abort() is
+     * called, which wakes it immediately. There is no periodic wake up.
      **/
     protected final int interval(long howLong) {
         if (howLong < 0L) return ERROR.PARM;
 
-        long counter = 0;
+        return _internal_waitUntil(System.nanoTime() + howLong * 1000000L);
+    }/*}}}*/
+    //@}
 
-        do {
-            if (aborted()) return ERROR.ABORTED;
-            sleep(10L);
-        } while ((counter += 10L) < howLong);
-        return ERROR.SUCCESS;
+    /** \name INTERNALS */ //@{
+    // final int _internal_waitUntil(long deadline);/*{{{*/
+    /**
+     * Parks the calling thread until a deadline or until it is aborted.
+     * \param deadline Time to wake, in the scale of \c System.nanoTime().
+     * \return \c ERROR.SUCCESS when the deadline is reached. \c
+     * ERROR.ABORTED when the thread is aborted.
+     **/
+    final int _internal_waitUntil(long deadline) {
+        long remaining;
+
+        while (!aborted())
+        {
+            if ((remaining = deadline - System.nanoTime()) <= 0L)
+                return ERROR.SUCCESS;
+
+            LockSupport.parkNanos(this, remaining);
+        }
+        return ERROR.ABORTED;
+    }/*}}}*/
+    // private static ThreadFactory _internal_virtualFactory();/*{{{*/
+    /**
+     * Finds the factory of virtual threads.
+     * The library is built for old runtimes, so \c Thread.ofVirtual() is
+     * called through reflection. The factory returned by \c
+     * Thread.Builder.factory() can be shared by all threads.
+     * \returns The factory or \b null when virtual threads are not
+     * available.
+     **/
+    private static ThreadFactory _internal_virtualFactory() {
+        try {
+            Object  builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> type   = Class.forName("java.lang.Thread$Builder");
+
+            return (ThreadFactory)type.getMethod("factory").invoke(builder);
+        }
+        catch (Exception ex) {
+            return null;        /* Old runtime or preview disabled. */
+        }
     }/*}}}*/
     //@}
 
@@ -346,6 +475,9 @@ public class thread_t implements Runnable
     private Thread m_thread;        /**< The thread object.     */
     private int    m_exitCode;      /**< The finalization code. */
     private volatile int m_stop;    /**< The abort signal.      */
+    private int    m_priority;      /**< Priority of the thread.*/
+    private int    m_mode;          /**< Kind of thread started.*/
+    private volatile boolean m_virtual; /**< Running virtual.   */
     //@}
 
     /** \name CONSTANTS */ //@{
@@ -353,7 +485,15 @@ public class thread_t implements Runnable
     public static final int PRIORITY_NORMAL   = Thread.NORM_PRIORITY;
     public static final int PRIORITY_CRITICAL = Thread.MAX_PRIORITY;
     public static final long INFINITE         = -1L;
+    public static final int MODE_DEFAULT      = 0;  /**< Mode of #setDefaultMode(). */
+    public static final int MODE_PLATFORM     = 1;  /**< Platform threads.          */
+    public static final int MODE_VIRTUAL      = 2;  /**< Virtual threads.           */
     private static final int SIGNAL_ABORT     = -1;
     //@}
+
+    /** \name STATIC DATA */ //@{
+    private static volatile int s_mode = MODE_PLATFORM;     /**< Default mode. */
+    private static final ThreadFactory s_virtual = _internal_virtualFactory();
+    //@}
 }
 // vim:syntax=java.doxygen
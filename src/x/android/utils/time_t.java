@@ -83,10 +83,12 @@ public final class time_t
      * equal the \c strftime() C standard function.
      * \param time The time to format as a long value.
      * \return A string with the data formated as specified.
+     * \remarks The specification is compiled once and cached. See
+     * TimeFormatter.
      **/
     public static String  format(String spec, long time) {
-        time_t tm = new time_t(time);
-        return tm.toString(spec);
+        if (spec == null) return null;
+        return TimeFormatter.Compile(spec).format(time);
     }/*}}}*/
     //@}
 
@@ -290,8 +292,7 @@ public final class time_t
      **/
     public String getWeekDayName()
     {
-        CStringTable table = CStringTable.LoadAsset("calendar.xml");
-        return table.get(m_weekDay);
+        return TimeFormatter._internal_weekDayName(m_weekDay);
     }/*}}}*/
     // public String getMonthName();/*{{{*/
     /**
@@ -301,8 +302,7 @@ public final class time_t
      **/
     public String getMonthName()
     {
-        CStringTable table = CStringTable.LoadAsset("calendar.xml");
-        return table.get(m_month + 10);
+        return TimeFormatter._internal_monthName(m_month);
     }/*}}}*/
     //@}
 
@@ -350,71 +350,57 @@ public final class time_t
      * - \b y: The year number with 2 digits. Avoid using this.
      * - \b Y: The yera number with 4 digits.
      * .
+     * The specification is compiled once and cached. See TimeFormatter.
      **/
     public String toString(String spec) {
         if (spec == null) return null;
-
-        CStringTable str = CStringTable.LoadAsset("calendar.xml");
-        StringBuffer sb  = new StringBuffer(spec.length());
-        char[] chars = spec.toCharArray();
-        int i = 0, limit = chars.length;
-
-        while (i < limit) {
-            if ((chars[i] != '%') || (i == (limit - 1))) {
-                sb.append(chars[i++]);
-                continue;
-            }
-            
-            switch (chars[++i]) {
-            case 'B':
-                sb.append(str.get(m_month));
-                break;
-            case 'c':
-                sb.append(_internal_formatDateTime());
-                break;
-            case 'd':
-                sb.append(String.format("%02d", m_day));
-                break;
-            case 'H':
-                sb.append(String.format("%02d", m_hour));
-                break;
-            case 'm':
-                sb.append(String.format("%02d", m_month));
-                break;
-            case 'M':
-                sb.append(String.format("%02d", m_minute));
-                break;
-            case 'S':
-                sb.append(String.format("%02d", m_seconds));
-                break;
-            case 'w':
-                sb.append(String.format("%d", m_weekDay));
-                break;
-            case 'W':
-                sb.append(str.get(m_weekDay));
-                break;
-            case 'x':
-                sb.append(_internal_formatDate());
-                break;
-            case 'X':
-                sb.append(_internal_formatTime());
-                break;
-            case 'y':
-                sb.append(String.format("%02d", m_year % 100));
-                break;
-            case 'Y':
-                sb.append(String.format("%04d", m_year));
-                break;
-            default:
-                sb.append(chars[i]);
-            }
-            i++;
-        }
-        return sb.toString();
+        return TimeFormatter.Compile(spec).format(this);
     }/*}}}*/
     //@}
 
     /** \name INTERNAL OPERATIONS */ //@{
+    // final void _internal_setLocal(long time);/*{{{*/
+    /**
+     * Sets the fields from milliseconds in the default time zone.
+     * Works like #set(long) without allocating a \c Calendar object.
+     * \param time Milliseconds since January 1, 1970.
+     **/
+    final void _internal_setLocal(long time) {
+        time += TimeZone.getDefault().getOffset(time);
+
+        long days = time / 86400000L;
+        int  msec = (int)(time % 86400000L);
+
+        if (msec < 0) {
+            msec += 86400000;
+            days--;
+        }
+
+        /* Gregorian date from the number of days (civil_from_days). */
+        long z   = days + 719468L;
+        long era = ((z >= 0) ? z : (z - 146096L)) / 146097L;
+        int  doe = (int)(z - (era * 146097L));
+        int  yoe = (doe - (doe / 1460) + (doe / 36524) - (doe / 146096)) / 365;
+        int  doy = doe - ((365 * yoe) + (yoe / 4) - (yoe / 100));
+        int  mp  = ((5 * doy) + 2) / 153;
+        int  day = doy - (((153 * mp) + 2) / 5) + 1;
+        int  mon = ((mp < 10) ? (mp + 3) : (mp - 9));
+        int  year = (int)(yoe + (era * 400L)) + ((mon <= 2) ? 1 : 0);
+        boolean leap = (((year & 3) == 0) && (((year % 100) != 0) || ((year % 400) == 0)));
+        int  wday = (int)((days + 4) % 7);
+
+        if (wday < 0) wday += 7;
+
+        m_year    = (short)(year & 0x0000FFFF);
+        m_yearDay = (short)((YEAR_DAYS[mon - 1] + day + ((leap && (mon > 2)) ? 1 : 0)) & 0x0000FFFF);
+        m_month   = (byte)(mon & 0x000000FF);
+        m_day     = (byte)(day & 0x000000FF);
+        m_weekDay = (byte)((wday + 1) & 0x000000FF);
+        m_hour    = (byte)((msec / 3600000) & 0x000000FF);
+        m_minute  = (byte)(((msec / 60000) % 60) & 0x000000FF);
+        m_seconds = (byte)(((msec / 1000) % 60) & 0x000000FF);
+        m_millis  = (short)((msec % 1000) & 0x0000FFFF);
+    }/*}}}*/
     // private String _internal_formatDateTime();/*{{{*/
     /**
      * Function used when to format the date and time in the current locale.
@@ -458,5 +444,12 @@ public final class time_t
     private byte  m_seconds;        /**< Seconds in the minute. */
     private short m_millis;         /**< Milliseconds in the second. */
     //@}
+
+    /** \name CONSTANTS */ //@{
+    /**
+     * Days before the first day of each month, in a common year.
+     **/
+    private static final int[] YEAR_DAYS = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334, 365};
+    //@}
 }
 // vim:syntax=java.doxygen
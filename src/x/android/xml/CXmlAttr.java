@@ -14,6 +14,7 @@
  */
 package x.android.xml;
 
+import x.android.utils.numbers;
 import x.android.utils.strings;
 
 /**
@@ -55,12 +56,7 @@ public final class CXmlAttr
      * boolean value. Otherwise the return is \b false.
      **/
     public final boolean isBoolean() {
-        return ((this.value != null) && (this.value.equals("true") ||
-                                         this.value.equals("false") ||
-                                         this.value.equals("yes") ||
-                                         this.value.equals("no")
-                                        )
-               );
+        return ((_internal_parsed().type & TYPE_BOOLEAN) != 0);
     }/*}}}*/
     // public final boolean isFloat();/*{{{*/
     /**
@@ -71,24 +67,7 @@ public final class CXmlAttr
      * number. Otherwise the function returns \b false.
      **/
     public final boolean isFloat() {
-        if (this.value == null) return false;
-
-        char[] list = this.value.toCharArray();
-        char   c;
-        int    count = list.length;
-
-        for (int i = 0; i < count; i++) {
-            c = list[i];
-            if ((i == 0) && (c == '+') || (c == '-'))
-                continue;
-            else if ((i == 0) && (c == '0'))
-                return false;       /* Octal or hex number. */
-            else if ((c == '.') || ((c >= '0') && (c <= '9')))
-                continue;
-            else
-                return false;
-        }
-        return true;
+        return ((_internal_parsed().type & TYPE_FLOAT) != 0);
     }/*}}}*/
     // public final boolean isDecimal();/*{{{*/
     /**
@@ -98,24 +77,7 @@ public final class CXmlAttr
      * return is \b false.
      **/
     public final boolean isDecimal() {
-        if (this.value == null) return false;
-
-        String ref = this.value;
-        int  count = ref.length();
-        char c;
-
-        for (int i = 0; i < count; i++) {
-            c = ref.charAt(i);
-            if ((i == 0) && ((c == '+') || (c == '-')))
-                continue;
-            else if ((i == 0) && (c == '0'))
-                return false;       /* Octal or hex number. */
-            else if ((c >= '0') && (c <= '9'))
-                continue;
-            else
-                return false;
-        }
-        return true;
+        return ((_internal_parsed().type & TYPE_DECIMAL) != 0);
     }/*}}}*/
     // public final boolean isOctal();/*{{{*/
     /**
@@ -126,20 +88,7 @@ public final class CXmlAttr
      * Otherwise the function returns \b false.
      **/
     public final boolean isOctal() {
-        if (this.value == null) return false;
-
-        String ref = this.value;
-        if (ref.charAt(0) != '0') return false;
-
-        int  count = ref.length();
-        char c;
-
-        for (int i = 1; i < count; i++) {
-            c = ref.charAt(i);
-            if ((c < '0') || (c > '7'))
-                return false;
-        }
-        return true;
+        return ((_internal_parsed().type & TYPE_OCTAL) != 0);
     }/*}}}*/
     // public final boolean isHex();/*{{{*/
     /**
@@ -150,19 +99,7 @@ public final class CXmlAttr
      * Otherwise the function returns \b false.
      **/
     public final boolean isHex() {
-        if (this.value == null) return false;
-
-        String ref = this.value;
-        if (!ref.startsWith("0x") && !ref.startsWith("0X"))
-            return false;
-
-        int count = ref.length();
-        char c;
-        for (int i = 2; i < count; i++) {
-            if (!strings.isHexChar(ref.charAt(i)))
-                return false;
-        }
-        return true;
+        return ((_internal_parsed().type & TYPE_HEX) != 0);
     }/*}}}*/
     // public final boolean isNumeric();/*{{{*/
     /**
@@ -174,7 +111,7 @@ public final class CXmlAttr
      * Otherwise the return is \b false.
      **/
     public final boolean isNumeric() {
-        return (isFloat() || isDecimal() || isOctal() || isHex());
+        return ((_internal_parsed().type & TYPE_NUMERIC) != 0);
     }/*}}}*/
     // public final int     intValue();/*{{{*/
     /**
@@ -184,14 +121,7 @@ public final class CXmlAttr
      * cannot be done, the result is zero.
      **/
     public final int intValue() {
-        if (isDecimal() || isFloat())
-            return strings.toInt(this.value, 10);
-        else if (isHex())
-            return strings.toInt(this.value, 16);
-        else if (isOctal())
-            return strings.toInt(this.value, 8);
-
-        return 0;
+        return (int)_internal_parsed().number;
     }/*}}}*/
     // public final long    longValue();/*{{{*/
     /**
@@ -201,14 +131,7 @@ public final class CXmlAttr
      * the result is zero.
      **/
     public final long longValue() {
-        if (isDecimal() || isFloat())
-            return strings.toLong(this.value, 10);
-        else if (isHex())
-            return strings.toLong(this.value, 16);
-        else if (isOctal())
-            return strings.toLong(this.value, 8);
-
-        return 0L;
+        return _internal_parsed().number;
     }/*}}}*/
     // public final float   floatValue();/*{{{*/
     /**
@@ -218,10 +141,7 @@ public final class CXmlAttr
      * the result is zero.
      **/
     public final float floatValue() {
-        if (isFloat())
-            return strings.toFloat(this.value);
-        else
-            return (float)this.intValue();
+        return _internal_parsed().real;
     }/*}}}*/
     //@}
 
@@ -233,17 +153,37 @@ public final class CXmlAttr
      * This process is done automaticaly when getting the attribute text via
      * #toString() method. Replacing of symbols with entities is needed for
      * the XML specification.
+     * \remarks The result is cached until #value is changed. When the value
+     * has no symbol to replace it is returned as is.
      **/
     public final String entityValue() {
-        int  limit   = strings.length(this.value);
         String value = this.value;
 
-        if (limit == 0) return strings.EMPTY;
+        if (m_entitySource == value)
+            return m_entity;
 
+        int limit = strings.length(value);
+        int index = 0;
         char c;
-        StringBuilder sb = new StringBuilder(limit * 4);
 
-        for (int i = 0; i < limit; i++) {
+        /* Most values have nothing to replace. Check before copying. */
+        while (index < limit) {
+            c = value.charAt(index);
+            if ((c == '&') || (c == '"') || (c == '\'') || (c == '<') || (c == '>'))
+                break;
+            index++;
+        }
+
+        if (index == limit) {
+            m_entity = ((limit == 0) ? strings.EMPTY : value);
+            m_entitySource = value;
+            return m_entity;
+        }
+
+        StringBuilder sb = new StringBuilder(limit + 16);
+        sb.append(value, 0, index);
+
+        for (int i = index; i < limit; i++) {
             c = value.charAt(i);
             if (c == '&')
                 sb.append("&amp;");
@@ -258,7 +198,109 @@ public final class CXmlAttr
             else
                 sb.append(c);
         }
-        return sb.toString();
+
+        m_entity = sb.toString();
+        m_entitySource = value;
+        return m_entity;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL FUNCTIONS */ //@{
+    // final void _internal_setLong(long number);/*{{{*/
+    /**
+     * Fills the cache with a number already known.
+     * Used when the value was stored as a number, as in the binary format
+     * of CXmlBinary. #value must be the canonical decimal text of \a number.
+     **/
+    final void _internal_setLong(long number) {
+        m_parsed = new Parsed(this.value, ((number == 0) ? TYPE_OCTAL : (TYPE_DECIMAL | TYPE_FLOAT)),
+                              number, (float)number);
+    }/*}}}*/
+    // private Parsed _internal_parsed();/*{{{*/
+    /**
+     * Gets the type flags and numbers of the value, parsing it when needed.
+     * The value is parsed once. The cache is valid while #value references
+     * the same string object. The results are published in a single
+     * immutable object, so other threads never see them half written.
+     **/
+    private Parsed _internal_parsed() {
+        final String ref = this.value;
+        Parsed parsed = m_parsed;
+
+        if ((parsed != null) && (parsed.source == ref))
+            return parsed;
+
+        int   count  = strings.length(ref);
+        int   type   = 0;
+        long  number = 0L;
+        float single = 0.0f;
+        char  c;
+
+        if (ref == null) {
+            m_parsed = parsed = new Parsed(null, 0, 0L, 0.0f);
+            return parsed;
+        }
+
+        if (ref.equals("true") || ref.equals("false") || ref.equals("yes") || ref.equals("no"))
+            type |= TYPE_BOOLEAN;
+
+        /* Decimal and floating point: an optional sign, no leading zero. */
+        boolean decimal = true, real = true;
+        for (int i = 0; (i < count) && (decimal || real); i++) {
+            c = ref.charAt(i);
+            if ((i == 0) && ((c == '+') || (c == '-')))
+                continue;
+            else if ((i == 0) && (c == '0'))
+                decimal = real = false;
+            else if ((c >= '0') && (c <= '9'))
+                continue;
+            else if ((c == '.') || (c == '-'))
+                decimal = false;
+            else
+                decimal = real = false;
+        }
+        if (decimal) type |= TYPE_DECIMAL;
+        if (real)    type |= TYPE_FLOAT;
+
+        if ((count > 0) && (ref.charAt(0) == '0'))
+        {
+            boolean hex = ((count > 1) && ((ref.charAt(1) == 'x') || (ref.charAt(1) == 'X')));
+            boolean oct = !hex;
+
+            for (int i = (hex ? 2 : 1); i < count; i++) {
+                c = ref.charAt(i);
+                if (hex && !(((c >= '0') && (c <= '9')) ||
+                             ((c >= 'a') && (c <= 'f')) ||
+                             ((c >= 'A') && (c <= 'F')))) {
+                    hex = false;
+                    break;
+                }
+                else if (oct && ((c < '0') || (c > '7'))) {
+                    oct = false;
+                    break;
+                }
+            }
+            if (hex) type |= TYPE_HEX;
+            if (oct) type |= TYPE_OCTAL;
+        }
+
+        if ((type & (TYPE_DECIMAL | TYPE_FLOAT)) != 0)
+            number = numbers.parseLong(ref, 0, count, 10);
+        else if ((type & TYPE_HEX) != 0)
+            number = numbers.parseLong(ref, 2, count, 16);
+        else if ((type & TYPE_OCTAL) != 0)
+            number = numbers.parseLong(ref, 1, count, 8);
+
+        /* Integers with up to 18 digits are converted exactly. */
+        if (((type & TYPE_DECIMAL) != 0) && (count <= 18))
+            single = (((number == 0L) && (count > 1) && (ref.charAt(0) == '-')) ? -0.0f : (float)number);
+        else if ((type & TYPE_FLOAT) != 0)
+            single = numbers.parseFloat(ref, 0, count);
+        else
+            single = (float)((int)number);
+
+        m_parsed = parsed = new Parsed(ref, type, number, single);
+        return parsed;
     }/*}}}*/
     //@}
 
@@ -290,7 +332,7 @@ public final class CXmlAttr
      * With a space added before them.
      **/
     public String  toString() {
-        return strings.format(" %s=\"%s\"", this.name, this.entityValue());
+        return " " + this.name + "=\"" + this.entityValue() + "\"";
     }/*}}}*/
     //@}
 
@@ -298,5 +340,42 @@ public final class CXmlAttr
     public String name;         /**< The attribute name. */
     public String value;        /**< The attribute value. */
     //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * Result of parsing a value.
+     * Immutable: the final fields are seen by other threads as written.
+     **/
+    private static final class Parsed
+    {
+        final String source;            /**< Value parsed.                   */
+        final int    type;              /**< Type flags.                     */
+        final long   number;            /**< Value as a long number.         */
+        final float  real;              /**< Value as a float number.        */
+
+        Parsed(String source, int type, long number, float real) {
+            this.source = source;
+            this.type   = type;
+            this.number = number;
+            this.real   = real;
+        }
+    }
+    //@}
+
+    /** \name CACHED VALUES */ //@{
+    private Parsed m_parsed;            /**< Value parsed. \b null: none.    */
+    private volatile String m_entitySource = UNPARSED; /**< In m_entity. */
+    private String m_entity;            /**< Value with entities replaced.   */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    private static final String UNPARSED = new String("");  /**< Cache not filled. */
+    private static final int TYPE_BOOLEAN = 0x01;
+    private static final int TYPE_FLOAT   = 0x02;
+    private static final int TYPE_DECIMAL = 0x04;
+    private static final int TYPE_OCTAL   = 0x08;
+    private static final int TYPE_HEX     = 0x10;
+    private static final int TYPE_NUMERIC = (TYPE_FLOAT | TYPE_DECIMAL | TYPE_OCTAL | TYPE_HEX);
+    //@}
 }
 // vim:syntax=java.doxygen
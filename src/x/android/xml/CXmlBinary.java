@@ -0,0 +1,469 @@
+/**
+ * \file
+ * Defines the CXmlBinary class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.xml;
+
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import x.android.defs.ENC;
+import x.android.defs.ERROR;
+import x.android.utils.arrays;
+import x.android.utils.debug;
+import x.android.io.stream_t;
+
+/**
+ * \ingroup x_android_xml
+ * Compact binary representation of XML trees.
+ * Text XML files must be tokenized and decoded every time they are loaded.
+ * The binary format keeps the tree already parsed, so loading is a single
+ * pass over a byte array with no tokenizing nor entity decoding.
+ *
+ * The layout of the binary stream is:
+ * @verbatim
+ * header : 'J' 'X' 'M' 'B' version(1 byte)
+ * pool   : count(varint) { length(varint) UTF-8 bytes }...
+ * node   : name(varint) attrs(varint) { attr }... children(varint) { node }...
+ * attr   : name(varint) type(1 byte) value
+ * value  : TYPE_STRING: pool index (varint)
+ *          TYPE_LONG  : zig-zag encoded number (varint)
+ * @endverbatim
+ * Every varint is an unsigned number written in groups of 7 bits, lower
+ * groups first. The high bit of each byte is set when more bytes follow.
+ * Names and string values are stored once in the pool and referenced by
+ * their index. Attribute values that are canonical decimal numbers are
+ * stored as numbers.
+ *
+ * This class also has a \c main() function so it can be used as a converter
+ * in build time:
+ * @code
+ * java -cp bin/tmp x.android.xml.CXmlBinary strings.xml strings.xmlb
+ * @endcode
+ * Applications don't need to use this class directly. Use
+ * CXmlFile#writeBinary(stream_t) and CXmlFile#LoadBinary(stream_t).
+ *//* --------------------------------------------------------------------- */
+public final class CXmlBinary
+{
+    /** \name STATIC FUNCTIONS */ //@{
+    // public static int write(CXmlNode root, stream_t stream);/*{{{*/
+    /**
+     * Writes a node tree in binary format.
+     * \param root The root node of the tree. Cannot be \b null.
+     * \param stream The stream where the data will be written.
+     * \return \c ERROR#SUCCESS or an error code.
+     **/
+    public static int write(CXmlNode root, stream_t stream) {
+        if ((root == null) || (stream == null))
+            return ERROR.PARM;
+
+        CXmlBinary writer = new CXmlBinary();
+        writer._internal_collect(root);
+
+        stream.write(MAGIC);
+        stream.write(VERSION);
+
+        int limit = writer.m_strings.size();
+        writer._internal_varint(stream, limit);
+
+        byte[] data;
+        for (int i = 0; i < limit; i++)
+        {
+            data = writer.m_strings.get(i).getBytes(UTF8);
+            writer._internal_varint(stream, data.length);
+            stream.write(data);
+        }
+
+        writer._internal_write(root, stream);
+        return stream.writeStatus();
+    }/*}}}*/
+    // public static CXmlNode read(byte[] data, int start, int count);/*{{{*/
+    /**
+     * Reads a node tree in binary format.
+     * \param data Array with the binary data.
+     * \param start Offset of the first byte in \a data.
+     * \param count Number of valid bytes in \a data.
+     * \return The root node of the tree or \b null if the data is not valid.
+     **/
+    public static CXmlNode read(byte[] data, int start, int count) {
+        if ((count < HEADER_SIZE) || (arrays.length(data) < (start + count)))
+            return null;
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[start + i] != MAGIC[i]) {
+                debug.w("CXmlBinary::read() failed! Invalid header.\n");
+                return null;
+            }
+        }
+
+        if (data[start + MAGIC.length] != VERSION) {
+            debug.w("CXmlBinary::read() failed! Unsupported version: %d\n", data[start + MAGIC.length]);
+            return null;
+        }
+
+        CXmlBinary reader = new CXmlBinary(data, start + HEADER_SIZE, start + count);
+        CXmlNode   root   = null;
+
+        if (reader._internal_readPool())
+            root = reader._internal_read();
+
+        if (root == null)
+            debug.w("CXmlBinary::read() failed! Truncated or corrupted data at %d.\n", reader.m_pos);
+
+        return root;
+    }/*}}}*/
+    // public static boolean isBinary(byte[] data, int start, int count);/*{{{*/
+    /**
+     * Checks whether an array starts with the binary XML header.
+     * \param data Array to check.
+     * \param start Offset of the first byte in \a data.
+     * \param count Number of valid bytes in \a data.
+     * \return \b true when the header is found. \b false otherwise.
+     **/
+    public static boolean isBinary(byte[] data, int start, int count) {
+        if ((count < HEADER_SIZE) || (arrays.length(data) < (start + count)))
+            return false;
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[start + i] != MAGIC[i])
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    // public static void main(String[] args);/*{{{*/
+    /**
+     * Build time converter.
+     * Converts a text XML file into the binary format.
+     * \param args Command line arguments: the source XML file, the target
+     * file and, optionally, the encoding of the source file (default is
+     * UTF-8).
+     **/
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: CXmlBinary <source.xml> <target.xmlb> [encoding]");
+            System.exit(1);
+        }
+
+        debug.enabled = false;
+
+        CXmlFile xml = CXmlFile.Load(args[0], ((args.length > 2) ? args[2] : ENC.UTF8));
+        if (xml == null) {
+            System.err.println("CXmlBinary: cannot load '" + args[0] + "'");
+            System.exit(2);
+        }
+
+        stream_t stream = new stream_t(4096);
+        if (xml.writeBinary(stream) != ERROR.SUCCESS) {
+            System.err.println("CXmlBinary: cannot convert '" + args[0] + "'");
+            System.exit(3);
+        }
+
+        int result;
+        try
+        {
+            FileOutputStream fos = new FileOutputStream(args[1]);
+            result = stream.readIntoOutputStream(fos, -1);
+            fos.close();
+        }
+        catch (Exception ex) {
+            result = ERROR.WRITE;
+        }
+
+        if (result < 0) {
+            System.err.println("CXmlBinary: cannot write '" + args[1] + "'");
+            System.exit(4);
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name CONSTRUCTORS */ //@{
+    // private CXmlBinary();/*{{{*/
+    /**
+     * Builds an instance used to write a tree.
+     **/
+    private CXmlBinary() {
+        m_index   = new HashMap<String, Integer>();
+        m_strings = new ArrayList<String>();
+    }/*}}}*/
+    // private CXmlBinary(byte[] data, int start, int limit);/*{{{*/
+    /**
+     * Builds an instance used to read a tree.
+     **/
+    private CXmlBinary(byte[] data, int start, int limit) {
+        m_data  = data;
+        m_pos   = start;
+        m_limit = limit;
+    }/*}}}*/
+    //@}
+
+    /** \name WRITING IMPLEMENTATION */ //@{
+    // private void _internal_collect(CXmlNode node);/*{{{*/
+    /**
+     * Adds in the pool all strings used by a node and its children.
+     **/
+    private void _internal_collect(CXmlNode node) {
+        node.expand();
+        _internal_intern(node.nodeName);
+
+        int limit = arrays.length(node.attrs);
+        for (int i = 0; i < limit; i++)
+        {
+            _internal_intern(node.attrs[i].name);
+            if (!_internal_isLong(node.attrs[i].value))
+                _internal_intern(node.attrs[i].value);
+        }
+
+        limit = arrays.length(node.children);
+        for (int i = 0; i < limit; i++)
+            _internal_collect(node.children[i]);
+    }/*}}}*/
+    // private int  _internal_intern(String s);/*{{{*/
+    /**
+     * Gets the pool index of a string, adding it when needed.
+     **/
+    private int _internal_intern(String s) {
+        if (s == null) s = "";
+
+        Integer index = m_index.get(s);
+        if (index == null)
+        {
+            index = Integer.valueOf(m_strings.size());
+            m_index.put(s, index);
+            m_strings.add(s);
+        }
+        return index.intValue();
+    }/*}}}*/
+    // private void _internal_write(CXmlNode node, stream_t stream);/*{{{*/
+    /**
+     * Writes a node and its children.
+     **/
+    private void _internal_write(CXmlNode node, stream_t stream) {
+        _internal_varint(stream, _internal_intern(node.nodeName));
+
+        int limit = arrays.length(node.attrs);
+        String value;
+
+        _internal_varint(stream, limit);
+        for (int i = 0; i < limit; i++)
+        {
+            value = node.attrs[i].value;
+            _internal_varint(stream, _internal_intern(node.attrs[i].name));
+
+            if (_internal_isLong(value))
+            {
+                long number = Long.parseLong(value);
+                stream.write(TYPE_LONG);
+                _internal_varint(stream, (number << 1) ^ (number >> 63));
+            }
+            else
+            {
+                stream.write(TYPE_STRING);
+                _internal_varint(stream, _internal_intern(value));
+            }
+        }
+
+        limit = arrays.length(node.children);
+        _internal_varint(stream, limit);
+        for (int i = 0; i < limit; i++)
+            _internal_write(node.children[i], stream);
+    }/*}}}*/
+    // private void _internal_varint(stream_t stream, long value);/*{{{*/
+    /**
+     * Writes an unsigned variable length number.
+     **/
+    private void _internal_varint(stream_t stream, long value) {
+        while ((value & ~0x7FL) != 0) {
+            stream.write((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        stream.write((int)value);
+    }/*}}}*/
+    //@}
+
+    /** \name READING IMPLEMENTATION */ //@{
+    // private boolean  _internal_readPool();/*{{{*/
+    /**
+     * Reads the string pool.
+     **/
+    private boolean _internal_readPool() {
+        int count = (int)_internal_varint();
+        if ((count < 0) || (count > (m_limit - m_pos)))
+            return false;
+
+        m_pool = new String[count];
+
+        int length;
+        for (int i = 0; i < count; i++)
+        {
+            length = (int)_internal_varint();
+            if ((length < 0) || (length > (m_limit - m_pos)))
+                return false;
+
+            m_pool[i] = new String(m_data, m_pos, length, UTF8);
+            m_pos += length;
+        }
+        return true;
+    }/*}}}*/
+    // private CXmlNode _internal_read();/*{{{*/
+    /**
+     * Reads a node and its children.
+     * \return The node read or \b null when the data is invalid.
+     **/
+    private CXmlNode _internal_read() {
+        String name = _internal_string();
+        if (name == null) return null;
+
+        CXmlNode node = new CXmlNode(name);
+        int count = _internal_count();
+        if (count < 0) return null;
+
+        if (count > 0)
+        {
+            CXmlAttr attr;
+            node.attrs = new CXmlAttr[count];
+
+            for (int i = 0; i < count; i++)
+            {
+                attr = new CXmlAttr();
+                attr.name = _internal_string();
+                if ((attr.name == null) || (m_pos >= m_limit))
+                    return null;
+
+                if (m_data[m_pos++] == TYPE_LONG)
+                {
+                    long number = _internal_varint();
+                    number = (number >>> 1) ^ -(number & 1);
+                    attr.value = Long.toString(number);
+                    attr._internal_setLong(number);
+                }
+                else if ((attr.value = _internal_string()) == null)
+                    return null;
+
+                node.attrs[i] = attr;
+            }
+        }
+
+        count = _internal_count();
+        if (count < 0) return null;
+
+        if (count > 0)
+        {
+            node.children = new CXmlNode[count];
+            for (int i = 0; i < count; i++)
+            {
+                if ((node.children[i] = _internal_read()) == null)
+                    return null;
+            }
+        }
+        return node;
+    }/*}}}*/
+    // private String   _internal_string();/*{{{*/
+    /**
+     * Reads a pool index returning the string it references.
+     * \return The string or \b null if the index is invalid.
+     **/
+    private String _internal_string() {
+        long index = _internal_varint();
+        if ((index < 0) || (index >= m_pool.length))
+            return null;
+
+        return m_pool[(int)index];
+    }/*}}}*/
+    // private int      _internal_count();/*{{{*/
+    /**
+     * Reads a count of items.
+     * \return The count or -1 when it cannot be valid with the remaining
+     * data. Every item needs at least one byte.
+     **/
+    private int _internal_count() {
+        long count = _internal_varint();
+        if ((count < 0) || (count > (m_limit - m_pos)))
+            return -1;
+
+        return (int)count;
+    }/*}}}*/
+    // private long     _internal_varint();/*{{{*/
+    /**
+     * Reads an unsigned variable length number.
+     * \return The number read or -1 when the data ends before the number.
+     **/
+    private long _internal_varint() {
+        long result = 0;
+        int  shift  = 0;
+        int  b;
+
+        while (m_pos < m_limit)
+        {
+            b = m_data[m_pos++];
+            result |= ((long)(b & 0x7F) << shift);
+
+            if ((b & 0x80) == 0)
+                return result;
+
+            shift += 7;
+            if (shift > 63) break;
+        }
+        return -1L;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL FUNCTIONS */ //@{
+    // private static boolean _internal_isLong(String value);/*{{{*/
+    /**
+     * Checks whether a value is a decimal number in its canonical form.
+     * Only these values are stored as numbers, so the text read back is
+     * exactly the text written.
+     **/
+    private static boolean _internal_isLong(String value) {
+        int length = ((value == null) ? 0 : value.length());
+        int start  = (((length > 1) && (value.charAt(0) == '-')) ? 1 : 0);
+
+        /* Up to 18 digits always fits in a long. */
+        if ((length == 0) || ((length - start) > 18))
+            return false;
+
+        if ((value.charAt(start) == '0') && ((length - start) > 1 || start == 1))
+            return false;           /* Leading zeros or "-0". */
+
+        char c;
+        for (int i = start; i < length; i++) {
+            c = value.charAt(i);
+            if ((c < '0') || (c > '9'))
+                return false;
+        }
+        return true;
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private HashMap<String, Integer> m_index;   /**< Pool indexes while writing. */
+    private ArrayList<String> m_strings;        /**< Pool while writing.         */
+    private String[] m_pool;                    /**< Pool while reading.         */
+    private byte[]   m_data;                    /**< Data being read.            */
+    private int      m_pos;                     /**< Current read position.      */
+    private int      m_limit;                   /**< End of the data.            */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    private static final byte[]  MAGIC       = { 'J', 'X', 'M', 'B' };
+    private static final byte    VERSION     = 1;
+    private static final int     HEADER_SIZE = 5;
+    private static final byte    TYPE_STRING = 0;
+    private static final byte    TYPE_LONG   = 1;
+    private static final Charset UTF8        = Charset.forName(ENC.UTF8);
+    //@}
+}
+// vim:syntax=java.doxygen
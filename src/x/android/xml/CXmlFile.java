@@ -49,6 +49,21 @@ public class CXmlFile
      * \return The CXmlFile created or \b null if an error occurs.
      **/
     public static CXmlFile Load(CXmlTok tok)
+    {
+        return Load(tok, false);
+    }/*}}}*/
+    // public static CXmlFile Load(CXmlTok tok, boolean lazy);/*{{{*/
+    /**
+     * Creates a CXmlFile object from a CXmlTok object.
+     * \param tok The CXmlTok object to parse and load the XML file.
+     * \param lazy When \b true the root node is created by
+     * CXmlNode#ParseLazy(CXmlTok). Only the structure of the file is checked
+     * and nodes are built when they are read. When \b false the whole tree
+     * is built here.
+     * \return The CXmlFile created or \b null if an error occurs.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile Load(CXmlTok tok, boolean lazy)
     {
         if (tok == null) return null;       /* Invalid file. */
 
@@ -73,7 +88,7 @@ public class CXmlFile
                 }
 
                 tok.back(1);
-                doc.root = CXmlNode.Parse(tok);
+                doc.root = (lazy ? CXmlNode.ParseLazy(tok) : CXmlNode.Parse(tok));
                 break;
             }
         }
@@ -182,6 +197,131 @@ public class CXmlFile
         if (tok == null) return null;
         return CXmlFile.Load(tok);
     }/*}}}*/
+    // public static CXmlFile LoadLazy(InputStream is, String enc);/*{{{*/
+    /**
+     * Loads a XML file from a stream deferring the build of its nodes.
+     * Large files are opened fast since only the branches that are read are
+     * built. See CXmlNode#ParseLazy(CXmlTok).
+     * \param is The \c InputStream with the file. It is closed when the
+     * reading ends. Even when it fails.
+     * \param enc The encoding of the file. See \c x.android.defs#ENC.
+     * \returns The \c CXmlFile instance created or \b null if something goes
+     * wrong.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile LoadLazy(InputStream is, String enc)
+    {
+        CXmlTok tok = CXmlTok.LoadStream(is, enc);
+        if (tok == null) return null;
+        return Load(tok, true);
+    }/*}}}*/
+    // public static CXmlFile LoadLazy(String pathName, String encoding);/*{{{*/
+    /**
+     * Loads an XML file from disc deferring the build of its nodes.
+     * @param pathName Path name and extension of the file to load. Cannot be
+     * \b null not empty string.
+     * @param encoding The encoding of the file on disc. If \b null or empty
+     * string the default will be \b UTF-8.
+     * @return On success a newly created %CXmlFile object. Otherwise \b null.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile LoadLazy(String pathName, String encoding)
+    {
+        if (strings.empty(pathName)) return null;
+        if (strings.empty(encoding)) encoding = ENC.UTF8;
+
+        FileInputStream fis;
+
+        try { fis = new FileInputStream(pathName); }
+        catch (Exception ex) {
+            debug.e(ex, "$n in CXmlFile::LoadLazy(String,String) for file: '%s'\n\t|=> $s\n",
+                    pathName);
+            return null;
+        }
+        return LoadLazy(fis, encoding);
+    }/*}}}*/
+    // public static CXmlFile LoadBinary(stream_t stream);/*{{{*/
+    /**
+     * Loads an XML tree written in binary format.
+     * \param stream Stream with the data written by #writeBinary(stream_t).
+     * All available bytes are consumed.
+     * \return On success a newly created %CXmlFile object. Otherwise \b null.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile LoadBinary(stream_t stream)
+    {
+        if (stream == null) return null;
+
+        int    total = stream.available();
+        byte[] bytes = new byte[total];
+
+        total = stream.read(bytes, 0, total);
+        return LoadBinary(bytes, 0, total);
+    }/*}}}*/
+    // public static CXmlFile LoadBinary(InputStream is);/*{{{*/
+    /**
+     * Loads an XML tree written in binary format.
+     * \param is The \c InputStream with the binary data. It is closed when
+     * the reading ends. Even when it fails.
+     * \return On success a newly created %CXmlFile object. Otherwise \b null.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile LoadBinary(InputStream is)
+    {
+        CStreamReader sr = new CStreamReader( is );
+        int count = 0, pos = 0;
+        byte[] buffer = null;
+
+        while ((count = sr.available()) > 0) {
+            buffer = arrays.realloc(buffer, (pos + count));
+            count  = sr.read(buffer, pos, count);
+            if (count < 0) break;       /* End of File found. */
+            pos += count;
+        }
+        sr.close();
+
+        return LoadBinary(buffer, 0, pos);
+    }/*}}}*/
+    // public static CXmlFile LoadBinary(String pathName);/*{{{*/
+    /**
+     * Loads an XML tree written in binary format from disc.
+     * @param pathName Path name and extension of the file to load. Cannot be
+     * \b null not empty string.
+     * @return On success a newly created %CXmlFile object. Otherwise \b null.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile LoadBinary(String pathName)
+    {
+        if (strings.empty(pathName)) return null;
+
+        FileInputStream fis;
+
+        try { fis = new FileInputStream(pathName); }
+        catch (Exception ex) {
+            debug.e(ex, "$n in CXmlFile::LoadBinary(String) for file: '%s'\n\t|=> $s\n",
+                    pathName);
+            return null;
+        }
+        return LoadBinary(fis);
+    }/*}}}*/
+    // public static CXmlFile LoadBinary(byte[] data, int start, int count);/*{{{*/
+    /**
+     * Loads an XML tree written in binary format.
+     * \param data Array with the binary data.
+     * \param start Offset of the first byte in \a data.
+     * \param count Number of bytes in \a data.
+     * \return On success a newly created %CXmlFile object. Otherwise \b null.
+     * \since jguime 2.5
+     **/
+    public static CXmlFile LoadBinary(byte[] data, int start, int count)
+    {
+        CXmlNode root = CXmlBinary.read(data, start, count);
+        if (root == null) return null;
+
+        CXmlFile doc = new CXmlFile();
+        doc.root = root;
+        return doc;
+    }/*}}}*/
     //@}
 
     /** \name OVERRIDES */ //@{
@@ -269,30 +409,10 @@ public class CXmlFile
      * \remarks The stream is closed after the writing ends.
      **/
     public void write(OutputStream os, String enc, boolean bom) {
-        CStreamWriter writer = new CStreamWriter(os);
+        CStreamWriter stream = new CStreamWriter(os);
 
-        /* First things first. Write the BOM if requested so. */
-        if (bom)
-        {
-            if (enc.equals(ENC.UTF32LE))
-                writer.put(new byte[] { (byte)0xFF, (byte)0xFE, 0x00, 0x00 });
-            else if (enc.equals(ENC.UTF32BE))
-                writer.put(new byte[] { 0x00, 0x00, (byte)0xFE, (byte)0xFF });
-            else if (enc.equals(ENC.UTF16LE))
-                writer.put(new byte[] { (byte)0xFF, (byte)0xFE });
-            else if (enc.equals(ENC.UTF16BE))
-                writer.put(new byte[] { (byte)0xFE, (byte)0xFF });
-            else if (enc.equals(ENC.UTF8))
-                writer.put(new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF });
-        }
-
-        /* Starts the file using the encoding. */
-        writer.put("<?xml version=\"1.0\" encoding=\""+enc+"\"?>\n", enc);
-        if (this.root != null) {
-            this.root.write(writer, enc);
-        }
-        writer.flush();
-        writer.close();
+        write(new CXmlWriter(stream, enc), bom);
+        stream.close();
     }/*}}}*/
     // public void write(stream_t stream, String enc, boolean bom);/*{{{*/
     /**
@@ -303,26 +423,38 @@ public class CXmlFile
      * stream. **false** will skip this task.
      **/
     public void write(stream_t stream, String enc, boolean bom) {
-        /* First things first. Write the BOM if requested so. */
-        if (bom)
-        {
-            if (enc.equals(ENC.UTF32LE))
-                stream.write(new byte[] { (byte)0xFF, (byte)0xFE, 0x00, 0x00 });
-            else if (enc.equals(ENC.UTF32BE))
-                stream.write(new byte[] { 0x00, 0x00, (byte)0xFE, (byte)0xFF });
-            else if (enc.equals(ENC.UTF16LE))
-                stream.write(new byte[] { (byte)0xFF, (byte)0xFE });
-            else if (enc.equals(ENC.UTF16BE))
-                stream.write(new byte[] { (byte)0xFE, (byte)0xFF });
-            else if (enc.equals(ENC.UTF8))
-                stream.write(new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF });
-        }
-
-        /* Starts the file using the encoding. */
-        stream.write("<?xml version=\"1.0\" encoding=\""+enc+"\"?>\n", enc);
+        write(new CXmlWriter(stream, enc), bom);
+    }/*}}}*/
+    // public int  write(CXmlWriter writer, boolean bom);/*{{{*/
+    /**
+     * Writes the content of this XML file using a streaming writer.
+     * The writer is flushed but not closed.
+     * \param writer The CXmlWriter object. The encoding of the file is the
+     * one defined in the writer.
+     * \param bom **true** to write the Byte Order Mark in the start of the
+     * stream. **false** will skip this task.
+     * \return The status of the writing. \c ERROR#SUCCESS or an error code.
+     * \since jguime 2.5
+     **/
+    public int write(CXmlWriter writer, boolean bom) {
+        writer.startDocument(bom);
         if (this.root != null) {
-            this.root.write(stream, enc);
+            this.root.write(writer);
         }
+        return writer.flush();
+    }/*}}}*/
+    // public int  writeBinary(stream_t stream);/*{{{*/
+    /**
+     * Writes the content of this XML file in binary format.
+     * The binary format is loaded much faster than the text format. See
+     * CXmlBinary for the layout of the data.
+     * \param stream The stream object to write the data.
+     * \return \c ERROR#SUCCESS or an error code. When there is no root node
+     * the result is \c ERROR#PARM.
+     * \since jguime 2.5
+     **/
+    public int writeBinary(stream_t stream) {
+        return CXmlBinary.write(this.root, stream);
     }/*}}}*/
     // public void log();/*{{{*/
     /**
@@ -66,7 +66,6 @@ public class CXmlNode
             return null;
         }
 
-        String data;
         String temp = tok.getNextWord();
         if (temp == null) {
             debug.w("CXmlNode::Parse() failed! Tag doesn't have a name.");
@@ -74,85 +73,94 @@ public class CXmlNode
         }
 
         CXmlNode node = new CXmlNode(temp);
-
-        /* Process the attributes. */
-        while ((temp = tok.getNextWord()) != null)
-        {
-            if ((c = tok.next()) != '=') {
-                debug.w("CXmlNode::Parse('%s') failed! Invalid attribute: '%s'.", node.nodeName, temp);
-                return null;            /* Invalid attribute specifier. */
-            }
-
-            data = tok.getQuotedText();
-            if (data == null) {
-                debug.w("CXmlNode::Parse('%s') failed! Attribute with no value: '%s'", node.nodeName, temp);
-                return null;            /* Malformed XML. */
-            }
-            node.append(temp, CXmlTok.Decode(data));  /* Append this attribute. */
+        return (node._internal_parse(tok, false) ? node : null);
+    }/*}}}*/
+    // public static CXmlNode ParseLazy(CXmlTok tok);/*{{{*/
+    /**
+     * Parses a XML document fragment deferring the build of its content.
+     * Only the structure of the fragment is checked here and the position
+     * of the element is recorded. Attributes and children nodes are built
+     * only when they are needed, by #expand() or any function of this class
+     * that reads them. Children nodes are also created in lazy mode, so a
+     * branch that is never read is never built.
+     * \param tok A CXmlTok object with the XML fragment. The object is kept
+     * by the returned node and its children until they are expanded.
+     * \return An instance of a CXmlNode object indicates success. \b null
+     * will be returned if the fragment is invalid.
+     * \remarks The \a tok object must be pointing to the angle bracket that
+     * starts the fragment ('\<'). When this function returns the position
+     * will be after the closing TAG of the fragment.
+     * \note The public fields #attrs and #children of a lazy node are valid
+     * only after #expand() is called. A lazy tree must not be expanded by
+     * more than one thread at the same time.
+     * \since jguime 2.5
+     **/
+    public static CXmlNode ParseLazy(CXmlTok tok) {
+        char c = tok.getNextToken();
+        if (c != '<') {
+            debug.w("CXmlNode::ParseLazy() failed! Invalid tag start.");
+            return null;
         }
 
-        c = tok.getNextToken();
-        if (c == '/')
-        {
-            if ((c = tok.getNextToken()) == '>')
-                return node;            /* End of this node. */
-            else
-            {
-                debug.w("CXmlNode::Parse('%s') failed! Invalid tag end: '%c'", node.nodeName, c);
-                return null;            /* Malformed XML. */
-            }
+        int    start = tok.m_index - 1;
+        String name  = tok.getNextWord();
+        if (name == null) {
+            debug.w("CXmlNode::ParseLazy() failed! Tag doesn't have a name.");
+            return null;
         }
 
-        if (c != '>') {
-            debug.w("CXmlNode::Parse('%s') failed! Invalid tag end mark: '%c'", node.nodeName, c);
+        tok.m_index = start;
+        if (!tok.skipElement()) {
+            debug.w("CXmlNode::ParseLazy('%s') failed! Element is not closed.", name);
             return null;
         }
 
-        CXmlNode child = null;
-
-        /* Process child nodes, if any, or the end of this node. */
-        while ((c = tok.getNextToken()) != '\0')
-        {
-            if (c != '<') {
-                debug.w("CXmlNode::Parse('%s') failed! Invalid child tag start.", node.nodeName);
-                return null;            /* Malformed XML. */
-            }
-
-            if ((c = tok.next()) == '/') {
-                temp = tok.getNextWord();
-                if (!temp.equals(node.nodeName)) {
-                    debug.w("CXmlNode::Parse('%s') failed! Invalid finish tag name: '%s'", node.nodeName, temp);
-                    return null;        /* Malformed XML. */
-                }
-
-                if ((c = tok.next()) != '>') {
-                    debug.w("CXmlNode::Parse('%s') failed! Invalid tag end mark: '%c'", node.nodeName, c);
-                    return null;        /* Malformed XML. */
-                }
-
-                return node;            /* End of this node found. */
-            }
-
-            /* Start the process of a child node. */
-            tok.back(2);
-            child = CXmlNode.Parse(tok);
-            if (child == null) {
-                debug.w("CXmlNode::Parse('%s') failed! Invalid child element", node.nodeName);
-                return null;        /* Malformed XML. */
-            }
-            node.append(child);
-        }
+        CXmlNode node = new CXmlNode(name);
+        node.m_tok    = tok;
+        node.m_offset = start;
         return node;
     }/*}}}*/
     //@}
 
     /** \name PROPERTIES */ //@{
+    // public final boolean isExpanded();/*{{{*/
+    /**
+     * Checks whether the content of this node was already built.
+     * \returns \b false only for a node created by #ParseLazy(CXmlTok)
+     * whose attributes and children were not read yet.
+     * \since jguime 2.5
+     **/
+    public final boolean isExpanded() {
+        return (m_tok == null);
+    }/*}}}*/
+    // public final CXmlAttr[] getAttributes();/*{{{*/
+    /**
+     * Gets the list of attributes of this node.
+     * \returns The #attrs array. Can be \b null.
+     * \remarks A lazy node is expanded in this call.
+     * \since jguime 2.5
+     **/
+    public final CXmlAttr[] getAttributes() {
+        return expand().attrs;
+    }/*}}}*/
+    // public final CXmlNode[] getChildren();/*{{{*/
+    /**
+     * Gets the list of children of this node.
+     * \returns The #children array. Can be \b null.
+     * \remarks A lazy node is expanded in this call. Its children are kept
+     * in lazy mode.
+     * \since jguime 2.5
+     **/
+    public final CXmlNode[] getChildren() {
+        return expand().children;
+    }/*}}}*/
     // public final boolean hasAttributes();/*{{{*/
     /**
      * Checks if this node has attributes.
      * \returns \b true if this node has attributes. Otherwise \b false.
      **/
     public final boolean hasAttributes() {
+        expand();
         return ((this.attrs != null) && (this.attrs.length > 0));
     }/*}}}*/
     // public final boolean hasChildren();/*{{{*/
@@ -161,6 +169,7 @@ public class CXmlNode
      * \returns \b true if this node has child nodes. Otherwise \b false.
      **/
     public final boolean hasChildren() {
+        expand();
         return ((this.children != null) && (this.children.length > 0));
     }/*}}}*/
     // public final boolean hasAttribute(String name);/*{{{*/
@@ -170,6 +179,7 @@ public class CXmlNode
      * \return \b true when the attribute exists. Otherwise \b false.
      **/
     public final boolean hasAttribute(String name) {
+        expand();
         CXmlAttr[] attrs = this.attrs;
         int        limit = arrays.length(attrs);
 
@@ -184,6 +194,7 @@ public class CXmlNode
      * Gets the number of children elements.
      **/
     public final int     childCount() {
+        expand();
         return arrays.length(this.children);
     }/*}}}*/
     //@}
@@ -197,6 +208,7 @@ public class CXmlNode
      * the list.
      **/
     public final int      indexOf(CXmlAttr attr) {
+        expand();
         int limit = arrays.length(this.attrs);
         CXmlAttr[] attrList = this.attrs;
 
@@ -214,6 +226,7 @@ public class CXmlNode
      * with the specified name was not found.
      **/
     public final CXmlAttr getAttribute(String name) {
+        expand();
         CXmlAttr[] list = this.attrs;
         int count = arrays.length(list);
 
@@ -272,6 +285,7 @@ public class CXmlNode
      * function fails the return is less than zero.
      **/
     public final int append(CXmlAttr attr) {
+        expand();
         CXmlAttr[] list = null;
         int count = arrays.length(this.attrs);
 
@@ -330,6 +344,7 @@ public class CXmlNode
      * \return A função retorna o atributo removido.
      **/
     public final CXmlAttr remove(String name) {
+        expand();
         int count = arrays.length(this.attrs);
         CXmlAttr[] attrList = this.attrs;
 
@@ -370,6 +385,7 @@ public class CXmlNode
      * found.
      **/
     public final int indexOf(String name) {
+        expand();
         CXmlNode[] list = this.children;
         int count = arrays.length(list);
 
@@ -400,6 +416,7 @@ public class CXmlNode
      * success. A value less than zero means failure.
      **/
     public final int append(CXmlNode node) {
+        expand();
         CXmlNode[] list = null;
         int count = arrays.length(this.children);
 
@@ -420,6 +437,7 @@ public class CXmlNode
      **/
     public final boolean remove(CXmlNode node)
     {
+        expand();
         final CXmlNode[] items = this.children;
         final int limit = arrays.length(items);
         int       index = -1;
@@ -440,6 +458,7 @@ public class CXmlNode
      **/
     public final boolean remove(int index)
     {
+        expand();
         final int limit = arrays.length(this.children);
 
         if ((index < 0) || (index >= limit)) return false;
@@ -468,7 +487,8 @@ public class CXmlNode
     public boolean equals(Object obj) {
         if (obj instanceof CXmlNode)
         {
-            CXmlNode node = (CXmlNode)obj;
+            CXmlNode node = ((CXmlNode)obj).expand();
+            expand();
 
             if ((this.nodeName != null) && this.nodeName.equals(node.nodeName))
             {
@@ -494,6 +514,7 @@ public class CXmlNode
      * The resulting string will be ready to be written in an XML file.
      **/
     public String  toString() {
+        expand();
         StringBuilder sb = new StringBuilder(256);
 
         sb.append("<"+this.nodeName);
@@ -524,22 +545,9 @@ public class CXmlNode
      * \param enc The encoding to convert this node content.
      **/
     public void write(CStreamWriter sw, String enc) {
-        sw.put("<"+nodeName, enc);
-
-        int limit = arrays.length(this.attrs);
-        for (int i = 0; i < limit; i++)
-            sw.put(this.attrs[i].toString(), enc);
-
-        limit = arrays.length(this.children);
-        if (limit == 0)
-            sw.put(" />\n", enc);
-        else
-        {
-            sw.put(">\n", enc);
-            for (int d = 0; d < limit; d++)
-                this.children[d].write(sw, enc);
-            sw.put("</"+nodeName+">\n", enc);
-        }
+        CXmlWriter writer = new CXmlWriter(sw, enc);
+        write(writer);
+        writer.flush();
     }/*}}}*/
     // public void write(stream_t stream, String enc);/*{{{*/
     /**
@@ -549,22 +557,30 @@ public class CXmlNode
      * \param enc The encoding to be used to write the data.
      **/
     public void write(stream_t stream, String enc) {
-        stream.write("<"+nodeName, enc);
+        CXmlWriter writer = new CXmlWriter(stream, enc);
+        write(writer);
+        writer.flush();
+    }/*}}}*/
+    // public void write(CXmlWriter writer);/*{{{*/
+    /**
+     * Writes the content of this node, and all its child nodes, using a
+     * streaming writer.
+     * \param writer The CXmlWriter object. Its content is not flushed here.
+     * \since jguime 2.5
+     **/
+    public void write(CXmlWriter writer) {
+        expand();
+        writer.startElement(nodeName);
 
         int limit = arrays.length(this.attrs);
         for (int i = 0; i < limit; i++)
-            stream.write(this.attrs[i].toString(), enc);
+            writer.attribute(this.attrs[i]);
 
         limit = arrays.length(this.children);
-        if (limit == 0)
-            stream.write(" />\n", enc);
-        else
-        {
-            stream.write(">\n", enc);
-            for (int d = 0; d < limit; d++)
-                this.children[d].write(stream, enc);
-            stream.write("</"+nodeName+">\n", enc);
-        }
+        for (int d = 0; d < limit; d++)
+            this.children[d].write(writer);
+
+        writer.endElement();
     }/*}}}*/
     // public void log(int indent);/*{{{*/
     /**
@@ -572,6 +588,7 @@ public class CXmlNode
      * \param indent Indentation level.
      **/
     public void log(int indent) {
+        expand();
         StringBuilder sb = new StringBuilder(1024);
 
         sb.append(strings.repeat(' ', indent))
@@ -603,10 +620,160 @@ public class CXmlNode
     }/*}}}*/
     //@}
 
+    /** \name LAZY MODE */ //@{
+    // public final CXmlNode expand();/*{{{*/
+    /**
+     * Builds the attributes and children of a lazy node.
+     * Nodes created by #ParseLazy(CXmlTok) have only their names until this
+     * function is called. The children are created in lazy mode too. For a
+     * node that is already expanded nothing is done.
+     * \return This node.
+     * \since jguime 2.5
+     **/
+    public final CXmlNode expand() {
+        CXmlTok tok = m_tok;
+        if (tok == null) return this;
+
+        int index = tok.m_index;
+
+        m_tok = null;
+        tok.m_index = m_offset;
+        tok.getNextToken();             /* '<'  */
+        tok.getNextWord();              /* name */
+
+        if (!_internal_parse(tok, true))
+            debug.w("CXmlNode::expand('%s') failed! Malformed element.", nodeName);
+
+        tok.m_index = index;
+        return this;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL FUNCTIONS */ //@{
+    // private boolean _internal_parse(CXmlTok tok, boolean lazy);/*{{{*/
+    /**
+     * Parses the attributes and children of this node.
+     * \param tok Tokenizer positioned after the node name.
+     * \param lazy When \b true children are created by #ParseLazy(CXmlTok).
+     * Otherwise they are fully parsed.
+     * \return \b true on success. \b false when the XML is malformed.
+     **/
+    private boolean _internal_parse(CXmlTok tok, boolean lazy) {
+        String data, temp;
+        char   c;
+
+        /* Process the attributes. */
+        while ((temp = tok.getNextWord()) != null)
+        {
+            if ((c = tok.next()) != '=') {
+                debug.w("CXmlNode::Parse('%s') failed! Invalid attribute: '%s'.", this.nodeName, temp);
+                return false;           /* Invalid attribute specifier. */
+            }
+
+            data = tok.getQuotedText();
+            if (data == null) {
+                debug.w("CXmlNode::Parse('%s') failed! Attribute with no value: '%s'", this.nodeName, temp);
+                return false;           /* Malformed XML. */
+            }
+            append(temp, CXmlTok.Decode(data));  /* Append this attribute. */
+        }
+
+        c = tok.getNextToken();
+        if (c == '/')
+        {
+            if ((c = tok.getNextToken()) == '>')
+                return true;            /* End of this node. */
+            else
+            {
+                debug.w("CXmlNode::Parse('%s') failed! Invalid tag end: '%c'", this.nodeName, c);
+                return false;           /* Malformed XML. */
+            }
+        }
+
+        if (c != '>') {
+            debug.w("CXmlNode::Parse('%s') failed! Invalid tag end mark: '%c'", this.nodeName, c);
+            return false;
+        }
+
+        CXmlNode[] list   = null;
+        CXmlNode   child  = null;
+        int        count  = 0;
+        boolean    result = true;
+
+        /* Process child nodes, if any, or the end of this node. */
+        while ((c = tok.getNextToken()) != '\0')
+        {
+            if (c != '<') {
+                debug.w("CXmlNode::Parse('%s') failed! Invalid child tag start.", this.nodeName);
+                result = false;
+                break;                  /* Malformed XML. */
+            }
+
+            if ((c = tok.next()) == '/') {
+                temp = tok.getNextWord();
+                if (!this.nodeName.equals(temp)) {
+                    debug.w("CXmlNode::Parse('%s') failed! Invalid finish tag name: '%s'", this.nodeName, temp);
+                    result = false;
+                    break;              /* Malformed XML. */
+                }
+
+                if ((c = tok.next()) != '>') {
+                    debug.w("CXmlNode::Parse('%s') failed! Invalid tag end mark: '%c'", this.nodeName, c);
+                    result = false;
+                    break;              /* Malformed XML. */
+                }
+
+                /* End of this node found. */
+                this.children = _internal_trim(list, count);
+                return true;
+            }
+
+            /* Start the process of a child node. */
+            tok.back(2);
+            child = (lazy ? CXmlNode.ParseLazy(tok) : CXmlNode.Parse(tok));
+            if (child == null) {
+                debug.w("CXmlNode::Parse('%s') failed! Invalid child element", this.nodeName);
+                result = false;
+                break;                  /* Malformed XML. */
+            }
+
+            /* The list grows geometrically. Files with thousands of
+             * children would be quadratic otherwise.
+             */
+            if (count == arrays.length(list))
+            {
+                CXmlNode[] grown = new CXmlNode[(count == 0) ? 8 : count * 2];
+                if (count > 0) System.arraycopy(list, 0, grown, 0, count);
+                list = grown;
+            }
+
+            list[count++] = child;
+        }
+
+        this.children = _internal_trim(list, count);
+        return result;
+    }/*}}}*/
+    // private static CXmlNode[] _internal_trim(CXmlNode[] list, int count);/*{{{*/
+    /**
+     * Builds an array with the exact number of children parsed.
+     * \return \b null when \a count is zero, as expected by #children.
+     **/
+    private static CXmlNode[] _internal_trim(CXmlNode[] list, int count) {
+        if (count == 0) return null;
+        if (count == list.length) return list;
+
+        CXmlNode[] result = new CXmlNode[count];
+        System.arraycopy(list, 0, result, 0, count);
+        return result;
+    }/*}}}*/
+    //@}
+
     /** \name DATA MEMBERS */ //@{
     public String     nodeName;    /**< The name of this node. */
     public CXmlAttr[] attrs;       /**< The list of attributes and values. */
     public CXmlNode[] children;    /**< Array of children nodes, if any.   */
+    CXmlTok m_tok;                 /**< Tokenizer of a lazy node.          */
+    int     m_offset;              /**< Position of a lazy node in m_tok.  */
     //@}
 }
 // vim:syntax=java.doxygen
@@ -0,0 +1,824 @@
+/**
+ * \file
+ * Defines the CXmlQuery class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.xml;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import x.android.utils.arrays;
+import x.android.utils.debug;
+import x.android.utils.strings;
+
+/**
+ * \ingroup x_android_xml
+ * Compiled path expression over CXmlNode trees.
+ * A small subset of XPath is supported:
+ * - \b /name: A child element with the given name. The name \b * matches
+ *   any element.
+ * - \b //name: An element with the given name at any depth.
+ * - \b [\@attr]: The element must have the attribute.
+ * - \b [\@attr=value]: The attribute must have the value. The value can be
+ *   quoted with single or double quotes. An unquoted integer (decimal or
+ *   with the '0x' prefix) is compared as a number, so \c [\@id=42] matches
+ *   both \c id="42" and \c id="0x2A". A \b ? is replaced by the argument
+ *   passed in the evaluation functions.
+ * - \b [n]: The element must be the n-th (starting at 1) child of its parent
+ *   that matches the name and other predicates.
+ * - \b /\@attr: As the last item selects the attribute of the element found.
+ * .
+ * A path starting with '/' takes the context node as the root element of
+ * the document. Otherwise the path is relative to the context node.
+ * @code
+ * CXmlQuery query = CXmlQuery.Compile("/stringtable/string[@id=?]/@value");
+ * String text = query.value(file.root, 42);
+ * @endcode
+ * Queries are compiled once and can be evaluated many times. The evaluation
+ * of #first() and #value() doesn't allocate memory, except to build the
+ * indexes. When #setIndexed() is enabled the children of a node are indexed
+ * by the value of the predicate attribute the first time a query visits
+ * them. Next evaluations start the scan at the first element with the
+ * value, or skip the list when no element has it.
+ *//* --------------------------------------------------------------------- */
+public final class CXmlQuery
+{
+    /** \name STATIC FUNCTIONS */ //@{
+    // public static CXmlQuery Compile(String expr);/*{{{*/
+    /**
+     * Compiles a path expression.
+     * \param expr The expression to compile.
+     * \return The compiled query or \b null if the expression is not valid.
+     **/
+    public static CXmlQuery Compile(String expr) {
+        if (strings.empty(expr)) return null;
+
+        CXmlQuery query = new CXmlQuery(expr);
+        int pos = query._internal_compile();
+
+        if (pos >= 0) {
+            debug.w("CXmlQuery::Compile('%s') failed at position %d!\n", expr, pos);
+            return null;
+        }
+        return query;
+    }/*}}}*/
+    //@}
+
+    /** \name CONSTRUCTOR */ //@{
+    // private CXmlQuery(String expr);/*{{{*/
+    /**
+     * Builds an empty query. Use #Compile(String).
+     **/
+    private CXmlQuery(String expr) {
+        m_expr  = expr;
+        m_steps = new Step[4];
+        m_count = 0;
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final String  expression();/*{{{*/
+    /**
+     * Gets the source expression of this query.
+     **/
+    public final String expression() {
+        return m_expr;
+    }/*}}}*/
+    // public final boolean isIndexed();/*{{{*/
+    /**
+     * Checks whether this query indexes the nodes it visits.
+     **/
+    public final boolean isIndexed() {
+        return (m_indexes != null);
+    }/*}}}*/
+    // public final void    setIndexed(boolean indexed);/*{{{*/
+    /**
+     * Enables or disables the indexing of children nodes.
+     * When enabled, child steps (not '//') with a single \c [\@attr=value]
+     * predicate build an index of the children of the parent node the first
+     * time they visit it. Each step has its own index of a node, since steps
+     * select by different names and attributes. Nodes are kept by identity
+     * and weakly referenced, so indexed trees can be discarded.
+     * Use this for queries evaluated many times over the same tree.
+     * \param indexed \b true to enable the indexes. \b false discards all
+     * indexes built.
+     * \note An index is rebuilt when the children list of its node changes.
+     * Changing attribute values of indexed nodes is not detected.
+     **/
+    public final void setIndexed(boolean indexed) {
+        synchronized (this) {
+            m_indexes = (indexed ? new HashMap<Object, Index>() : null);
+            m_queue   = (indexed ? new ReferenceQueue<CXmlNode>() : null);
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name EVALUATION */ //@{
+    // public final CXmlNode first(CXmlNode context);/*{{{*/
+    /**
+     * Finds the first element matching this query.
+     * \param context The context node.
+     * \return The element found or \b null.
+     **/
+    public final CXmlNode first(CXmlNode context) {
+        return _internal_first(context, null, 0L, false);
+    }/*}}}*/
+    // public final CXmlNode first(CXmlNode context, String arg);/*{{{*/
+    /**
+     * Finds the first element matching this query.
+     * \param context The context node.
+     * \param arg Text compared with the attribute in '?' predicates.
+     * \return The element found or \b null.
+     **/
+    public final CXmlNode first(CXmlNode context, String arg) {
+        return _internal_first(context, arg, 0L, false);
+    }/*}}}*/
+    // public final CXmlNode first(CXmlNode context, long arg);/*{{{*/
+    /**
+     * Finds the first element matching this query.
+     * \param context The context node.
+     * \param arg Number compared with the attribute in '?' predicates.
+     * \return The element found or \b null.
+     **/
+    public final CXmlNode first(CXmlNode context, long arg) {
+        return _internal_first(context, null, arg, true);
+    }/*}}}*/
+    // public final CXmlAttr attribute(CXmlNode context);/*{{{*/
+    /**
+     * Finds the attribute selected by this query.
+     * \param context The context node.
+     * \return The attribute found or \b null. Also \b null when the
+     * expression doesn't end with an attribute selection.
+     **/
+    public final CXmlAttr attribute(CXmlNode context) {
+        return _internal_attribute(_internal_first(context, null, 0L, false));
+    }/*}}}*/
+    // public final String   value(CXmlNode context);/*{{{*/
+    /**
+     * Finds the value of the attribute selected by this query.
+     * \param context The context node.
+     * \return The attribute value or \b null.
+     **/
+    public final String value(CXmlNode context) {
+        CXmlAttr attr = attribute(context);
+        return ((attr == null) ? null : attr.value);
+    }/*}}}*/
+    // public final String   value(CXmlNode context, String arg);/*{{{*/
+    /**
+     * Finds the value of the attribute selected by this query.
+     * \param context The context node.
+     * \param arg Text compared with the attribute in '?' predicates.
+     * \return The attribute value or \b null.
+     **/
+    public final String value(CXmlNode context, String arg) {
+        CXmlAttr attr = _internal_attribute(_internal_first(context, arg, 0L, false));
+        return ((attr == null) ? null : attr.value);
+    }/*}}}*/
+    // public final String   value(CXmlNode context, long arg);/*{{{*/
+    /**
+     * Finds the value of the attribute selected by this query.
+     * \param context The context node.
+     * \param arg Number compared with the attribute in '?' predicates.
+     * \return The attribute value or \b null.
+     **/
+    public final String value(CXmlNode context, long arg) {
+        CXmlAttr attr = _internal_attribute(_internal_first(context, null, arg, true));
+        return ((attr == null) ? null : attr.value);
+    }/*}}}*/
+    // public final CXmlNode[] select(CXmlNode context);/*{{{*/
+    /**
+     * Finds all elements matching this query.
+     * \param context The context node.
+     * \return An array with the elements found, in document order. When
+     * nothing is found the result is an empty array.
+     **/
+    public final CXmlNode[] select(CXmlNode context) {
+        return _internal_select(context, null, 0L, false);
+    }/*}}}*/
+    // public final CXmlNode[] select(CXmlNode context, String arg);/*{{{*/
+    /**
+     * Finds all elements matching this query.
+     * \param context The context node.
+     * \param arg Text compared with the attribute in '?' predicates.
+     * \return An array with the elements found, in document order.
+     **/
+    public final CXmlNode[] select(CXmlNode context, String arg) {
+        return _internal_select(context, arg, 0L, false);
+    }/*}}}*/
+    // public final CXmlNode[] select(CXmlNode context, long arg);/*{{{*/
+    /**
+     * Finds all elements matching this query.
+     * \param context The context node.
+     * \param arg Number compared with the attribute in '?' predicates.
+     * \return An array with the elements found, in document order.
+     **/
+    public final CXmlNode[] select(CXmlNode context, long arg) {
+        return _internal_select(context, null, arg, true);
+    }/*}}}*/
+    //@}
+
+    /** \name OVERRIDES */ //@{
+    // public String toString();/*{{{*/
+    /**
+     * Returns the source expression of this query.
+     **/
+    public String toString() {
+        return m_expr;
+    }/*}}}*/
+    //@}
+
+    /** \name EVALUATION IMPLEMENTATION */ //@{
+    // private CXmlNode   _internal_first(CXmlNode context, String sarg, long narg, boolean numeric);/*{{{*/
+    /**
+     * Starts the search for the first element.
+     **/
+    private CXmlNode _internal_first(CXmlNode context, String sarg, long narg, boolean numeric) {
+        if (context == null) return null;
+
+        if (m_count == 0)
+            return (_internal_accept(context) ? context : null);
+
+        return _internal_apply((m_absolute ? null : context), context, 0, sarg, narg, numeric, null);
+    }/*}}}*/
+    // private CXmlNode[] _internal_select(CXmlNode context, String sarg, long narg, boolean numeric);/*{{{*/
+    /**
+     * Collects all elements found.
+     **/
+    private CXmlNode[] _internal_select(CXmlNode context, String sarg, long narg, boolean numeric) {
+        if (context == null) return new CXmlNode[0];
+
+        if (m_count == 0)
+            return (_internal_accept(context) ? new CXmlNode[] { context } : new CXmlNode[0]);
+
+        ArrayList<CXmlNode> list = new ArrayList<CXmlNode>();
+        _internal_apply((m_absolute ? null : context), context, 0, sarg, narg, numeric, list);
+
+        /* With more than one '//' step the same element can be reached by
+         * different paths. */
+        if ((list.size() > 1) && m_multiple)
+        {
+            IdentityHashMap<CXmlNode, CXmlNode> seen = new IdentityHashMap<CXmlNode, CXmlNode>();
+            ArrayList<CXmlNode> unique = new ArrayList<CXmlNode>(list.size());
+            for (CXmlNode node : list) {
+                if (seen.put(node, node) == null)
+                    unique.add(node);
+            }
+            list = unique;
+        }
+        return list.toArray(new CXmlNode[list.size()]);
+    }/*}}}*/
+    // private CXmlNode   _internal_apply(CXmlNode parent, CXmlNode root, int s, String sarg, long narg, boolean numeric, ArrayList<CXmlNode> all);/*{{{*/
+    /**
+     * Applies a step over the children of a node.
+     * Each child accepted goes to the next step. In the descendant axis the
+     * child is then used as parent of the same step, so the elements are
+     * visited in document order.
+     * \param parent The parent node. When \b null the parent is the document,
+     * whose only child is \a root.
+     * \param root The root element of the document.
+     * \param s Index of the step to apply.
+     * \param all When not \b null every element found is added here and the
+     * search continues. Otherwise the search stops in the first element.
+     * \return The first element found, when \a all is \b null.
+     **/
+    private CXmlNode _internal_apply(CXmlNode parent, CXmlNode root, int s, String sarg, long narg, boolean numeric, ArrayList<CXmlNode> all) {
+        final Step step = m_steps[s];
+        final boolean last = (s == (m_count - 1));
+        CXmlNode[] list  = ((parent == null) ? null : parent.getChildren());
+        int        count = ((parent == null) ? 1 : arrays.length(list));
+        int        match = 0, start = 0;
+        CXmlNode   node, found;
+
+        if ((parent != null) && step.indexable && (m_indexes != null) &&
+            (count >= INDEX_THRESHOLD))
+        {
+            /* No element before 'start' has the value. */
+            start = _internal_lookup(parent, list, step, sarg, narg, numeric);
+            if (start < 0) return null;
+        }
+
+        for (int i = start; i < count; i++)
+        {
+            node = ((parent == null) ? root : list[i]);
+
+            if (((step.name == null) || step.name.equals(node.nodeName)) &&
+                _internal_test(step, node, sarg, narg, numeric) &&
+                ((step.position == 0) || (++match == step.position)))
+            {
+                if (last)
+                {
+                    if (_internal_accept(node))
+                    {
+                        if (all == null) return node;
+                        all.add(node);
+                    }
+                }
+                else if ((found = _internal_apply(node, root, s + 1, sarg, narg, numeric, all)) != null)
+                    return found;
+
+                if ((step.position > 0) && !step.descendant) break;
+            }
+
+            if (step.descendant &&
+                ((found = _internal_apply(node, root, s, sarg, narg, numeric, all)) != null))
+                return found;
+        }
+        return null;
+    }/*}}}*/
+    // private boolean    _internal_test(Step step, CXmlNode node, String sarg, long narg, boolean numeric);/*{{{*/
+    /**
+     * Tests the attribute predicates of a step.
+     **/
+    private boolean _internal_test(Step step, CXmlNode node, String sarg, long narg, boolean numeric) {
+        final int limit = step.predicates;
+        CXmlAttr  attr;
+
+        for (int i = 0; i < limit; i++)
+        {
+            attr = node.getAttribute(step.attrs[i]);
+            if (attr == null) return false;
+
+            switch (step.kinds[i])
+            {
+            case PRED_EXISTS:
+                break;
+            case PRED_TEXT:
+                if (!step.texts[i].equals(attr.value)) return false;
+                break;
+            case PRED_NUMBER:
+                if (!_internal_isInteger(attr) || (attr.longValue() != step.numbers[i]))
+                    return false;
+                break;
+            case PRED_ARGUMENT:
+                if (numeric) {
+                    if (!_internal_isInteger(attr) || (attr.longValue() != narg))
+                        return false;
+                } else if ((sarg == null) || !sarg.equals(attr.value)) {
+                    return false;
+                }
+                break;
+            }
+        }
+        return true;
+    }/*}}}*/
+    // private boolean    _internal_accept(CXmlNode node);/*{{{*/
+    /**
+     * Checks a node found by the last step against the attribute selection.
+     **/
+    private boolean _internal_accept(CXmlNode node) {
+        return ((m_select == null) || (node.getAttribute(m_select) != null));
+    }/*}}}*/
+    // private CXmlAttr   _internal_attribute(CXmlNode node);/*{{{*/
+    /**
+     * Gets the selected attribute of a node.
+     **/
+    private CXmlAttr _internal_attribute(CXmlNode node) {
+        if ((node == null) || (m_select == null)) return null;
+        return node.getAttribute(m_select);
+    }/*}}}*/
+    //@}
+
+    /** \name INDEXES */ //@{
+    // private int   _internal_lookup(CXmlNode parent, CXmlNode[] list, Step step, String sarg, long narg, boolean numeric);/*{{{*/
+    /**
+     * Finds the first child with the predicate value, using the index of
+     * its parent.
+     * The index is built, or rebuilt, when needed.
+     * \return The position of the child in \a list. -1 when no child has
+     * the value.
+     **/
+    private int _internal_lookup(CXmlNode parent, CXmlNode[] list, Step step, String sarg, long narg, boolean numeric) {
+        Index index;
+
+        synchronized (this)
+        {
+            final HashMap<Object, Index> indexes = m_indexes;
+            if (indexes == null) return 0;
+
+            /* Forgets the indexes of collected nodes. */
+            Reference<? extends CXmlNode> ref;
+            while ((ref = m_queue.poll()) != null)
+                indexes.remove(ref);
+
+            m_probe.node = parent;
+            m_probe.step = step;
+            index = indexes.get(m_probe);
+            m_probe.node = null;
+            m_probe.step = null;
+
+            if ((index == null) || (index.children != list))
+            {
+                index = _internal_index(list, step);
+                indexes.put(new NodeKey(parent, step, m_queue), index);
+            }
+        }
+
+        switch (step.kinds[0])
+        {
+        case PRED_TEXT:
+            return index.find(step.texts[0]);
+        case PRED_NUMBER:
+            return index.find(step.numbers[0]);
+        }
+
+        /* PRED_ARGUMENT */
+        if (numeric)
+            return index.find(narg);
+        return ((sarg == null) ? -1 : index.find(sarg));
+    }/*}}}*/
+    // private static Index _internal_index(CXmlNode[] list, Step step);/*{{{*/
+    /**
+     * Indexes a list of children by the predicate attribute of a step.
+     * Each element is indexed by its attribute text and, when the attribute
+     * is an integer, by its number too. Only the first position of each key
+     * is kept.
+     **/
+    private static Index _internal_index(CXmlNode[] list, Step step) {
+        int   count = arrays.length(list);
+        Index index = new Index(list, count);
+        CXmlAttr attr;
+
+        for (int i = 0; i < count; i++)
+        {
+            if (!step.name.equals(list[i].nodeName))
+                continue;
+
+            attr = list[i].getAttribute(step.attrs[0]);
+            if ((attr == null) || (attr.value == null))
+                continue;
+
+            if (!index.texts.containsKey(attr.value))
+                index.texts.put(attr.value, Integer.valueOf(i));
+
+            if (_internal_isInteger(attr))
+                index.put(attr.longValue(), i);
+        }
+        return index;
+    }/*}}}*/
+    // private static boolean _internal_isInteger(CXmlAttr attr);/*{{{*/
+    /**
+     * Checks whether an attribute has an integer value.
+     **/
+    private static boolean _internal_isInteger(CXmlAttr attr) {
+        return (attr.isDecimal() || attr.isHex() || attr.isOctal());
+    }/*}}}*/
+    //@}
+
+    /** \name COMPILER */ //@{
+    // private int  _internal_compile();/*{{{*/
+    /**
+     * Compiles the expression.
+     * \return -1 on success. Otherwise the position of the error.
+     **/
+    private int _internal_compile() {
+        final String expr  = m_expr;
+        final int    limit = expr.length();
+        boolean descendant = false;
+        int     pos = 0, descendants = 0;
+        Step    step;
+        char    c;
+
+        if (expr.charAt(0) == '/') {
+            m_absolute = true;
+            if ((limit > 1) && (expr.charAt(1) == '/')) {
+                descendant = true;
+                pos = 2;
+            } else {
+                pos = 1;
+            }
+        }
+
+        while (pos < limit)
+        {
+            c = expr.charAt(pos);
+
+            if (c == '@')
+            {
+                /* Attribute selection. Must be the last item. */
+                int end = _internal_name(expr, ++pos);
+                if ((end == pos) || (end != limit) || descendant)
+                    return pos;
+
+                m_select = expr.substring(pos, end);
+                return -1;
+            }
+
+            step = new Step();
+            step.descendant = descendant;
+            if (descendant) descendants++;
+
+            if (c == '*')
+                pos++;
+            else
+            {
+                int end = _internal_name(expr, pos);
+                if (end == pos) return pos;
+                step.name = expr.substring(pos, end);
+                pos = end;
+            }
+
+            while ((pos < limit) && (expr.charAt(pos) == '['))
+            {
+                pos = _internal_predicate(step, expr, pos + 1);
+                if (pos < 0) return -pos;
+            }
+
+            step.indexable = ((step.name != null) && (step.predicates == 1) &&
+                              (step.kinds[0] != PRED_EXISTS) && (step.position == 0) &&
+                              !descendant);
+
+            if (m_count == m_steps.length) {
+                Step[] grown = new Step[m_count * 2];
+                System.arraycopy(m_steps, 0, grown, 0, m_count);
+                m_steps = grown;
+            }
+            m_steps[m_count++] = step;
+
+            if (pos == limit) break;
+            if (expr.charAt(pos) != '/') return pos;
+
+            pos++;
+            descendant = ((pos < limit) && (expr.charAt(pos) == '/'));
+            if (descendant) pos++;
+            if (pos == limit) return pos;       /* Trailing '/'. */
+        }
+
+        m_multiple = (descendants > 1);
+        return -1;
+    }/*}}}*/
+    // private static int _internal_predicate(Step step, String expr, int pos);/*{{{*/
+    /**
+     * Compiles a predicate, after the '[' character.
+     * \return The position after the ']' character on success. On failure
+     * the position of the error, negated.
+     **/
+    private static int _internal_predicate(Step step, String expr, int pos) {
+        final int limit = expr.length();
+        int  end;
+        char c;
+
+        if (pos >= limit) return -pos;
+
+        c = expr.charAt(pos);
+        if ((c >= '1') && (c <= '9'))
+        {
+            int value = 0;
+            while ((pos < limit) && ((c = expr.charAt(pos)) >= '0') && (c <= '9')) {
+                value = value * 10 + (c - '0');
+                pos++;
+            }
+            if ((pos >= limit) || (expr.charAt(pos) != ']') || (step.position != 0))
+                return -pos;
+
+            step.position = value;
+            return pos + 1;
+        }
+
+        if (c != '@') return -pos;
+
+        end = _internal_name(expr, ++pos);
+        if (end == pos) return -pos;
+
+        String attr  = expr.substring(pos, end);
+        int    kind  = PRED_EXISTS;
+        String text  = null;
+        long   value = 0L;
+
+        pos = end;
+        if ((pos < limit) && (expr.charAt(pos) == '='))
+        {
+            if (++pos >= limit) return -pos;
+
+            c = expr.charAt(pos);
+            if ((c == '\'') || (c == '"'))
+            {
+                end = expr.indexOf(c, pos + 1);
+                if (end < 0) return -pos;
+
+                text = expr.substring(pos + 1, end);
+                kind = PRED_TEXT;
+                pos  = end + 1;
+            }
+            else
+            {
+                end = expr.indexOf(']', pos);
+                if (end <= pos) return -pos;
+
+                text = expr.substring(pos, end).trim();
+                if (text.equals("?"))
+                    kind = PRED_ARGUMENT;
+                else
+                {
+                    CXmlAttr number = new CXmlAttr(null, text);
+                    if (_internal_isInteger(number)) {
+                        kind  = PRED_NUMBER;
+                        value = number.longValue();
+                    } else {
+                        kind = PRED_TEXT;
+                    }
+                }
+                pos = end;
+            }
+        }
+
+        if ((pos >= limit) || (expr.charAt(pos) != ']'))
+            return -pos;
+
+        step.add(attr, kind, text, value);
+        return pos + 1;
+    }/*}}}*/
+    // private static int _internal_name(String expr, int pos);/*{{{*/
+    /**
+     * Finds the end of a name.
+     * Names follow the same rules of CXmlTok#getNextWord().
+     **/
+    private static int _internal_name(String expr, int pos) {
+        final int limit = expr.length();
+        char c;
+
+        if ((pos >= limit) || !Character.isLetter(expr.charAt(pos)))
+            return pos;
+
+        while ((++pos < limit) && (Character.isLetterOrDigit(c = expr.charAt(pos)) ||
+                                   (c == '_') || (c == ':')));
+        return pos;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL CLASSES */ //@{
+    /**
+     * A compiled step of the path.
+     **/
+    private static final class Step
+    {
+        String   name;          /**< Element name. \b null for any.      */
+        boolean  descendant;    /**< Step is in the descendant axis.     */
+        boolean  indexable;     /**< Step can use the children index.    */
+        int      position;      /**< Position predicate. 0 when absent.  */
+        int      predicates;    /**< Number of attribute predicates.     */
+        String[] attrs = new String[2];     /**< Attribute names.        */
+        int[]    kinds = new int[2];        /**< Predicate kinds.        */
+        String[] texts = new String[2];     /**< Text values.            */
+        long[]   numbers = new long[2];     /**< Numeric values.         */
+
+        void add(String attr, int kind, String text, long number) {
+            if (predicates == attrs.length) {
+                attrs   = arrays.realloc(attrs, predicates * 2);
+                kinds   = arrays.realloc(kinds, predicates * 2);
+                texts   = arrays.realloc(texts, predicates * 2);
+                numbers = arrays.realloc(numbers, predicates * 2);
+            }
+            attrs[predicates]   = attr;
+            kinds[predicates]   = kind;
+            texts[predicates]   = text;
+            numbers[predicates] = number;
+            predicates++;
+        }
+    }
+
+    /**
+     * Index of the children of a node.
+     * Keeps the position of the first child of each value. Numbers are kept
+     * in an open addressing table, so they are found without boxing.
+     **/
+    private static final class Index
+    {
+        CXmlNode[] children;                /**< List indexed.           */
+        HashMap<String, Integer> texts;     /**< Positions by text.      */
+        long[]     numbers;                 /**< Numeric keys.           */
+        int[]      slots;                   /**< Position + 1. 0: free.  */
+        int        mask;                    /**< Table size minus one.   */
+
+        Index(CXmlNode[] list, int count) {
+            int size = 8;
+            while (size < count * 2) size <<= 1;
+
+            children = list;
+            texts    = new HashMap<String, Integer>(count * 2);
+            numbers  = new long[size];
+            slots    = new int[size];
+            mask     = size - 1;
+        }
+
+        int find(String text) {
+            Integer position = texts.get(text);
+            return ((position == null) ? -1 : position.intValue());
+        }
+
+        int find(long number) {
+            int slot = hash(number) & mask;
+
+            while (slots[slot] != 0) {
+                if (numbers[slot] == number) return slots[slot] - 1;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long number, int position) {
+            int slot = hash(number) & mask;
+
+            while (slots[slot] != 0) {
+                if (numbers[slot] == number) return;    /* Keeps the first. */
+                slot = (slot + 1) & mask;
+            }
+            numbers[slot] = number;
+            slots[slot]   = position + 1;
+        }
+
+        static int hash(long number) {
+            int h = (int)(number ^ (number >>> 32)) * 0x9E3779B9;
+            return (h ^ (h >>> 16));
+        }
+    }
+
+    /**
+     * Weak key of the indexes map.
+     * A parent node and the step that indexed its children. Compares the
+     * nodes by identity. CXmlNode#equals() compares the whole tree.
+     **/
+    private static final class NodeKey extends WeakReference<CXmlNode>
+    {
+        final Step step;                    /**< Step of the index.      */
+        final int  hash;                    /**< Identity hash code.     */
+
+        NodeKey(CXmlNode node, Step step, ReferenceQueue<CXmlNode> queue) {
+            super(node, queue);
+            this.step = step;
+            this.hash = hash(node, step);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object other) {
+            if (other == this) return true;
+            if (!(other instanceof NodeKey)) return false;
+
+            CXmlNode node = get();
+            return ((node != null) && (node == ((NodeKey)other).get()) &&
+                    (step == ((NodeKey)other).step));
+        }
+
+        static int hash(CXmlNode node, Step step) {
+            return (System.identityHashCode(node) * 31 + System.identityHashCode(step));
+        }
+    }
+
+    /**
+     * Key used to search the indexes map without allocating a NodeKey.
+     * Used only with the query locked.
+     **/
+    private static final class Probe
+    {
+        CXmlNode node;                      /**< Node searched.          */
+        Step     step;                      /**< Step searched.          */
+
+        public int hashCode() {
+            return NodeKey.hash(node, step);
+        }
+
+        public boolean equals(Object other) {
+            return ((other instanceof NodeKey) && (((NodeKey)other).get() == node) &&
+                    (((NodeKey)other).step == step));
+        }
+    }
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private String  m_expr;             /**< Source expression.               */
+    private Step[]  m_steps;            /**< Compiled steps.                  */
+    private int     m_count;            /**< Number of steps.                 */
+    private boolean m_absolute;         /**< Path starts at the document.     */
+    private boolean m_multiple;         /**< More than one descendant step.   */
+    private String  m_select;           /**< Selected attribute, if any.      */
+    private volatile HashMap<Object, Index> m_indexes;  /**< Indexes by key.  */
+    private ReferenceQueue<CXmlNode> m_queue;           /**< Collected nodes. */
+    private final Probe m_probe = new Probe();          /**< Search key.      */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    private static final int PRED_EXISTS   = 0;
+    private static final int PRED_TEXT     = 1;
+    private static final int PRED_NUMBER   = 2;
+    private static final int PRED_ARGUMENT = 3;
+    private static final int INDEX_THRESHOLD = 16;
+    //@}
+}
+// vim:syntax=java.doxygen
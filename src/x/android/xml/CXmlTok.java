@@ -65,6 +65,10 @@ public class CXmlTok
         int  i = 0, count = text.length();
         char c;
 
+        /* Most values have nothing to decode. */
+        if ((text.indexOf('&') < 0) && (text.indexOf('%') < 0))
+            return text;
+
         buff = new StringBuilder( count );
         while (i < count)
         {
@@ -446,6 +450,68 @@ public class CXmlTok
         m_index = i + 1;
         return text;
     }/*}}}*/
+    // public final boolean skipElement();/*{{{*/
+    /**
+     * Skips a whole element, with all its children.
+     * No object is built in this operation. Only the structure of the
+     * element is checked: start and end tags must be balanced. Comment
+     * blocks and quoted text are skipped.
+     * \return \b true on success. \b false when the end of the stream is
+     * reached before the end of the element.
+     * \remarks The current reading position must be the angle bracket that
+     * starts the element ('\<'). On success the position is updated to the
+     * next character after the element end. On failure the position is left
+     * unchanged.
+     * \since jguime 2.5
+     **/
+    public final boolean skipElement() {
+        final char[] stream = m_stream;
+        final int    count  = stream.length;
+        int  i = m_index, depth = 0;
+        char c;
+
+        while (i < count)
+        {
+            if (stream[i++] != '<') continue;
+
+            if (match(i, "!--")) {
+                i += 3;     /* Pass over '!--' sequence. */
+                while ((i < count) && !((stream[i++] == '-') && match(i, "->")));
+                i += 2;     /* Pass over '->' sequence. */
+                continue;
+            }
+
+            if ((i < count) && (stream[i] == '/')) {
+                while ((i < count) && (stream[i] != '>')) i++;
+                if (++i > count) break;
+
+                if (--depth == 0) {
+                    m_index = i;
+                    return true;
+                }
+                continue;
+            }
+
+            /* Start tag. Look for its end, jumping attribute values. */
+            c = 0;
+            while (i < count) {
+                c = stream[i++];
+                if (c == '"')
+                    while ((i < count) && (stream[i++] != '"'));
+                else if (c == '>')
+                    break;
+            }
+            if (c != '>') break;
+
+            if (stream[i - 2] != '/')
+                depth++;
+            else if (depth == 0) {
+                m_index = i;
+                return true;
+            }
+        }
+        return false;
+    }/*}}}*/
     // public final void   dump();/*{{{*/
     /**
      * Dumps the stream content.
@@ -0,0 +1,605 @@
+/**
+ * \file
+ * Defines the CXmlWriter class.
+ *
+ * \author Alessandro Antonello <aantonello@paralaxe.com.br>
+ * \date   Outubro 19, 2026
+ * \since  jguime 2.5
+ *
+ * \par Copyright
+ * This file is provided in hope that it will be useful to someone. It is
+ * offered in public domain. You may use, modify or distribute it freely.
+ *
+ * The code is provided "AS IS". There is no warranty at all, of any kind. You
+ * may change it if you like. Or just use it as it is.
+ */
+package x.android.xml;
+
+import java.io.DataOutput;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import x.android.defs.ENC;
+import x.android.defs.ERROR;
+import x.android.utils.arrays;
+import x.android.utils.debug;
+import x.android.utils.strings;
+import x.android.io.CStreamWriter;
+
+/**
+ * \ingroup x_android_xml
+ * Streaming writer of XML documents.
+ * Elements and attributes are written as events. Characters are collected in
+ * a reusable buffer and encoded directly into bytes, without building
+ * intermediate String objects. When the buffer is full its content is sent to
+ * the output (a \c stream_t, a \c CStreamWriter or any \c OutputStream).
+ *
+ * The output has the same layout produced by CXmlNode#toString():
+ * @code
+ * CXmlWriter writer = new CXmlWriter(stream, ENC.UTF8);
+ * writer.startDocument(false);
+ * writer.startElement("stringtable");
+ * writer.startElement("string").attribute("id", 1).attribute("value", "One");
+ * writer.endElement();
+ * writer.endElement();
+ * writer.flush();
+ * @endcode
+ * Like other classes in this library, no exception is thrown. Errors are
+ * kept and can be queried by #writeStatus().
+ *//* --------------------------------------------------------------------- */
+public class CXmlWriter
+{
+    /** \name CONSTRUCTORS */ //@{
+    // public CXmlWriter(DataOutput output, String enc);/*{{{*/
+    /**
+     * Builds a writer that sends its content to a \c DataOutput object.
+     * \param output The target of the written data. Usually a \c stream_t or
+     * a \c CStreamWriter object.
+     * \param enc Encoding of the output. If \b null or empty, \b UTF-8 will
+     * be used. See \c x.android.defs#ENC.
+     **/
+    public CXmlWriter(DataOutput output, String enc) {
+        m_output   = output;
+        m_encoding = (strings.empty(enc) ? ENC.UTF8 : enc);
+        m_codec    = _internal_codec(m_encoding);
+        m_chars    = new char[BUFFER_SIZE];
+        m_bytes    = new byte[BUFFER_SIZE * 4];
+        m_names    = new String[8];
+        m_depth    = 0;
+        m_count    = 0;
+        m_open     = false;
+        m_lastWrite = ERROR.SUCCESS;
+    }/*}}}*/
+    // public CXmlWriter(OutputStream os, String enc);/*{{{*/
+    /**
+     * Builds a writer that sends its content to an \c OutputStream.
+     * \param os The target output stream. It is not closed by this class.
+     * \param enc Encoding of the output. If \b null or empty, \b UTF-8 will
+     * be used. See \c x.android.defs#ENC.
+     **/
+    public CXmlWriter(OutputStream os, String enc) {
+        this(new CStreamWriter(os), enc);
+    }/*}}}*/
+    //@}
+
+    /** \name ATTRIBUTES */ //@{
+    // public final String encoding();/*{{{*/
+    /**
+     * Gets the encoding used by this writer.
+     **/
+    public final String encoding() {
+        return m_encoding;
+    }/*}}}*/
+    // public final int    depth();/*{{{*/
+    /**
+     * Gets the number of elements currently open.
+     **/
+    public final int depth() {
+        return m_depth;
+    }/*}}}*/
+    // public final int    writeStatus();/*{{{*/
+    /**
+     * Gets the status of the last write operation in the output.
+     * \returns \c ERROR#SUCCESS or an error code. Usually \c ERROR#WRITE or
+     * \c ERROR#CHARSET.
+     **/
+    public final int writeStatus() {
+        return m_lastWrite;
+    }/*}}}*/
+    //@}
+
+    /** \name DOCUMENT EVENTS */ //@{
+    // public final CXmlWriter startDocument(boolean bom);/*{{{*/
+    /**
+     * Starts the document writing the XML declaration.
+     * \param bom \b true to write the Byte Order Mark of the encoding before
+     * the declaration. \b false to leave the mark of.
+     * \return This object, so calls can be chained.
+     **/
+    public final CXmlWriter startDocument(boolean bom) {
+        if (bom)
+        {
+            byte[] mark = null;
+
+            if (m_encoding.equals(ENC.UTF32LE))
+                mark = new byte[] { (byte)0xFF, (byte)0xFE, 0x00, 0x00 };
+            else if (m_encoding.equals(ENC.UTF32BE))
+                mark = new byte[] { 0x00, 0x00, (byte)0xFE, (byte)0xFF };
+            else if (m_encoding.equals(ENC.UTF16LE))
+                mark = new byte[] { (byte)0xFF, (byte)0xFE };
+            else if (m_encoding.equals(ENC.UTF16BE) || m_encoding.equals(ENC.UTF16))
+                mark = new byte[] { (byte)0xFE, (byte)0xFF };
+            else if (m_encoding.equals(ENC.UTF8))
+                mark = new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF };
+
+            if (mark != null)
+                _internal_output(mark, mark.length);
+        }
+
+        _internal_append("<?xml version=\"1.0\" encoding=\"");
+        _internal_append(m_encoding);
+        _internal_append("\"?>\n");
+        return this;
+    }/*}}}*/
+    // public final CXmlWriter startElement(String name);/*{{{*/
+    /**
+     * Starts a new element.
+     * If the parent element has its start tag still open it is closed here.
+     * \param name Name of the element.
+     * \return This object, so calls can be chained.
+     **/
+    public final CXmlWriter startElement(String name) {
+        if (m_open) _internal_append(">\n");
+
+        if (m_depth == m_names.length)
+            m_names = arrays.realloc(m_names, m_depth * 2);
+
+        m_names[m_depth++] = name;
+        _internal_append('<');
+        _internal_append(name);
+        m_open = true;
+        return this;
+    }/*}}}*/
+    // public final CXmlWriter attribute(String name, String value);/*{{{*/
+    /**
+     * Writes an attribute in the current element.
+     * \param name Attribute name.
+     * \param value Attribute value. XML symbols are replaced by their
+     * entities. A \b null value is written as an empty string.
+     * \return This object, so calls can be chained.
+     * \remarks Attributes can only be written right after #startElement().
+     * When there is no element start tag open the call is ignored.
+     **/
+    public final CXmlWriter attribute(String name, String value) {
+        if (!m_open) return this;
+
+        _internal_append(' ');
+        _internal_append(name);
+        _internal_append("=\"");
+        _internal_escape(value);
+        _internal_append('"');
+        return this;
+    }/*}}}*/
+    // public final CXmlWriter attribute(String name, long value);/*{{{*/
+    /**
+     * Writes a numeric attribute in the current element.
+     * The digits are written directly in the output buffer.
+     * \param name Attribute name.
+     * \param value Attribute value.
+     * \return This object, so calls can be chained.
+     **/
+    public final CXmlWriter attribute(String name, long value) {
+        if (!m_open) return this;
+
+        _internal_append(' ');
+        _internal_append(name);
+        _internal_append("=\"");
+        _internal_append(value);
+        _internal_append('"');
+        return this;
+    }/*}}}*/
+    // public final CXmlWriter attribute(CXmlAttr attr);/*{{{*/
+    /**
+     * Writes an attribute object in the current element.
+     * \param attr The attribute to write.
+     * \return This object, so calls can be chained.
+     **/
+    public final CXmlWriter attribute(CXmlAttr attr) {
+        return attribute(attr.name, attr.value);
+    }/*}}}*/
+    // public final CXmlWriter endElement();/*{{{*/
+    /**
+     * Ends the current element.
+     * When the element has no children it is closed with the short form
+     * (<tt>" />"</tt>). Otherwise a closing tag is written.
+     * \return This object, so calls can be chained.
+     **/
+    public final CXmlWriter endElement() {
+        if (m_depth == 0) return this;
+
+        String name = m_names[--m_depth];
+        m_names[m_depth] = null;
+
+        if (m_open)
+            _internal_append(" />\n");
+        else
+        {
+            _internal_append("</");
+            _internal_append(name);
+            _internal_append(">\n");
+        }
+        m_open = false;
+        return this;
+    }/*}}}*/
+    // public final CXmlWriter endDocument();/*{{{*/
+    /**
+     * Closes all elements still open and flushes the output.
+     * \return This object.
+     **/
+    public final CXmlWriter endDocument() {
+        while (m_depth > 0)
+            endElement();
+
+        flush();
+        return this;
+    }/*}}}*/
+    //@}
+
+    /** \name OPERATIONS */ //@{
+    // public final int flush();/*{{{*/
+    /**
+     * Encodes all buffered characters and sends them to the output.
+     * \return \c ERROR#SUCCESS or an error code.
+     **/
+    public final int flush() {
+        _internal_drain(true);
+        if (m_output instanceof CStreamWriter)
+            ((CStreamWriter)m_output).flush();
+
+        return m_lastWrite;
+    }/*}}}*/
+    // public final void reset(DataOutput output);/*{{{*/
+    /**
+     * Reuses this writer with another output.
+     * Any content not flushed is discarded and all open elements are
+     * forgotten. The internal buffers are kept.
+     * \param output The new target of the writer.
+     **/
+    public final void reset(DataOutput output) {
+        arrays.set(m_names, null, 0, m_depth);
+        m_output = output;
+        m_depth  = 0;
+        m_count  = 0;
+        m_open   = false;
+        m_lastWrite = ERROR.SUCCESS;
+    }/*}}}*/
+    //@}
+
+    /** \name INTERNAL OPERATIONS */ //@{
+    // private void _internal_append(char c);/*{{{*/
+    /**
+     * Appends a single character in the buffer.
+     **/
+    private void _internal_append(char c) {
+        if (m_count == m_chars.length) _internal_drain(false);
+        m_chars[m_count++] = c;
+    }/*}}}*/
+    // private void _internal_append(String text);/*{{{*/
+    /**
+     * Appends the characters of a string in the buffer.
+     **/
+    private void _internal_append(String text) {
+        int limit = strings.length(text);
+        int start = 0, count;
+
+        while (start < limit)
+        {
+            if (m_count == m_chars.length) _internal_drain(false);
+
+            count = Math.min(limit - start, m_chars.length - m_count);
+            text.getChars(start, start + count, m_chars, m_count);
+            m_count += count;
+            start   += count;
+        }
+    }/*}}}*/
+    // private void _internal_append(long value);/*{{{*/
+    /**
+     * Appends the decimal digits of a number in the buffer.
+     **/
+    private void _internal_append(long value) {
+        /* 20 characters is the longest signed 64 bits decimal number. */
+        if ((m_chars.length - m_count) < 20) _internal_drain(false);
+
+        if (value == Long.MIN_VALUE) {
+            _internal_append("-9223372036854775808");
+            return;
+        }
+
+        if (value < 0) {
+            m_chars[m_count++] = '-';
+            value = -value;
+        }
+
+        int first = m_count;
+        do {
+            m_chars[m_count++] = (char)('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+
+        /* Digits were written in reverse order. */
+        char c;
+        for (int i = first, j = m_count - 1; i < j; i++, j--) {
+            c = m_chars[i];
+            m_chars[i] = m_chars[j];
+            m_chars[j] = c;
+        }
+    }/*}}}*/
+    // private void _internal_escape(String value);/*{{{*/
+    /**
+     * Appends an attribute value replacing XML symbols with their entities.
+     **/
+    private void _internal_escape(String value) {
+        int limit = strings.length(value);
+        int start = 0;
+        char c;
+
+        /* Runs of characters that need no escaping are copied in bulk. */
+        for (int i = 0; i < limit; i++)
+        {
+            c = value.charAt(i);
+            if ((c != '&') && (c != '"') && (c != '\'') && (c != '<') && (c != '>'))
+                continue;
+
+            _internal_append(value, start, i);
+            start = i + 1;
+
+            if (c == '&')
+                _internal_append("&amp;");
+            else if (c == '"')
+                _internal_append("&quot;");
+            else if (c == '\'')
+                _internal_append("&apos;");
+            else if (c == '<')
+                _internal_append("&lt;");
+            else
+                _internal_append("&gt;");
+        }
+        _internal_append(value, start, limit);
+    }/*}}}*/
+    // private void _internal_append(String text, int start, int end);/*{{{*/
+    /**
+     * Appends a range of characters of a string in the buffer.
+     **/
+    private void _internal_append(String text, int start, int end) {
+        int count;
+
+        while (start < end)
+        {
+            if (m_count == m_chars.length) _internal_drain(false);
+
+            count = Math.min(end - start, m_chars.length - m_count);
+            text.getChars(start, start + count, m_chars, m_count);
+            m_count += count;
+            start   += count;
+        }
+    }/*}}}*/
+    // private void _internal_drain(boolean flush);/*{{{*/
+    /**
+     * Encodes the buffered characters and writes them in the output.
+     * A high surrogate at the end of the buffer is kept so the pair is
+     * encoded together with the next block.
+     * \param flush \b true when called by #flush(). No more characters are
+     * expected, so a high surrogate at the end is written as the
+     * replacement character (U+FFFD).
+     **/
+    private void _internal_drain(boolean flush) {
+        int count = m_count;
+        if (count == 0) return;
+
+        boolean pending = Character.isHighSurrogate(m_chars[count - 1]);
+        if (pending && flush) {
+            m_chars[count - 1] = '\uFFFD';
+            pending = false;
+        }
+        if (pending) count--;
+
+        int size = _internal_encode(count);
+        if (size > 0) _internal_output(m_bytes, size);
+
+        if (pending) {
+            m_chars[0] = m_chars[count];
+            m_count = 1;
+        } else {
+            m_count = 0;
+        }
+    }/*}}}*/
+    // private int  _internal_encode(int count);/*{{{*/
+    /**
+     * Encodes characters from the internal char buffer in the byte buffer.
+     * \param count Number of characters to encode.
+     * \return The number of bytes produced.
+     **/
+    private int _internal_encode(int count) {
+        final char[] chars = m_chars;
+        final byte[] bytes = m_bytes;
+        int  c, i = 0, n = 0;
+
+        switch (m_codec)
+        {
+        case CODEC_UTF8:
+            while (i < count)
+            {
+                c = chars[i++];
+                if (c < 0x80)
+                    bytes[n++] = (byte)c;
+                else if (c < 0x800) {
+                    bytes[n++] = (byte)(0xC0 | (c >> 6));
+                    bytes[n++] = (byte)(0x80 | (c & 0x3F));
+                }
+                else if (Character.isHighSurrogate((char)c) && (i < count) &&
+                         Character.isLowSurrogate(chars[i])) {
+                    c = Character.toCodePoint((char)c, chars[i++]);
+                    bytes[n++] = (byte)(0xF0 | (c >> 18));
+                    bytes[n++] = (byte)(0x80 | ((c >> 12) & 0x3F));
+                    bytes[n++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte)(0x80 | (c & 0x3F));
+                }
+                else {
+                    /* A surrogate without its pair is not valid UTF-8. */
+                    if ((c >= 0xD800) && (c <= 0xDFFF)) c = 0xFFFD;
+
+                    bytes[n++] = (byte)(0xE0 | (c >> 12));
+                    bytes[n++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte)(0x80 | (c & 0x3F));
+                }
+            }
+            return n;
+        case CODEC_ASCII:
+            while (i < count) {
+                c = chars[i++];
+                if (Character.isHighSurrogate((char)c) && (i < count) &&
+                    Character.isLowSurrogate(chars[i]))
+                    i++;
+                bytes[n++] = (byte)((c < 0x80) ? c : '?');
+            }
+            return n;
+        case CODEC_LATIN1:
+            while (i < count) {
+                c = chars[i++];
+                if (Character.isHighSurrogate((char)c) && (i < count) &&
+                    Character.isLowSurrogate(chars[i]))
+                    i++;
+                bytes[n++] = (byte)((c < 0x100) ? c : '?');
+            }
+            return n;
+        case CODEC_UTF16BE:
+            while (i < count) {
+                c = chars[i++];
+                bytes[n++] = (byte)(c >> 8);
+                bytes[n++] = (byte)c;
+            }
+            return n;
+        case CODEC_UTF16LE:
+            while (i < count) {
+                c = chars[i++];
+                bytes[n++] = (byte)c;
+                bytes[n++] = (byte)(c >> 8);
+            }
+            return n;
+        case CODEC_UTF32BE:
+        case CODEC_UTF32LE:
+            while (i < count)
+            {
+                c = chars[i++];
+                if (Character.isHighSurrogate((char)c) && (i < count) &&
+                    Character.isLowSurrogate(chars[i]))
+                    c = Character.toCodePoint((char)c, chars[i++]);
+
+                if (m_codec == CODEC_UTF32BE)
+                    arrays.intAsBigEnd(bytes, n, c);
+                else
+                    arrays.intAsLittleEnd(bytes, n, c);
+                n += 4;
+            }
+            return n;
+        }
+        return _internal_encodeCharset(count);
+    }/*}}}*/
+    // private int  _internal_encodeCharset(int count);/*{{{*/
+    /**
+     * Encodes characters using the platform charset for the encoding.
+     * This is used only for encodings not listed in \c ENC.
+     **/
+    private int _internal_encodeCharset(int count) {
+        try
+        {
+            if (m_encoder == null)
+            {
+                m_encoder = Charset.forName(m_encoding).newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+
+            ByteBuffer out = ByteBuffer.wrap(m_bytes);
+            m_encoder.reset();
+            m_encoder.encode(CharBuffer.wrap(m_chars, 0, count), out, true);
+            m_encoder.flush(out);
+            return out.position();
+        }
+        catch (Exception ex) {
+            debug.e(ex, "$n in CXmlWriter::_internal_encodeCharset('%s'): $s\n", m_encoding);
+            m_lastWrite = ERROR.CHARSET;
+        }
+        return 0;
+    }/*}}}*/
+    // private void _internal_output(byte[] data, int count);/*{{{*/
+    /**
+     * Sends encoded bytes to the output.
+     **/
+    private void _internal_output(byte[] data, int count) {
+        if (m_output == null) return;
+
+        try { m_output.write(data, 0, count); }
+        catch (Exception ex) {
+            debug.e(ex, "$n in CXmlWriter::_internal_output(): $s\n");
+            m_lastWrite = ERROR.WRITE;
+        }
+    }/*}}}*/
+    //@}
+
+    /** \name STATIC INTERNALS */ //@{
+    // private static int _internal_codec(String enc);/*{{{*/
+    /**
+     * Finds the internal encoder for an encoding name.
+     **/
+    private static int _internal_codec(String enc) {
+        if (enc.equalsIgnoreCase(ENC.UTF8))
+            return CODEC_UTF8;
+        else if (enc.equalsIgnoreCase(ENC.ASCII))
+            return CODEC_ASCII;
+        else if (enc.equalsIgnoreCase(ENC.LATIN1))
+            return CODEC_LATIN1;
+        else if (enc.equalsIgnoreCase(ENC.UTF16BE) || enc.equalsIgnoreCase(ENC.UTF16))
+            return CODEC_UTF16BE;
+        else if (enc.equalsIgnoreCase(ENC.UTF16LE))
+            return CODEC_UTF16LE;
+        else if (enc.equalsIgnoreCase(ENC.UTF32BE))
+            return CODEC_UTF32BE;
+        else if (enc.equalsIgnoreCase(ENC.UTF32LE))
+            return CODEC_UTF32LE;
+
+        return CODEC_CHARSET;
+    }/*}}}*/
+    //@}
+
+    /** \name DATA MEMBERS */ //@{
+    private DataOutput m_output;        /**< Target of the written data.   */
+    private String     m_encoding;      /**< Encoding name.                */
+    private int        m_codec;         /**< Internal encoder identifier.  */
+    private CharsetEncoder m_encoder;   /**< Used for other encodings.     */
+    private char[]     m_chars;         /**< Pending characters.           */
+    private byte[]     m_bytes;         /**< Encoded bytes.                */
+    private int        m_count;         /**< Characters in m_chars.        */
+    private String[]   m_names;         /**< Names of open elements.       */
+    private int        m_depth;         /**< Number of open elements.      */
+    private boolean    m_open;          /**< Start tag not yet closed.     */
+    private int        m_lastWrite;     /**< Status of the last write.     */
+    //@}
+
+    /** \name CONSTANTS */ //@{
+    private static final int BUFFER_SIZE   = 1024;
+    private static final int CODEC_CHARSET = 0;
+    private static final int CODEC_UTF8    = 1;
+    private static final int CODEC_ASCII   = 2;
+    private static final int CODEC_LATIN1  = 3;
+    private static final int CODEC_UTF16BE = 4;
+    private static final int CODEC_UTF16LE = 5;
+    private static final int CODEC_UTF32BE = 6;
+    private static final int CODEC_UTF32LE = 7;
+    //@}
+}
+// vim:syntax=java.doxygen
@@ -23,6 +23,9 @@ package x.android.xml;
  * - \b CXmlNode: An XML element node.
  * - \b CXmlAttr: A node attribute, name and value.
  * - \b CXmlTok: Parses and validates an XML file.
+ * - \b CXmlWriter: Writes XML documents directly into an output stream.
+ * - \b CXmlBinary: Compact binary format of XML trees.
+ * - \b CXmlQuery: Compiled path expressions to find nodes and attributes.
  * .
  * @{ *//* ---------------------------------------------------------------- */
 ///@} x_android_xml